@@ -442,6 +442,8 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
             // update the version on request so it will happen on the replicas
             indexRequest.versionType(indexRequest.versionType().versionTypeForReplicationAndRecovery());
             indexRequest.version(version);
+            // send the source the way it has been stored to the replicas, so they don't need to compress or convert it again
+            indexRequest.source(op.parsedDoc().source(), false);
         } catch (Throwable t) {
             throw new WriteFailureException(t, mappingTypeToUpdate);
         }
@@ -219,6 +219,8 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
             request.version(version);
             request.versionType(request.versionType().versionTypeForReplicationAndRecovery());
             assert request.versionType().validateVersionForWrites(request.version());
+            // send the source the way it has been stored to the replicas, so they don't need to compress or convert it again
+            request.source(op.parsedDoc().source(), false);
 
             IndexResponse response = new IndexResponse(shardRequest.shardId.getIndex(), request.type(), request.id(), version, created);
             return new PrimaryResponse<>(shardRequest.request, response, op);
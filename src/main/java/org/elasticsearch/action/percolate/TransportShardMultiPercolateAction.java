@@ -95,15 +95,22 @@ public class TransportShardMultiPercolateAction extends TransportShardSingleOper
 
     @Override
     protected Response shardOperation(Request request, ShardId shardId) throws ElasticsearchException {
-        // TODO: Look into combining the shard req's docs into one in memory index.
+        List<PercolateShardRequest> shardRequests = new ArrayList<>(request.items.size());
+        for (Request.Item item : request.items) {
+            shardRequests.add(item.request);
+        }
+        // the documents of the items are percolated as one batch where possible
+        PercolatorService.ItemResponse[] results = percolatorService.percolate(shardRequests);
+
         Response response = new Response();
         response.items = new ArrayList<>(request.items.size());
-        for (Request.Item item : request.items) {
+        for (int i = 0; i < request.items.size(); i++) {
             Response.Item responseItem;
-            int slot = item.slot;
-            try {
-                responseItem = new Response.Item(slot, percolatorService.percolate(item.request));
-            } catch (Throwable t) {
+            int slot = request.items.get(i).slot;
+            if (results[i].failed() == false) {
+                responseItem = new Response.Item(slot, results[i].response());
+            } else {
+                Throwable t = results[i].failure();
                 if (TransportActions.isShardNotAvailableException(t)) {
                     throw (ElasticsearchException) t;
                 } else {
@@ -130,6 +130,32 @@ public class SearchRequestBuilder extends ActionRequestBuilder<SearchRequest, Se
         return this;
     }
 
+    /**
+     * Only returns the hits that sort after the given sort values, typically the sort values of the last hit
+     * of the previous page. Requires a sort, which should include a unique field as a tie breaker.
+     */
+    public SearchRequestBuilder setSearchAfter(Object... sortValues) {
+        sourceBuilder().searchAfter(sortValues);
+        return this;
+    }
+
+    /**
+     * Restricts the scroll to the slice <tt>id</tt> out of <tt>max</tt> disjoint slices of the documents.
+     */
+    public SearchRequestBuilder setSlice(int id, int max) {
+        sourceBuilder().slice(id, max);
+        return this;
+    }
+
+    /**
+     * Restricts the scroll to the slice <tt>id</tt> out of <tt>max</tt> disjoint slices of the documents, assigning
+     * documents to slices by the terms of the given field. Only <tt>_uid</tt> is supported.
+     */
+    public SearchRequestBuilder setSlice(String field, int id, int max) {
+        sourceBuilder().slice(field, id, max);
+        return this;
+    }
+
     /**
      * An optional document count, upon collecting which the search
      * query will early terminate
@@ -22,10 +22,12 @@ package org.elasticsearch.common.compress;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.MapBuilder;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
 import org.elasticsearch.common.compress.lzf.LZFCompressor;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -43,14 +45,23 @@ import java.util.Locale;
 public class CompressorFactory {
 
     private static final LZFCompressor LZF = new LZFCompressor();
+    private static final LZ4Compressor LZ4 = new LZ4Compressor(false);
+    private static final LZ4Compressor LZ4_HC = new LZ4Compressor(true);
 
     private static final Compressor[] compressors;
     private static final ImmutableMap<String, Compressor> compressorsByType;
     private static Compressor defaultCompressor;
+    // compressors configured for specific uses, null means the default compressor is used
+    private static Compressor transportCompressor;
+    private static Compressor sourceCompressor;
+    private static Compressor clusterStateCompressor;
 
     static {
         List<Compressor> compressorsX = Lists.newArrayList();
         compressorsX.add(LZF);
+        // both lz4 variants write the same format, so the first one detects and reads the output of both
+        compressorsX.add(LZ4);
+        compressorsX.add(LZ4_HC);
 
         compressors = compressorsX.toArray(new Compressor[compressorsX.size()]);
         MapBuilder<String, Compressor> compressorsByTypeX = MapBuilder.newMapBuilder();
@@ -66,18 +77,28 @@ public class CompressorFactory {
         for (Compressor compressor : compressors) {
             compressor.configure(settings);
         }
-        String defaultType = settings.get("compress.default.type", "lzf").toLowerCase(Locale.ENGLISH);
-        boolean found = false;
-        for (Compressor compressor : compressors) {
-            if (defaultType.equalsIgnoreCase(compressor.type())) {
-                defaultCompressor = compressor;
-                found = true;
-                break;
-            }
+        Compressor compressor = configuredCompressor(settings, "compress.default.type");
+        if (compressor != null) {
+            defaultCompressor = compressor;
+        } else if (settings.get("compress.default.type") == null) {
+            defaultCompressor = LZF;
         }
-        if (!found) {
-            Loggers.getLogger(CompressorFactory.class).warn("failed to find default type [{}]", defaultType);
+        transportCompressor = configuredCompressor(settings, "compress.transport.type");
+        sourceCompressor = configuredCompressor(settings, "compress.source.type");
+        clusterStateCompressor = configuredCompressor(settings, "compress.cluster_state.type");
+    }
+
+    @Nullable
+    private static Compressor configuredCompressor(Settings settings, String setting) {
+        String type = settings.get(setting);
+        if (type == null) {
+            return null;
         }
+        Compressor compressor = compressorsByType.get(type.toLowerCase(Locale.ROOT));
+        if (compressor == null) {
+            Loggers.getLogger(CompressorFactory.class).warn("failed to find compressor type [{}] for [{}]", type, setting);
+        }
+        return compressor;
     }
 
     public static synchronized void setDefaultCompressor(Compressor defaultCompressor) {
@@ -88,6 +109,35 @@ public class CompressorFactory {
         return defaultCompressor;
     }
 
+    /**
+     * The compressor of transport messages sent to a node of the given version, including recovery chunks. Falls
+     * back to LZF for nodes that are too old to read LZ4.
+     */
+    public static Compressor transportCompressor(Version version) {
+        return wireCompatible(transportCompressor != null ? transportCompressor : defaultCompressor, version);
+    }
+
+    /**
+     * The compressor of the cluster state published to a node of the given version.
+     */
+    public static Compressor clusterStateCompressor(Version version) {
+        return wireCompatible(clusterStateCompressor != null ? clusterStateCompressor : defaultCompressor, version);
+    }
+
+    /**
+     * The compressor of the <tt>_source</tt> of documents, when source compression is enabled.
+     */
+    public static Compressor sourceCompressor() {
+        return sourceCompressor != null ? sourceCompressor : defaultCompressor;
+    }
+
+    private static Compressor wireCompatible(Compressor compressor, Version version) {
+        if (compressor instanceof LZ4Compressor && version.before(Version.V_1_5_0)) {
+            return LZF;
+        }
+        return compressor;
+    }
+
     public static boolean isCompressed(BytesReference bytes) {
         return compressor(bytes) != null;
     }
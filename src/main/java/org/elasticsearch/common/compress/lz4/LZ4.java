@@ -0,0 +1,140 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.compress.lz4;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * Helpers shared by the LZ4 compressed streams: the LZ4 implementation of Lucene's stored fields compression,
+ * adapters to run it on top of stream inputs and outputs, and per thread recycling of the chunk buffers and of the
+ * (stateful) compressors so that opening a compressed stream doesn't allocate.
+ */
+final class LZ4 {
+
+    /**
+     * Size of the uncompressed chunks.
+     */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The decompressor may write up to 7 bytes past the end of the decompressed data.
+     */
+    static final int DECOMPRESS_BUFFER_SIZE = CHUNK_SIZE + 7;
+
+    private static final ThreadLocal<Compressor> FAST_COMPRESSOR = new ThreadLocal<Compressor>() {
+        @Override
+        protected Compressor initialValue() {
+            return CompressionMode.FAST.newCompressor();
+        }
+    };
+
+    private static final ThreadLocal<Compressor> HIGH_COMPRESSOR = new ThreadLocal<Compressor>() {
+        @Override
+        protected Compressor initialValue() {
+            return CompressionMode.FAST_DECOMPRESSION.newCompressor();
+        }
+    };
+
+    private static final ThreadLocal<byte[]> COMPRESS_BUFFER = new ThreadLocal<>();
+    private static final ThreadLocal<byte[]> DECOMPRESS_BUFFER = new ThreadLocal<>();
+
+    private LZ4() {
+    }
+
+    /**
+     * Returns the compressor of the current thread. Compressing a chunk never calls back into another compressed
+     * stream, so streams of the same thread can share it.
+     */
+    static Compressor compressor(boolean highCompression) {
+        return highCompression ? HIGH_COMPRESSOR.get() : FAST_COMPRESSOR.get();
+    }
+
+    static byte[] allocCompressBuffer() {
+        return alloc(COMPRESS_BUFFER, CHUNK_SIZE);
+    }
+
+    static void releaseCompressBuffer(byte[] buffer) {
+        COMPRESS_BUFFER.set(buffer);
+    }
+
+    static byte[] allocDecompressBuffer() {
+        return alloc(DECOMPRESS_BUFFER, DECOMPRESS_BUFFER_SIZE);
+    }
+
+    static void releaseDecompressBuffer(byte[] buffer) {
+        if (buffer.length == DECOMPRESS_BUFFER_SIZE) {
+            DECOMPRESS_BUFFER.set(buffer);
+        }
+    }
+
+    private static byte[] alloc(ThreadLocal<byte[]> slot, int size) {
+        // take the buffer out of the slot, so that nested streams on the same thread don't share it
+        byte[] buffer = slot.get();
+        if (buffer != null) {
+            slot.set(null);
+            return buffer;
+        }
+        return new byte[size];
+    }
+
+    static final class StreamDataInput extends DataInput {
+
+        private final StreamInput in;
+
+        StreamDataInput(StreamInput in) {
+            this.in = in;
+        }
+
+        @Override
+        public byte readByte() throws IOException {
+            return in.readByte();
+        }
+
+        @Override
+        public void readBytes(byte[] b, int offset, int len) throws IOException {
+            in.readBytes(b, offset, len);
+        }
+    }
+
+    static final class StreamDataOutput extends DataOutput {
+
+        private final StreamOutput out;
+
+        StreamDataOutput(StreamOutput out) {
+            this.out = out;
+        }
+
+        @Override
+        public void writeByte(byte b) throws IOException {
+            out.writeByte(b);
+        }
+
+        @Override
+        public void writeBytes(byte[] b, int offset, int length) throws IOException {
+            out.writeBytes(b, offset, length);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.compress.lz4;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.compress.CompressedStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+/**
+ * Reads the chunks written by {@link LZ4CompressedStreamOutput}.
+ */
+public class LZ4CompressedStreamInput extends CompressedStreamInput<LZ4CompressorContext> {
+
+    private final Decompressor decompressor = CompressionMode.FAST.newDecompressor();
+    private final BytesRef spare = new BytesRef();
+    private LZ4.StreamDataInput dataInput;
+
+    public LZ4CompressedStreamInput(StreamInput in) throws IOException {
+        super(in, LZ4CompressorContext.INSTANCE);
+        this.uncompressed = LZ4.allocDecompressBuffer();
+    }
+
+    @Override
+    protected void readHeader(StreamInput in) throws IOException {
+        for (int i = 0; i < LZ4Compressor.HEADER.length; i++) {
+            if (in.readByte() != LZ4Compressor.HEADER[i]) {
+                throw new StreamCorruptedException("not an lz4 compressed stream");
+            }
+        }
+    }
+
+    @Override
+    protected int uncompress(StreamInput in, byte[] out) throws IOException {
+        final int b = in.read();
+        if (b == -1) {
+            return -1;
+        }
+        final int length = (b << 24) | ((in.readByte() & 0xFF) << 16) | ((in.readByte() & 0xFF) << 8) | (in.readByte() & 0xFF);
+        if (length < 0 || length > LZ4.CHUNK_SIZE) {
+            throw new StreamCorruptedException("invalid lz4 chunk length [" + length + "]");
+        }
+        if (dataInput == null) {
+            dataInput = new LZ4.StreamDataInput(in);
+        }
+        spare.bytes = out;
+        spare.offset = 0;
+        spare.length = 0;
+        try {
+            decompressor.decompress(dataInput, length, 0, length, spare);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // lucene's lz4 doesn't validate the match offsets and lengths it reads, corrupt chunks make it read or
+            // write out of the bounds of its buffers
+            StreamCorruptedException corrupted = new StreamCorruptedException("corrupted lz4 chunk");
+            corrupted.initCause(e);
+            throw corrupted;
+        }
+        // the decompressor only grows the buffer if it is too small, which never happens with a recycled buffer
+        uncompressed = spare.bytes;
+        return length;
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        byte[] buf = uncompressed;
+        if (buf != null) {
+            uncompressed = null;
+            LZ4.releaseDecompressBuffer(buf);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.compress.lz4;
+
+import org.elasticsearch.common.compress.CompressedStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * Writes the {@link LZ4Compressor#HEADER header} followed by chunks of at most {@link LZ4#CHUNK_SIZE} bytes, each
+ * one written as its uncompressed length (a 4 bytes int) and its LZ4 compressed bytes.
+ */
+public class LZ4CompressedStreamOutput extends CompressedStreamOutput<LZ4CompressorContext> {
+
+    private final boolean highCompression;
+    private LZ4.StreamDataOutput dataOutput;
+
+    public LZ4CompressedStreamOutput(StreamOutput out, boolean highCompression) throws IOException {
+        super(out, LZ4CompressorContext.INSTANCE);
+        this.highCompression = highCompression;
+        this.uncompressed = LZ4.allocCompressBuffer();
+        this.uncompressedLength = LZ4.CHUNK_SIZE;
+    }
+
+    @Override
+    protected void writeHeader(StreamOutput out) throws IOException {
+        out.writeBytes(LZ4Compressor.HEADER);
+    }
+
+    @Override
+    protected void compress(byte[] data, int offset, int len, StreamOutput out) throws IOException {
+        if (dataOutput == null) {
+            dataOutput = new LZ4.StreamDataOutput(out);
+        }
+        out.writeInt(len);
+        LZ4.compressor(highCompression).compress(data, offset, len, dataOutput);
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        byte[] buf = uncompressed;
+        if (buf != null) {
+            uncompressed = null;
+            LZ4.releaseCompressBuffer(buf);
+        }
+    }
+}
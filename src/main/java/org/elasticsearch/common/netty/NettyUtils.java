@@ -21,11 +21,15 @@ package org.elasticsearch.common.netty;
 import org.elasticsearch.common.Booleans;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.transport.netty.NettyInternalESLoggerFactory;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.CompositeChannelBuffer;
 import org.jboss.netty.logging.InternalLogger;
 import org.jboss.netty.logging.InternalLoggerFactory;
 import org.jboss.netty.util.ThreadNameDeterminer;
 import org.jboss.netty.util.ThreadRenamingRunnable;
 
+import java.util.List;
+
 /**
  */
 public class NettyUtils {
@@ -107,4 +111,20 @@ public class NettyUtils {
     public static void setup() {
 
     }
+
+    /**
+     * Slices the given buffer. Messages that have been received in several network reads are held in a
+     * composite of the read buffers, whose slices are not backed by an array. If the slice falls into a single
+     * read buffer, it is taken from that buffer instead, so that large payloads like document sources or
+     * recovery chunks can be used in place rather than being copied into a fresh array.
+     */
+    public static ChannelBuffer slice(ChannelBuffer buffer, int index, int length) {
+        if (length > 0 && buffer instanceof CompositeChannelBuffer) {
+            List<ChannelBuffer> components = ((CompositeChannelBuffer) buffer).decompose(index, length);
+            if (components.size() == 1) {
+                return components.get(0).slice();
+            }
+        }
+        return buffer.slice(index, length);
+    }
 }
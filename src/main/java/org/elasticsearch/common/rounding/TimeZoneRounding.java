@@ -128,6 +128,112 @@ public abstract class TimeZoneRounding extends Rounding {
         }
     }
 
+    // ISO weeks start on mondays, the first one after the epoch being 1970-01-05
+    private static final long FIRST_MONDAY_AFTER_EPOCH = 4L * DateTimeConstants.MILLIS_PER_DAY;
+
+    /**
+     * Returns the duration of the given unit if it is the same for all its instances in UTC (eg. hours or weeks),
+     * or <tt>-1</tt> if it depends on the date (eg. months).
+     */
+    static long fixedUnitMillis(DateTimeUnit unit) {
+        switch (unit) {
+            case WEEK_OF_WEEKYEAR:
+                return DateTimeConstants.MILLIS_PER_WEEK;
+            case DAY_OF_MONTH:
+                return DateTimeConstants.MILLIS_PER_DAY;
+            case HOUR_OF_DAY:
+                return DateTimeConstants.MILLIS_PER_HOUR;
+            case MINUTES_OF_HOUR:
+                return DateTimeConstants.MILLIS_PER_MINUTE;
+            case SECOND_OF_MINUTE:
+                return DateTimeConstants.MILLIS_PER_SECOND;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Rounds the given millis down to a unit of the given fixed duration. This gives the same result as
+     * {@link DateTimeField#roundFloor(long)} on the UTC field of the unit without going through the chronology.
+     */
+    static long roundFloor(long millis, long unitMillis) {
+        final long origin = unitMillis == DateTimeConstants.MILLIS_PER_WEEK ? FIRST_MONDAY_AFTER_EPOCH : 0;
+        long remainder = (millis - origin) % unitMillis;
+        if (remainder < 0) {
+            remainder += unitMillis;
+        }
+        return millis - remainder;
+    }
+
+    /**
+     * Caches the range of instants between two transitions of a time zone, during which converting from UTC to
+     * local time is a simple addition of the offset. Values of a date histogram are usually all in the same few
+     * ranges, so this saves looking up the time zone rules for every value.
+     */
+    static final class OffsetCache {
+
+        private final DateTimeZone tz;
+        private OffsetRange range;
+
+        OffsetCache(DateTimeZone tz) {
+            this.tz = tz;
+            if (tz.isFixed()) {
+                range = new OffsetRange(Long.MIN_VALUE, Long.MAX_VALUE, tz.getOffset(0));
+            }
+        }
+
+        /**
+         * Returns the range of instants that have the same offset as the given instant.
+         */
+        OffsetRange range(long utcMillis) {
+            OffsetRange range = this.range;
+            if (range == null || utcMillis < range.start || utcMillis >= range.end) {
+                this.range = range = OffsetRange.of(tz, utcMillis);
+            }
+            return range;
+        }
+
+        long convertUTCToLocal(long utcMillis) {
+            return utcMillis + range(utcMillis).offset;
+        }
+    }
+
+    /**
+     * An immutable range of instants <tt>[start, end)</tt> that all have the same offset in a time zone.
+     */
+    static final class OffsetRange {
+
+        final long start;
+        final long end;
+        final long offset;
+
+        OffsetRange(long start, long end, long offset) {
+            this.start = start;
+            this.end = end;
+            this.offset = offset;
+        }
+
+        static OffsetRange of(DateTimeZone tz, long utcMillis) {
+            final int offset = tz.getOffset(utcMillis);
+            // the transitions are only used if they are consistent with the offset, otherwise the range is narrowed down
+            long start = utcMillis;
+            final long previous = tz.previousTransition(utcMillis);
+            if (previous == utcMillis) {
+                start = Long.MIN_VALUE;
+            } else if (previous < utcMillis && tz.getOffset(previous + 1) == offset) {
+                start = previous + 1;
+            }
+            long end = utcMillis + 1;
+            final long next = tz.nextTransition(utcMillis);
+            if (next == utcMillis) {
+                end = Long.MAX_VALUE;
+            } else if (next > utcMillis && tz.getOffset(next - 1) == offset) {
+                end = next;
+            }
+            return new OffsetRange(start, end, offset);
+        }
+    }
+
     static class TimeTimeZoneRoundingFloor extends TimeZoneRounding {
 
         static final byte ID = 1;
@@ -137,6 +243,8 @@ public abstract class TimeZoneRounding extends Rounding {
         private DurationField durationField;
         private DateTimeZone preTz;
         private DateTimeZone postTz;
+        private long unitMillis;
+        private OffsetCache preTzOffsets;
 
         TimeTimeZoneRoundingFloor() { // for serialization
         }
@@ -145,8 +253,10 @@ public abstract class TimeZoneRounding extends Rounding {
             this.unit = unit;
             field = unit.field();
             durationField = field.getDurationField();
+            unitMillis = fixedUnitMillis(unit);
             this.preTz = preTz;
             this.postTz = postTz;
+            preTzOffsets = new OffsetCache(preTz);
         }
 
         @Override
@@ -156,6 +266,14 @@ public abstract class TimeZoneRounding extends Rounding {
 
         @Override
         public long roundKey(long utcMillis) {
+            if (unitMillis > 0) {
+                final OffsetRange range = preTzOffsets.range(utcMillis);
+                final long key = roundFloor(utcMillis + range.offset, unitMillis) - range.offset;
+                if (key >= range.start) {
+                    // the rounded instant has the same offset as the value, so this is what the time zone would compute
+                    return key;
+                }
+            }
             long local = preTz.convertUTCToLocal(utcMillis);
             return preTz.convertLocalToUTC(field.roundFloor(local), true, utcMillis);
         }
@@ -180,8 +298,10 @@ public abstract class TimeZoneRounding extends Rounding {
             unit = DateTimeUnit.resolve(in.readByte());
             field = unit.field();
             durationField = field.getDurationField();
+            unitMillis = fixedUnitMillis(unit);
             preTz = DateTimeZone.forID(in.readSharedString());
             postTz = DateTimeZone.forID(in.readSharedString());
+            preTzOffsets = new OffsetCache(preTz);
         }
 
         @Override
@@ -199,6 +319,7 @@ public abstract class TimeZoneRounding extends Rounding {
         private DateTimeUnit unit;
         private DateTimeField field;
         private DurationField durationField;
+        private long unitMillis;
 
         UTCTimeZoneRoundingFloor() { // for serialization
         }
@@ -207,6 +328,7 @@ public abstract class TimeZoneRounding extends Rounding {
             this.unit = unit;
             field = unit.field();
             durationField = field.getDurationField();
+            unitMillis = fixedUnitMillis(unit);
         }
 
         @Override
@@ -216,6 +338,9 @@ public abstract class TimeZoneRounding extends Rounding {
 
         @Override
         public long roundKey(long utcMillis) {
+            if (unitMillis > 0) {
+                return roundFloor(utcMillis, unitMillis);
+            }
             return field.roundFloor(utcMillis);
         }
 
@@ -234,6 +359,7 @@ public abstract class TimeZoneRounding extends Rounding {
             unit = DateTimeUnit.resolve(in.readByte());
             field = unit.field();
             durationField = field.getDurationField();
+            unitMillis = fixedUnitMillis(unit);
         }
 
         @Override
@@ -251,6 +377,8 @@ public abstract class TimeZoneRounding extends Rounding {
         private DurationField durationField;
         private DateTimeZone preTz;
         private DateTimeZone postTz;
+        private long unitMillis;
+        private OffsetCache preTzOffsets;
 
         DayTimeZoneRoundingFloor() { // for serialization
         }
@@ -259,8 +387,10 @@ public abstract class TimeZoneRounding extends Rounding {
             this.unit = unit;
             field = unit.field();
             durationField = field.getDurationField();
+            unitMillis = fixedUnitMillis(unit);
             this.preTz = preTz;
             this.postTz = postTz;
+            preTzOffsets = new OffsetCache(preTz);
         }
 
         @Override
@@ -270,7 +400,10 @@ public abstract class TimeZoneRounding extends Rounding {
 
         @Override
         public long roundKey(long utcMillis) {
-            long local = preTz.convertUTCToLocal(utcMillis);
+            long local = preTzOffsets.convertUTCToLocal(utcMillis);
+            if (unitMillis > 0) {
+                return roundFloor(local, unitMillis);
+            }
             return field.roundFloor(local);
         }
 
@@ -293,8 +426,10 @@ public abstract class TimeZoneRounding extends Rounding {
             unit = DateTimeUnit.resolve(in.readByte());
             field = unit.field();
             durationField = field.getDurationField();
+            unitMillis = fixedUnitMillis(unit);
             preTz = DateTimeZone.forID(in.readSharedString());
             postTz = DateTimeZone.forID(in.readSharedString());
+            preTzOffsets = new OffsetCache(preTz);
         }
 
         @Override
@@ -359,6 +494,7 @@ public abstract class TimeZoneRounding extends Rounding {
         private long interval;
         private DateTimeZone preTz;
         private DateTimeZone postTz;
+        private OffsetCache preTzOffsets;
 
         TimeIntervalTimeZoneRounding() { // for serialization
         }
@@ -369,6 +505,7 @@ public abstract class TimeZoneRounding extends Rounding {
             this.interval = interval;
             this.preTz = preTz;
             this.postTz = postTz;
+            preTzOffsets = new OffsetCache(preTz);
         }
 
         @Override
@@ -378,7 +515,7 @@ public abstract class TimeZoneRounding extends Rounding {
 
         @Override
         public long roundKey(long utcMillis) {
-            long time = preTz.convertUTCToLocal(utcMillis);
+            long time = preTzOffsets.convertUTCToLocal(utcMillis);
             return Rounding.Interval.roundKey(time, interval);
         }
 
@@ -402,6 +539,7 @@ public abstract class TimeZoneRounding extends Rounding {
             interval = in.readVLong();
             preTz = DateTimeZone.forID(in.readSharedString());
             postTz = DateTimeZone.forID(in.readSharedString());
+            preTzOffsets = new OffsetCache(preTz);
         }
 
         @Override
@@ -419,6 +557,7 @@ public abstract class TimeZoneRounding extends Rounding {
         private long interval;
         private DateTimeZone preTz;
         private DateTimeZone postTz;
+        private OffsetCache preTzOffsets;
 
         DayIntervalTimeZoneRounding() { // for serialization
         }
@@ -429,6 +568,7 @@ public abstract class TimeZoneRounding extends Rounding {
             this.interval = interval;
             this.preTz = preTz;
             this.postTz = postTz;
+            preTzOffsets = new OffsetCache(preTz);
         }
 
         @Override
@@ -438,7 +578,7 @@ public abstract class TimeZoneRounding extends Rounding {
 
         @Override
         public long roundKey(long utcMillis) {
-            long time = preTz.convertUTCToLocal(utcMillis);
+            long time = preTzOffsets.convertUTCToLocal(utcMillis);
             return Rounding.Interval.roundKey(time, interval);
         }
 
@@ -461,6 +601,7 @@ public abstract class TimeZoneRounding extends Rounding {
             interval = in.readVLong();
             preTz = DateTimeZone.forID(in.readSharedString());
             postTz = DateTimeZone.forID(in.readSharedString());
+            preTzOffsets = new OffsetCache(preTz);
         }
 
         @Override
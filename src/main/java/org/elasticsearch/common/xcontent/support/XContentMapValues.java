@@ -25,7 +25,10 @@ import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -160,39 +163,9 @@ public class XContentMapValues {
                 continue;
             }
 
-            boolean exactIncludeMatch = false; // true if the current position was specifically mentioned
-            boolean pathIsPrefixOfAnInclude = false; // true if potentially a sub scope can be included
-            if (includes.length == 0) {
-                // implied match anything
-                exactIncludeMatch = true;
-            } else {
-                for (String include : includes) {
-                    // check for prefix matches as well to see if we need to zero in, something like: obj1.arr1.* or *.field
-                    // note, this does not work well with middle matches, like obj1.*.obj3
-                    if (include.charAt(0) == '*') {
-                        if (Regex.simpleMatch(include, path)) {
-                            exactIncludeMatch = true;
-                            break;
-                        }
-                        pathIsPrefixOfAnInclude = true;
-                        continue;
-                    }
-                    if (include.startsWith(path)) {
-                        if (include.length() == path.length()) {
-                            exactIncludeMatch = true;
-                            break;
-                        } else if (include.length() > path.length() && include.charAt(path.length()) == '.') {
-                            // include might may match deeper paths. Dive deeper.
-                            pathIsPrefixOfAnInclude = true;
-                            continue;
-                        }
-                    }
-                    if (Regex.simpleMatch(include, path)) {
-                        exactIncludeMatch = true;
-                        break;
-                    }
-                }
-            }
+            int includeMatch = matchIncludes(includes, path);
+            boolean exactIncludeMatch = includeMatch == EXACT_INCLUDE_MATCH; // true if the current position was specifically mentioned
+            boolean pathIsPrefixOfAnInclude = includeMatch == PREFIX_INCLUDE_MATCH; // true if potentially a sub scope can be included
 
             if (!(pathIsPrefixOfAnInclude || exactIncludeMatch)) {
                 // skip subkeys, not interesting.
@@ -246,6 +219,195 @@ public class XContentMapValues {
         }
     }
 
+    private static final int NO_INCLUDE_MATCH = 0;
+    private static final int PREFIX_INCLUDE_MATCH = 1;
+    private static final int EXACT_INCLUDE_MATCH = 2;
+
+    private static int matchIncludes(String[] includes, String path) {
+        if (includes.length == 0) {
+            // implied match anything
+            return EXACT_INCLUDE_MATCH;
+        }
+        int match = NO_INCLUDE_MATCH;
+        for (String include : includes) {
+            // check for prefix matches as well to see if we need to zero in, something like: obj1.arr1.* or *.field
+            // note, this does not work well with middle matches, like obj1.*.obj3
+            if (include.charAt(0) == '*') {
+                if (Regex.simpleMatch(include, path)) {
+                    return EXACT_INCLUDE_MATCH;
+                }
+                match = PREFIX_INCLUDE_MATCH;
+                continue;
+            }
+            if (include.startsWith(path)) {
+                if (include.length() == path.length()) {
+                    return EXACT_INCLUDE_MATCH;
+                } else if (include.length() > path.length() && include.charAt(path.length()) == '.') {
+                    // include might may match deeper paths. Dive deeper.
+                    match = PREFIX_INCLUDE_MATCH;
+                    continue;
+                }
+            }
+            if (Regex.simpleMatch(include, path)) {
+                return EXACT_INCLUDE_MATCH;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Filters the object the parser is positioned on (or about to read) and writes the result to the builder, with
+     * the same semantics as {@link #filter(Map, String[], String[])} except that keys keep the order of the source.
+     * Tokens are copied from the parser to the builder as they are read, and branches that can't match are skipped,
+     * so no map of the document is built.
+     */
+    public static void filter(XContentParser parser, XContentBuilder builder, String[] includes, String[] excludes) throws IOException {
+        XContentParser.Token token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        builder.startObject();
+        if (token != null) {
+            if (token != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("Failed to filter content, expected an object but got [" + token + "]");
+            }
+            filter(parser, builder, includes == null ? Strings.EMPTY_ARRAY : includes, excludes == null ? Strings.EMPTY_ARRAY : excludes, new StringBuilder(), new PendingStart(null, null, false, true));
+        }
+        builder.endObject();
+    }
+
+    /**
+     * The start of an object or an array that is only written once something is written within it, since objects
+     * and arrays whose content is filtered out entirely are omitted.
+     */
+    private static class PendingStart {
+
+        private final PendingStart parent;
+        private final String name;
+        private final boolean array;
+        private boolean written;
+
+        PendingStart(PendingStart parent, String name, boolean array, boolean written) {
+            this.parent = parent;
+            this.name = name;
+            this.array = array;
+            this.written = written;
+        }
+
+        void write(XContentBuilder builder) throws IOException {
+            if (written) {
+                return;
+            }
+            if (parent != null) {
+                parent.write(builder);
+            }
+            if (array) {
+                if (name == null) {
+                    builder.startArray();
+                } else {
+                    builder.startArray(name);
+                }
+            } else {
+                if (name == null) {
+                    builder.startObject();
+                } else {
+                    builder.startObject(name);
+                }
+            }
+            written = true;
+        }
+    }
+
+    // the parser is positioned on the start of the object, and on its end once done
+    private static void filter(XContentParser parser, XContentBuilder builder, String[] includes, String[] excludes, StringBuilder sb, PendingStart object) throws IOException {
+        XContentParser.Token token;
+        if (includes.length == 0 && excludes.length == 0) {
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                object.write(builder);
+                builder.copyCurrentStructure(parser);
+            }
+            return;
+        }
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            String key = parser.currentName();
+            token = parser.nextToken();
+            int mark = sb.length();
+            if (sb.length() > 0) {
+                sb.append('.');
+            }
+            sb.append(key);
+            String path = sb.toString();
+
+            if (Regex.simpleMatch(excludes, path)) {
+                parser.skipChildren();
+                sb.setLength(mark);
+                continue;
+            }
+
+            int includeMatch = matchIncludes(includes, path);
+            if (includeMatch == NO_INCLUDE_MATCH) {
+                // skip subkeys, not interesting.
+                parser.skipChildren();
+                sb.setLength(mark);
+                continue;
+            }
+            boolean exactIncludeMatch = includeMatch == EXACT_INCLUDE_MATCH;
+
+            if (token == XContentParser.Token.START_OBJECT) {
+                PendingStart innerObject = new PendingStart(object, key, false, false);
+                if (exactIncludeMatch) {
+                    innerObject.write(builder);
+                }
+                // if we had an exact match, we want give deeper excludes their chance
+                filter(parser, builder, exactIncludeMatch ? Strings.EMPTY_ARRAY : includes, excludes, sb, innerObject);
+                if (innerObject.written) {
+                    builder.endObject();
+                }
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                // arrays are kept even if all their values are filtered out
+                PendingStart innerArray = new PendingStart(object, key, true, false);
+                innerArray.write(builder);
+                filterArray(parser, builder, exactIncludeMatch ? Strings.EMPTY_ARRAY : includes, excludes, sb, innerArray);
+                builder.endArray();
+            } else if (exactIncludeMatch) {
+                object.write(builder);
+                builder.field(key);
+                builder.copyCurrentStructure(parser);
+            }
+            sb.setLength(mark);
+        }
+    }
+
+    // the parser is positioned on the start of the array, and on its end once done
+    private static void filterArray(XContentParser parser, XContentBuilder builder, String[] includes, String[] excludes, StringBuilder sb, PendingStart array) throws IOException {
+        XContentParser.Token token;
+        if (includes.length == 0 && excludes.length == 0) {
+            while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                array.write(builder);
+                builder.copyCurrentStructure(parser);
+            }
+            return;
+        }
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.START_OBJECT) {
+                PendingStart innerObject = new PendingStart(array, null, false, false);
+                filter(parser, builder, includes, excludes, sb, innerObject);
+                if (innerObject.written) {
+                    builder.endObject();
+                }
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                PendingStart innerArray = new PendingStart(array, null, true, false);
+                filterArray(parser, builder, includes, excludes, sb, innerArray);
+                if (innerArray.written) {
+                    builder.endArray();
+                }
+            } else {
+                array.write(builder);
+                builder.copyCurrentStructure(parser);
+            }
+        }
+    }
+
     public static boolean isObject(Object node) {
         return node instanceof Map;
     }
@@ -112,7 +112,7 @@ public class PublishClusterStateAction extends AbstractComponent {
             if (bytes == null) {
                 try {
                     BytesStreamOutput bStream = new BytesStreamOutput();
-                    StreamOutput stream = new HandlesStreamOutput(CompressorFactory.defaultCompressor().streamOutput(bStream));
+                    StreamOutput stream = new HandlesStreamOutput(CompressorFactory.clusterStateCompressor(node.version()).streamOutput(bStream));
                     stream.setVersion(node.version());
                     ClusterState.Builder.writeTo(clusterState, stream);
                     stream.close();
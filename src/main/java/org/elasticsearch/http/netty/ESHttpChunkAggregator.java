@@ -0,0 +1,156 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty;
+
+import org.elasticsearch.common.netty.NettyUtils;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.handler.codec.frame.TooLongFrameException;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpChunkAggregator;
+import org.jboss.netty.handler.codec.http.HttpChunkTrailer;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMessage;
+import org.jboss.netty.util.CharsetUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates a chunked HTTP message into a single message, like netty's {@link HttpChunkAggregator}. Netty's
+ * aggregator rebuilds its composite buffer on every chunk and copies it together every
+ * <tt>max_composite_buffer_components</tt> chunks, which makes receiving large bodies (like bulk requests) quadratic.
+ * The chunks are collected here and wrapped once the last one has been received, so that the body stays in the
+ * buffers it has been read in. If <tt>max_composite_buffer_components</tt> is set, the chunks received so far are
+ * still copied together whenever that many have been collected.
+ */
+public class ESHttpChunkAggregator extends SimpleChannelUpstreamHandler {
+
+    private static final ChannelBuffer CONTINUE = ChannelBuffers.copiedBuffer("HTTP/1.1 100 Continue\r\n\r\n", CharsetUtil.US_ASCII);
+
+    private final int maxContentLength;
+    private final int maxCompositeBufferComponents;
+
+    private HttpMessage currentMessage;
+    private List<ChannelBuffer> chunks;
+    private int contentLength;
+
+    /**
+     * @param maxContentLength             the maximum length of the aggregated content
+     * @param maxCompositeBufferComponents the number of chunks after which the content received so far is copied
+     *                                     together, or <tt>-1</tt> to never copy it
+     */
+    public ESHttpChunkAggregator(int maxContentLength, int maxCompositeBufferComponents) {
+        this.maxContentLength = maxContentLength;
+        this.maxCompositeBufferComponents = maxCompositeBufferComponents;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        Object msg = e.getMessage();
+        if (msg instanceof HttpMessage) {
+            HttpMessage m = (HttpMessage) msg;
+            if (HttpHeaders.is100ContinueExpected(m)) {
+                Channels.write(ctx, Channels.succeededFuture(ctx.getChannel()), CONTINUE.duplicate());
+            }
+            if (m.isChunked()) {
+                // the content arrives as chunks, the aggregated message gets its content length once they are all in
+                removeTransferEncodingChunked(m);
+                m.setChunked(false);
+                currentMessage = m;
+                chunks = new ArrayList<>();
+                contentLength = 0;
+            } else {
+                currentMessage = null;
+                chunks = null;
+                ctx.sendUpstream(e);
+            }
+        } else if (msg instanceof HttpChunk) {
+            if (currentMessage == null) {
+                throw new IllegalStateException("received " + HttpChunk.class.getSimpleName() + " without " + HttpMessage.class.getSimpleName());
+            }
+            HttpChunk chunk = (HttpChunk) msg;
+            ChannelBuffer content = chunk.getContent();
+            if (contentLength > maxContentLength - content.readableBytes()) {
+                // the chunks are dropped with the message, the next message on this connection starts over
+                currentMessage = null;
+                chunks = null;
+                throw new TooLongFrameException("HTTP content length exceeded " + maxContentLength + " bytes.");
+            }
+            if (content.readable()) {
+                chunks.add(content);
+                contentLength += content.readableBytes();
+                if (maxCompositeBufferComponents != -1 && chunks.size() >= maxCompositeBufferComponents) {
+                    ChannelBuffer copy = wrap(chunks).copy();
+                    chunks = new ArrayList<>();
+                    chunks.add(copy);
+                }
+            }
+            if (chunk.isLast()) {
+                HttpMessage message = currentMessage;
+                if (chunk instanceof HttpChunkTrailer) {
+                    for (Map.Entry<String, String> header : ((HttpChunkTrailer) chunk).trailingHeaders()) {
+                        message.headers().set(header.getKey(), header.getValue());
+                    }
+                }
+                message.setContent(wrap(chunks));
+                message.headers().set(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(contentLength));
+                currentMessage = null;
+                chunks = null;
+                Channels.fireMessageReceived(ctx, message, e.getRemoteAddress());
+            }
+        } else {
+            ctx.sendUpstream(e);
+        }
+    }
+
+    private static ChannelBuffer wrap(List<ChannelBuffer> chunks) {
+        if (chunks.isEmpty()) {
+            return ChannelBuffers.EMPTY_BUFFER;
+        }
+        if (chunks.size() == 1) {
+            return chunks.get(0);
+        }
+        return ChannelBuffers.wrappedBuffer(NettyUtils.DEFAULT_GATHERING, chunks.toArray(new ChannelBuffer[chunks.size()]));
+    }
+
+    private static void removeTransferEncodingChunked(HttpMessage m) {
+        List<String> values = m.headers().getAll(HttpHeaders.Names.TRANSFER_ENCODING);
+        if (values.isEmpty()) {
+            return;
+        }
+        List<String> remaining = new ArrayList<>(values.size());
+        for (String value : values) {
+            if (!HttpHeaders.Values.CHUNKED.equalsIgnoreCase(value)) {
+                remaining.add(value);
+            }
+        }
+        if (remaining.isEmpty()) {
+            m.headers().remove(HttpHeaders.Names.TRANSFER_ENCODING);
+        } else {
+            m.headers().set(HttpHeaders.Names.TRANSFER_ENCODING, remaining);
+        }
+    }
+}
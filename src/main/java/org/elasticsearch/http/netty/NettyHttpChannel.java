@@ -21,23 +21,32 @@ package org.elasticsearch.http.netty;
 
 import com.google.common.base.Strings;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.netty.NettyUtils;
 import org.elasticsearch.common.netty.ReleaseChannelFutureListener;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.netty.pipelining.OrderedDownstreamChannelEvent;
 import org.elasticsearch.http.netty.pipelining.OrderedUpstreamMessageEvent;
 import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.rest.StreamingRestResponse;
 import org.elasticsearch.rest.support.RestUtils;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.*;
 import org.jboss.netty.handler.codec.http.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -51,6 +60,8 @@ import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.*;
  */
 public class NettyHttpChannel extends HttpChannel {
 
+    private static final ESLogger logger = Loggers.getLogger(NettyHttpChannel.class);
+
     private static final ChannelBuffer END_JSONP;
 
     static {
@@ -140,6 +151,27 @@ public class NettyHttpChannel extends HttpChannel {
             }
         }
 
+        if (transport.resetCookies) {
+            String cookieString = nettyRequest.headers().get(HttpHeaders.Names.COOKIE);
+            if (cookieString != null) {
+                CookieDecoder cookieDecoder = new CookieDecoder();
+                Set<Cookie> cookies = cookieDecoder.decode(cookieString);
+                if (!cookies.isEmpty()) {
+                    // Reset the cookies if necessary.
+                    CookieEncoder cookieEncoder = new CookieEncoder(true);
+                    for (Cookie cookie : cookies) {
+                        cookieEncoder.addCookie(cookie);
+                    }
+                    resp.headers().add(HttpHeaders.Names.SET_COOKIE, cookieEncoder.encode());
+                }
+            }
+        }
+
+        if (response instanceof StreamingRestResponse && !http10 && request.param("callback") == null) {
+            sendStreamingResponse(resp, (StreamingRestResponse) response, close);
+            return;
+        }
+
         BytesReference content = response.content();
         ChannelBuffer buffer;
         boolean addedReleaseListener = false;
@@ -175,22 +207,6 @@ public class NettyHttpChannel extends HttpChannel {
                 resp.headers().add(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(buffer.readableBytes()));
             }
 
-            if (transport.resetCookies) {
-                String cookieString = nettyRequest.headers().get(HttpHeaders.Names.COOKIE);
-                if (cookieString != null) {
-                    CookieDecoder cookieDecoder = new CookieDecoder();
-                    Set<Cookie> cookies = cookieDecoder.decode(cookieString);
-                    if (!cookies.isEmpty()) {
-                        // Reset the cookies if necessary.
-                        CookieEncoder cookieEncoder = new CookieEncoder(true);
-                        for (Cookie cookie : cookies) {
-                            cookieEncoder.addCookie(cookie);
-                        }
-                        resp.headers().add(HttpHeaders.Names.SET_COOKIE, cookieEncoder.encode());
-                    }
-                }
-            }
-
             ChannelFuture future;
 
             if (orderedUpstreamMessageEvent != null) {
@@ -217,6 +233,159 @@ public class NettyHttpChannel extends HttpChannel {
         }
     }
 
+    private void sendStreamingResponse(org.jboss.netty.handler.codec.http.HttpResponse resp, StreamingRestResponse response, boolean close) {
+        ChunkedOutput out = new ChunkedOutput(resp, close);
+        try {
+            XContentBuilder builder = newBuilder(request.hasContent() ? request.content() : null, out);
+            out.contentType(builder.contentType().restContentType());
+            response.writeContent(builder);
+            builder.close();
+            out.close();
+        } catch (Throwable t) {
+            if (out.abort()) {
+                // part of the response has already been sent, all we can do is to close the connection
+                logger.warn("failed to write response content, closing connection", t);
+                channel.close();
+            } else {
+                throw ExceptionsHelper.convertToRuntime(t);
+            }
+        }
+    }
+
+    private ChannelFuture write(Object message, int subsequence, boolean last) {
+        if (orderedUpstreamMessageEvent != null) {
+            OrderedDownstreamChannelEvent downstreamChannelEvent = new OrderedDownstreamChannelEvent(orderedUpstreamMessageEvent, subsequence, last, message);
+            channel.getPipeline().sendDownstream(downstreamChannelEvent);
+            return downstreamChannelEvent.getFuture();
+        } else {
+            return channel.write(message);
+        }
+    }
+
+    /**
+     * Sends the content written to it as a chunked response. The content is buffered in recycled pages, and sent as a
+     * chunk, that is released once written, each time it reaches <tt>http.response_chunk_size</tt>. Content that
+     * fits in a single chunk is sent as a regular response.
+     */
+    private class ChunkedOutput extends OutputStream {
+
+        private final org.jboss.netty.handler.codec.http.HttpResponse resp;
+        private final boolean close;
+        private final long chunkSize;
+        private String contentType;
+        private ReleasableBytesStreamOutput current;
+        private int subsequence = 0;
+        private boolean headersSent = false;
+        private boolean closed = false;
+
+        ChunkedOutput(org.jboss.netty.handler.codec.http.HttpResponse resp, boolean close) {
+            this.resp = resp;
+            this.close = close;
+            this.chunkSize = transport.responseChunkSize.bytes();
+        }
+
+        void contentType(String contentType) {
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            current().writeByte((byte) b);
+            maybeSendChunk();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            current().writeBytes(b, off, len);
+            maybeSendChunk();
+        }
+
+        private ReleasableBytesStreamOutput current() throws IOException {
+            if (closed) {
+                throw new IOException("response already sent");
+            }
+            if (current == null) {
+                current = new ReleasableBytesStreamOutput(transport.bigArrays);
+            }
+            return current;
+        }
+
+        private void maybeSendChunk() {
+            if (current.size() >= chunkSize) {
+                sendChunk();
+            }
+        }
+
+        private void sendChunk() {
+            if (!headersSent) {
+                resp.setChunked(true);
+                resp.headers().add(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+                addContentType();
+                NettyHttpChannel.this.write(resp, subsequence++, false);
+                headersSent = true;
+            }
+            ReleasableBytesReference bytes = current.bytes();
+            current = null;
+            ChannelFuture future = NettyHttpChannel.this.write(new DefaultHttpChunk(bytes.toChannelBuffer()), subsequence++, false);
+            future.addListener(new ReleaseChannelFutureListener(bytes));
+        }
+
+        private void addContentType() {
+            if (!resp.headers().contains(HttpHeaders.Names.CONTENT_TYPE)) {
+                resp.headers().add(HttpHeaders.Names.CONTENT_TYPE, contentType);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            ChannelFuture future;
+            if (!headersSent) {
+                ReleasableBytesReference bytes = current == null ? null : current.bytes();
+                current = null;
+                closed = true;
+                ChannelBuffer buffer = bytes == null ? ChannelBuffers.EMPTY_BUFFER : bytes.toChannelBuffer();
+                resp.setContent(buffer);
+                addContentType();
+                if (!resp.headers().contains(HttpHeaders.Names.CONTENT_LENGTH)) {
+                    resp.headers().add(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(buffer.readableBytes()));
+                }
+                future = NettyHttpChannel.this.write(resp, subsequence++, true);
+                if (bytes != null) {
+                    future.addListener(new ReleaseChannelFutureListener(bytes));
+                }
+            } else {
+                if (current != null) {
+                    if (current.size() > 0) {
+                        sendChunk();
+                    } else {
+                        Releasables.close(current.bytes());
+                        current = null;
+                    }
+                }
+                closed = true;
+                future = NettyHttpChannel.this.write(HttpChunk.LAST_CHUNK, subsequence++, true);
+            }
+            if (close) {
+                future.addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+
+        /**
+         * Releases the content that hasn't been sent yet, and returns whether part of the response has already been sent.
+         */
+        boolean abort() {
+            closed = true;
+            if (current != null) {
+                Releasables.close(current.bytes());
+                current = null;
+            }
+            return headersSent;
+        }
+    }
+
     private static final HttpResponseStatus TOO_MANY_REQUESTS = new HttpResponseStatus(429, "Too Many Requests");
 
     private HttpResponseStatus getStatus(RestStatus status) {
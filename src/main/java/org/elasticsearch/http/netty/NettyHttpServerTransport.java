@@ -44,7 +44,6 @@ import org.jboss.netty.bootstrap.ServerBootstrap;
 import org.jboss.netty.channel.*;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
 import org.jboss.netty.channel.socket.oio.OioServerSocketChannelFactory;
-import org.jboss.netty.handler.codec.http.HttpChunkAggregator;
 import org.jboss.netty.handler.codec.http.HttpContentCompressor;
 import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
 import org.jboss.netty.handler.timeout.ReadTimeoutException;
@@ -88,6 +87,7 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
     protected final ByteSizeValue maxInitialLineLength;
     protected final ByteSizeValue maxHeaderSize;
     protected final ByteSizeValue maxChunkSize;
+    protected final ByteSizeValue responseChunkSize;
 
     protected final int workerCount;
 
@@ -145,6 +145,7 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
         ByteSizeValue maxContentLength = componentSettings.getAsBytesSize("max_content_length", settings.getAsBytesSize("http.max_content_length", new ByteSizeValue(100, ByteSizeUnit.MB)));
         this.maxChunkSize = componentSettings.getAsBytesSize("max_chunk_size", settings.getAsBytesSize("http.max_chunk_size", new ByteSizeValue(8, ByteSizeUnit.KB)));
         this.maxHeaderSize = componentSettings.getAsBytesSize("max_header_size", settings.getAsBytesSize("http.max_header_size", new ByteSizeValue(8, ByteSizeUnit.KB)));
+        this.responseChunkSize = componentSettings.getAsBytesSize("response_chunk_size", settings.getAsBytesSize("http.response_chunk_size", new ByteSizeValue(64, ByteSizeUnit.KB)));
         this.maxInitialLineLength = componentSettings.getAsBytesSize("max_initial_line_length", settings.getAsBytesSize("http.max_initial_line_length", new ByteSizeValue(4, ByteSizeUnit.KB)));
         // don't reset cookies by default, since I don't think we really need to
         // note, parsing cookies was fixed in netty 3.5.1 regarding stack allocation, but still, currently, we don't need cookies
@@ -381,11 +382,7 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
             }
             pipeline.addLast("decoder", requestDecoder);
             pipeline.addLast("decoder_compress", new ESHttpContentDecompressor(transport.compression));
-            HttpChunkAggregator httpChunkAggregator = new HttpChunkAggregator((int) transport.maxContentLength.bytes());
-            if (transport.maxCompositeBufferComponents != -1) {
-                httpChunkAggregator.setMaxCumulationBufferComponents(transport.maxCompositeBufferComponents);
-            }
-            pipeline.addLast("aggregator", httpChunkAggregator);
+            pipeline.addLast("aggregator", new ESHttpChunkAggregator((int) transport.maxContentLength.bytes(), transport.maxCompositeBufferComponents));
             pipeline.addLast("encoder", new ESHttpResponseEncoder());
             if (transport.compression) {
                 pipeline.addLast("encoder_compress", new HttpContentCompressor(transport.compressionLevel));
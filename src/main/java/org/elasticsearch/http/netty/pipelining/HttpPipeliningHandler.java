@@ -6,6 +6,7 @@ import org.jboss.netty.channel.*;
 import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
 import org.jboss.netty.handler.codec.http.HttpRequest;
 
+import java.nio.channels.ClosedChannelException;
 import java.util.*;
 
 /**
@@ -25,13 +26,19 @@ public class HttpPipeliningHandler extends SimpleChannelHandler {
     private int sequence;
     private int nextRequiredSequence;
     private int nextRequiredSubsequence;
+    private boolean closed;
 
     private final Queue<OrderedDownstreamChannelEvent> holdingQueue;
 
     /**
-     * @param maxEventsHeld the maximum number of channel events that will be retained prior to aborting the channel
+     * The number of events held per sequence, a response sent in chunks is held as a whole.
+     */
+    private final Map<Integer, Integer> heldEventsPerSequence = new HashMap<>();
+
+    /**
+     * @param maxEventsHeld the maximum number of responses that will be retained prior to aborting the channel
      *                      connection. This is required as events cannot queue up indefintely; we would run out of
-     *                      memory if this was the case.
+     *                      memory if this was the case. All the chunks of a response count as a single event.
      */
     public HttpPipeliningHandler(final int maxEventsHeld) {
         this.maxEventsHeld = maxEventsHeld;
@@ -69,12 +76,19 @@ public class HttpPipeliningHandler extends SimpleChannelHandler {
         if (e instanceof OrderedDownstreamChannelEvent) {
 
             boolean channelShouldClose = false;
+            boolean eventDropped = false;
 
             synchronized (holdingQueue) {
-                if (holdingQueue.size() < maxEventsHeld) {
+                final OrderedDownstreamChannelEvent currentEvent = (OrderedDownstreamChannelEvent) e;
+                final int currentSequence = currentEvent.getOrderedUpstreamMessageEvent().getSequence();
+
+                if (closed) {
+                    // nothing will be sent anymore, don't hold on to the event
+                    eventDropped = true;
+                } else if (currentSequence == nextRequiredSequence || heldEventsPerSequence.containsKey(currentSequence)
+                        || heldEventsPerSequence.size() < maxEventsHeld) {
 
-                    final OrderedDownstreamChannelEvent currentEvent = (OrderedDownstreamChannelEvent) e;
-                    holdingQueue.add(currentEvent);
+                    addHeld(currentEvent);
 
                     while (!holdingQueue.isEmpty()) {
                         final OrderedDownstreamChannelEvent nextEvent = holdingQueue.peek();
@@ -84,6 +98,7 @@ public class HttpPipeliningHandler extends SimpleChannelHandler {
                             break;
                         }
                         holdingQueue.remove();
+                        removeHeld(nextEvent);
                         ctx.sendDownstream(nextEvent.getChannelEvent());
                         if (nextEvent.isLast()) {
                             ++nextRequiredSequence;
@@ -94,10 +109,15 @@ public class HttpPipeliningHandler extends SimpleChannelHandler {
                     }
 
                 } else {
+                    eventDropped = true;
                     channelShouldClose = true;
                 }
             }
 
+            if (eventDropped) {
+                // fail the write, so that its listeners release what the event holds on to
+                e.getFuture().setFailure(new ClosedChannelException());
+            }
             if (channelShouldClose) {
                 Channels.close(e.getChannel());
             }
@@ -106,4 +126,36 @@ public class HttpPipeliningHandler extends SimpleChannelHandler {
         }
     }
 
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        final List<OrderedDownstreamChannelEvent> abandoned;
+        synchronized (holdingQueue) {
+            closed = true;
+            abandoned = new ArrayList<>(holdingQueue);
+            holdingQueue.clear();
+            heldEventsPerSequence.clear();
+        }
+        for (OrderedDownstreamChannelEvent event : abandoned) {
+            event.getFuture().setFailure(new ClosedChannelException());
+        }
+        super.channelClosed(ctx, e);
+    }
+
+    private void addHeld(OrderedDownstreamChannelEvent event) {
+        holdingQueue.add(event);
+        final Integer sequence = event.getOrderedUpstreamMessageEvent().getSequence();
+        final Integer held = heldEventsPerSequence.get(sequence);
+        heldEventsPerSequence.put(sequence, held == null ? 1 : held + 1);
+    }
+
+    private void removeHeld(OrderedDownstreamChannelEvent event) {
+        final Integer sequence = event.getOrderedUpstreamMessageEvent().getSequence();
+        final int held = heldEventsPerSequence.get(sequence);
+        if (held == 1) {
+            heldEventsPerSequence.remove(sequence);
+        } else {
+            heldEventsPerSequence.put(sequence, held - 1);
+        }
+    }
+
 }
@@ -30,6 +30,7 @@ import org.apache.lucene.util.Accountable;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.lucene.SegmentReaderUtils;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
@@ -136,6 +137,9 @@ public interface IndexFieldDataCache {
                     logger.error("Failed to call listener on field data cache unloading", e);
                 }
             }
+            if (value instanceof GlobalOrdinalsIndexFieldData) {
+                ((GlobalOrdinalsIndexFieldData) value).close();
+            }
         }
 
         @Override
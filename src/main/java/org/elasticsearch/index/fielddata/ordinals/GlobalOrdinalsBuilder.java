@@ -19,18 +19,24 @@
 
 package org.elasticsearch.index.fielddata.ordinals;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.MultiDocValues.OrdinalMap;
 import org.apache.lucene.index.RandomAccessOrds;
 import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardUtils;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Utility class to build global ordinals.
@@ -42,30 +48,122 @@ public enum GlobalOrdinalsBuilder {
      * Build global ordinals for the provided {@link IndexReader}.
      */
     public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData, Settings settings, CircuitBreakerService breakerService, ESLogger logger) throws IOException {
+        return build(indexReader, indexFieldData, null, settings, breakerService, logger);
+    }
+
+    /**
+     * Build global ordinals for the provided {@link IndexReader}, reusing the ordinal map that was last built for the
+     * same shard if the reader still has exactly the same segments.
+     */
+    public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData, @Nullable LastBuilt lastBuilt,
+                                               Settings settings, CircuitBreakerService breakerService, ESLogger logger) throws IOException {
         assert indexReader.leaves().size() > 1;
         long startTime = System.currentTimeMillis();
 
         final AtomicOrdinalsFieldData[] atomicFD = new AtomicOrdinalsFieldData[indexReader.leaves().size()];
         final RandomAccessOrds[] subs = new RandomAccessOrds[indexReader.leaves().size()];
+        final Object[] coreCacheKeys = new Object[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
             atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
             subs[i] = atomicFD[i].getOrdinalsValues();
+            coreCacheKeys[i] = indexReader.leaves().get(i).reader().getCoreCacheKey();
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
-        final long memorySizeInBytes = ordinalMap.ramBytesUsed();
-        breakerService.getBreaker(CircuitBreaker.Name.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
+
+        final InternalGlobalOrdinalsIndexFieldData previous = lastBuilt == null ? null : lastBuilt.get(indexReader);
+        final boolean reused;
+        final SharedOrdinalMap sharedOrdinalMap;
+        if (previous != null && Arrays.equals(previous.coreCacheKeys(), coreCacheKeys)) {
+            // the segments didn't change (eg. a refresh that only applied deletes), segment ordinals are still the same
+            sharedOrdinalMap = previous.sharedOrdinalMap();
+            reused = true;
+        } else {
+            sharedOrdinalMap = new SharedOrdinalMap(OrdinalMap.build(null, subs, PackedInts.DEFAULT));
+            reused = false;
+        }
+        final OrdinalMap ordinalMap = sharedOrdinalMap.ordinalMap();
+        // the ordinal map is accounted once, by the first global ordinals that use it
+        final long memorySizeInBytes = sharedOrdinalMap.acquire() ? ordinalMap.ramBytesUsed() : 0;
+        final CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.Name.FIELDDATA);
+        breaker.addWithoutBreaking(memorySizeInBytes);
 
         if (logger.isDebugEnabled()) {
             logger.debug(
-                    "Global-ordinals[{}][{}] took {} ms",
+                    "Global-ordinals[{}][{}] took {} ms, reused [{}]",
                     indexFieldData.getFieldNames().fullName(),
                     ordinalMap.getValueCount(),
-                    (System.currentTimeMillis() - startTime)
+                    (System.currentTimeMillis() - startTime),
+                    reused
             );
         }
-        return new InternalGlobalOrdinalsIndexFieldData(indexFieldData.index(), settings, indexFieldData.getFieldNames(),
-                indexFieldData.getFieldDataType(), atomicFD, ordinalMap, memorySizeInBytes
+        final InternalGlobalOrdinalsIndexFieldData globalOrdinals = new InternalGlobalOrdinalsIndexFieldData(indexFieldData.index(), settings,
+                indexFieldData.getFieldNames(), indexFieldData.getFieldDataType(), atomicFD, coreCacheKeys, sharedOrdinalMap, memorySizeInBytes, breaker
         );
+        if (lastBuilt != null) {
+            lastBuilt.put(indexReader, globalOrdinals);
+        }
+        return globalOrdinals;
+    }
+
+    /**
+     * Keeps track of the global ordinals that were last built per shard for a field. Values are only weakly
+     * referenced so that this never keeps global ordinals alive once the field data cache released them.
+     */
+    public static final class LastBuilt {
+
+        // readers that don't belong to a shard share a single slot
+        private static final Object NO_SHARD = new Object();
+
+        private final Cache<Object, InternalGlobalOrdinalsIndexFieldData> perShard = CacheBuilder.newBuilder().weakValues().build();
+
+        InternalGlobalOrdinalsIndexFieldData get(IndexReader indexReader) {
+            return perShard.getIfPresent(key(indexReader));
+        }
+
+        void put(IndexReader indexReader, InternalGlobalOrdinalsIndexFieldData globalOrdinals) {
+            perShard.put(key(indexReader), globalOrdinals);
+        }
+
+        public void clear() {
+            perShard.invalidateAll();
+        }
+
+        private static Object key(IndexReader indexReader) {
+            ShardId shardId = ShardUtils.extractShardId(indexReader);
+            return shardId == null ? NO_SHARD : shardId;
+        }
+    }
+
+    /**
+     * An ordinal map shared by the global ordinals of readers that have the same segments. It is accounted on the
+     * circuit breaker while at least one of these global ordinals is in the field data cache.
+     */
+    static final class SharedOrdinalMap {
+
+        private final OrdinalMap ordinalMap;
+        private int refCount;
+
+        SharedOrdinalMap(OrdinalMap ordinalMap) {
+            this.ordinalMap = ordinalMap;
+        }
+
+        OrdinalMap ordinalMap() {
+            return ordinalMap;
+        }
+
+        /**
+         * Adds a reference to the ordinal map, returns <tt>true</tt> if it isn't accounted yet.
+         */
+        synchronized boolean acquire() {
+            return refCount++ == 0;
+        }
+
+        /**
+         * Removes a reference to the ordinal map, returns <tt>true</tt> if it must not be accounted anymore.
+         */
+        synchronized boolean release() {
+            assert refCount > 0;
+            return --refCount == 0;
+        }
     }
 
 }
@@ -22,6 +22,7 @@ import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.util.Accountable;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.Index;
@@ -33,7 +34,7 @@ import org.elasticsearch.search.MultiValueMode;
 /**
  * {@link IndexFieldData} base class for concrete global ordinals implementations.
  */
-public abstract class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent implements IndexOrdinalsFieldData, Accountable {
+public abstract class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent implements IndexOrdinalsFieldData, Accountable, Releasable {
 
     private final FieldMapper.Names fieldNames;
     private final FieldDataType fieldDataType;
@@ -91,4 +92,11 @@ public abstract class GlobalOrdinalsIndexFieldData extends AbstractIndexComponen
         return memorySizeInBytes;
     }
 
+    /**
+     * Called once these global ordinals have been removed from the field data cache.
+     */
+    @Override
+    public void close() {
+    }
+
 }
@@ -21,6 +21,7 @@ package org.elasticsearch.index.fielddata.ordinals;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.MultiDocValues.OrdinalMap;
 import org.apache.lucene.index.RandomAccessOrds;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
@@ -28,15 +29,26 @@ import org.elasticsearch.index.fielddata.FieldDataType;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
 import org.elasticsearch.index.mapper.FieldMapper;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * {@link org.elasticsearch.index.fielddata.IndexFieldData} impl based on global ordinals.
  */
 final class InternalGlobalOrdinalsIndexFieldData extends GlobalOrdinalsIndexFieldData {
 
     private final Atomic[] atomicReaders;
+    private final Object[] coreCacheKeys;
+    private final GlobalOrdinalsBuilder.SharedOrdinalMap sharedOrdinalMap;
+    private final CircuitBreaker breaker;
+    private final AtomicBoolean closed = new AtomicBoolean();
 
-    InternalGlobalOrdinalsIndexFieldData(Index index, Settings settings, FieldMapper.Names fieldNames, FieldDataType fieldDataType, AtomicOrdinalsFieldData[] segmentAfd, OrdinalMap ordinalMap, long memorySizeInBytes) {
+    InternalGlobalOrdinalsIndexFieldData(Index index, Settings settings, FieldMapper.Names fieldNames, FieldDataType fieldDataType, AtomicOrdinalsFieldData[] segmentAfd,
+                                         Object[] coreCacheKeys, GlobalOrdinalsBuilder.SharedOrdinalMap sharedOrdinalMap, long memorySizeInBytes, CircuitBreaker breaker) {
         super(index, settings, fieldNames, fieldDataType, memorySizeInBytes);
+        this.coreCacheKeys = coreCacheKeys;
+        this.sharedOrdinalMap = sharedOrdinalMap;
+        this.breaker = breaker;
+        final OrdinalMap ordinalMap = sharedOrdinalMap.ordinalMap();
         this.atomicReaders = new Atomic[segmentAfd.length];
         for (int i = 0; i < segmentAfd.length; i++) {
             atomicReaders[i] = new Atomic(segmentAfd[i], ordinalMap, i);
@@ -48,6 +60,34 @@ final class InternalGlobalOrdinalsIndexFieldData extends GlobalOrdinalsIndexFiel
         return atomicReaders[context.ord];
     }
 
+    /**
+     * The core cache keys of the segments these global ordinals were built on, in reader order.
+     */
+    Object[] coreCacheKeys() {
+        return coreCacheKeys;
+    }
+
+    OrdinalMap ordinalMap() {
+        return sharedOrdinalMap.ordinalMap();
+    }
+
+    GlobalOrdinalsBuilder.SharedOrdinalMap sharedOrdinalMap() {
+        return sharedOrdinalMap;
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            // the cache released what these global ordinals accounted, which is either the whole ordinal map or
+            // nothing if other global ordinals accounted it first, the map is released once the last user is closed
+            long adjustment = ramBytesUsed();
+            if (sharedOrdinalMap.release()) {
+                adjustment -= sharedOrdinalMap.ordinalMap().ramBytesUsed();
+            }
+            breaker.addWithoutBreaking(adjustment);
+        }
+    }
+
     private final class Atomic extends AbstractAtomicOrdinalsFieldData {
 
         private final AtomicOrdinalsFieldData afd;
@@ -43,6 +43,7 @@ public abstract class AbstractIndexOrdinalsFieldData extends AbstractIndexFieldD
     protected Settings frequency;
     protected Settings regex;
     protected final CircuitBreakerService breakerService;
+    private final GlobalOrdinalsBuilder.LastBuilt lastBuiltGlobalOrdinals = new GlobalOrdinalsBuilder.LastBuilt();
 
     protected AbstractIndexOrdinalsFieldData(Index index, Settings indexSettings, Names fieldNames, FieldDataType fieldDataType,
                                           IndexFieldDataCache cache, CircuitBreakerService breakerService) {
@@ -58,6 +59,12 @@ public abstract class AbstractIndexOrdinalsFieldData extends AbstractIndexFieldD
         return new BytesRefFieldComparatorSource(this, missingValue, sortMode, nested);
     }
 
+    @Override
+    public void clear() {
+        super.clear();
+        lastBuiltGlobalOrdinals.clear();
+    }
+
     @Override
     public IndexOrdinalsFieldData loadGlobal(IndexReader indexReader) {
         if (indexReader.leaves().size() <= 1) {
@@ -77,7 +84,7 @@ public abstract class AbstractIndexOrdinalsFieldData extends AbstractIndexFieldD
 
     @Override
     public IndexOrdinalsFieldData localGlobalDirect(IndexReader indexReader) throws Exception {
-        return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger);
+        return GlobalOrdinalsBuilder.build(indexReader, this, lastBuiltGlobalOrdinals, indexSettings, breakerService, logger);
     }
 
     protected TermsEnum filter(Terms terms, AtomicReader reader) throws IOException {
@@ -37,6 +37,7 @@ public class SortedSetDVOrdinalsIndexFieldData extends DocValuesIndexFieldData i
     private final Settings indexSettings;
     private final IndexFieldDataCache cache;
     private final CircuitBreakerService breakerService;
+    private final GlobalOrdinalsBuilder.LastBuilt lastBuiltGlobalOrdinals = new GlobalOrdinalsBuilder.LastBuilt();
 
     public SortedSetDVOrdinalsIndexFieldData(Index index, IndexFieldDataCache cache, Settings indexSettings, Names fieldNames, CircuitBreakerService breakerService, FieldDataType fieldDataType) {
         super(index, fieldNames, fieldDataType);
@@ -59,6 +60,12 @@ public class SortedSetDVOrdinalsIndexFieldData extends DocValuesIndexFieldData i
         return load(context);
     }
 
+    @Override
+    public void clear() {
+        super.clear();
+        lastBuiltGlobalOrdinals.clear();
+    }
+
     @Override
     public IndexOrdinalsFieldData loadGlobal(IndexReader indexReader) {
         if (indexReader.leaves().size() <= 1) {
@@ -78,6 +85,6 @@ public class SortedSetDVOrdinalsIndexFieldData extends DocValuesIndexFieldData i
 
     @Override
     public IndexOrdinalsFieldData localGlobalDirect(IndexReader indexReader) throws Exception {
-        return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger);
+        return GlobalOrdinalsBuilder.build(indexReader, this, lastBuiltGlobalOrdinals, indexSettings, breakerService, logger);
     }
 }
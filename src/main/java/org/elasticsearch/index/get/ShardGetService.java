@@ -32,8 +32,10 @@ import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.VersionType;
@@ -399,7 +401,16 @@ public class ShardGetService extends AbstractIndexShardComponent {
 
         if (!fetchSourceContext.fetchSource()) {
             source = null;
-        } else if (fetchSourceContext.transformSource() || fetchSourceContext.includes().length > 0 || fetchSourceContext.excludes().length > 0) {
+        } else if (!fetchSourceContext.transformSource() && (fetchSourceContext.includes().length > 0 || fetchSourceContext.excludes().length > 0)) {
+            // filter the source while parsing it instead of building a map of it
+            try (XContentParser parser = XContentHelper.createParser(source)) {
+                XContentBuilder builder = XContentFactory.contentBuilder(parser.contentType());
+                XContentMapValues.filter(parser, builder, fetchSourceContext.includes(), fetchSourceContext.excludes());
+                source = builder.bytes();
+            } catch (IOException e) {
+                throw new ElasticsearchException("Failed to get type [" + type + "] and id [" + id + "] with includes/excludes set", e);
+            }
+        } else if (fetchSourceContext.transformSource()) {
             Map<String, Object> sourceAsMap;
             XContentType sourceContentType = null;
             // TODO: The source might parsed and available in the sourceLookup but that one uses unordered maps so different. Do we care?
@@ -455,7 +455,7 @@ public class GeoPointFieldMapper extends AbstractFieldMapper<GeoPoint> implement
         return this.geohashMapper;
     }
 
-    int geoHashPrecision() {
+    public int geoHashPrecision() {
         return geoHashPrecision;
     }
 
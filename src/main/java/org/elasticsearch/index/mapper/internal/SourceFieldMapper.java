@@ -276,7 +276,7 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
             BytesStreamOutput bStream = new BytesStreamOutput();
             StreamOutput streamOutput = bStream;
             if (compress != null && compress && (compressThreshold == -1 || source.length() > compressThreshold)) {
-                streamOutput = CompressorFactory.defaultCompressor().streamOutput(bStream);
+                streamOutput = CompressorFactory.sourceCompressor().streamOutput(bStream);
             }
             XContentType contentType = formatContentType;
             if (contentType == null) {
@@ -291,11 +291,11 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
                 BytesStreamOutput bStream = new BytesStreamOutput();
                 XContentType contentType = XContentFactory.xContentType(source);
                 if (formatContentType != null && formatContentType != contentType) {
-                    XContentBuilder builder = XContentFactory.contentBuilder(formatContentType, CompressorFactory.defaultCompressor().streamOutput(bStream));
+                    XContentBuilder builder = XContentFactory.contentBuilder(formatContentType, CompressorFactory.sourceCompressor().streamOutput(bStream));
                     builder.copyCurrentStructure(XContentFactory.xContent(contentType).createParser(source));
                     builder.close();
                 } else {
-                    StreamOutput streamOutput = CompressorFactory.defaultCompressor().streamOutput(bStream);
+                    StreamOutput streamOutput = CompressorFactory.sourceCompressor().streamOutput(bStream);
                     source.writeTo(streamOutput);
                     streamOutput.close();
                 }
@@ -313,7 +313,7 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
                 if (contentType != formatContentType) {
                     // we need to reread and store back, compressed....
                     BytesStreamOutput bStream = new BytesStreamOutput();
-                    StreamOutput streamOutput = CompressorFactory.defaultCompressor().streamOutput(bStream);
+                    StreamOutput streamOutput = CompressorFactory.sourceCompressor().streamOutput(bStream);
                     XContentBuilder builder = XContentFactory.contentBuilder(formatContentType, streamOutput);
                     builder.copyCurrentStructure(XContentFactory.xContent(contentType).createParser(compressedStreamInput));
                     builder.close();
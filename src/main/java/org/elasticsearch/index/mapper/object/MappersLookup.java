@@ -0,0 +1,88 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper.object;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.CopyOnWriteHashMap;
+import org.elasticsearch.index.mapper.Mapper;
+
+import java.util.Map;
+
+/**
+ * A read only open addressing hash table that resolves the names of the fields of a document to the mappers of an
+ * {@link ObjectMapper} while parsing it. The field names returned by the parsers are canonicalized, so that a field
+ * name is usually the same string instance from one document to the next: keys are compared by reference first,
+ * which makes most lookups a single probe and a reference comparison.
+ * <p/>
+ * A lookup is built from a snapshot of the mappers of the object mapper, and is only valid as long as the mappers
+ * haven't changed, see {@link #isBuiltFrom(CopyOnWriteHashMap)}.
+ */
+final class MappersLookup {
+
+    private final CopyOnWriteHashMap<String, Mapper> mappers;
+    private final String[] keys;
+    private final Mapper[] values;
+    private final int mask;
+
+    MappersLookup(CopyOnWriteHashMap<String, Mapper> mappers) {
+        this.mappers = mappers;
+        // at most half full, so that probing always ends on an empty slot
+        int capacity = 2;
+        while (capacity < mappers.size() * 2) {
+            capacity <<= 1;
+        }
+        keys = new String[capacity];
+        values = new Mapper[capacity];
+        mask = capacity - 1;
+        for (Map.Entry<String, Mapper> entry : mappers.entrySet()) {
+            int slot = slot(entry.getKey());
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = entry.getKey();
+            values[slot] = entry.getValue();
+        }
+    }
+
+    /**
+     * Whether this lookup has been built from the given mappers, and can be used to resolve them.
+     */
+    boolean isBuiltFrom(CopyOnWriteHashMap<String, Mapper> mappers) {
+        return this.mappers == mappers;
+    }
+
+    @Nullable
+    Mapper get(String name) {
+        for (int slot = slot(name); ; slot = (slot + 1) & mask) {
+            final String key = keys[slot];
+            if (key == null) {
+                return null;
+            }
+            if (key == name || key.equals(name)) {
+                return values[slot];
+            }
+        }
+    }
+
+    private int slot(String name) {
+        final int hash = name.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -320,6 +320,9 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
 
     private volatile CopyOnWriteHashMap<String, Mapper> mappers;
 
+    private volatile MappersLookup mappersLookup;
+    private int mappersLookupMisses;
+
     private final Object mutex = new Object();
 
     ObjectMapper(String name, String fullPath, boolean enabled, Nested nested, Dynamic dynamic, ContentPath.Type pathType, Map<String, Mapper> mappers) {
@@ -419,6 +422,25 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         return this.fullPath;
     }
 
+    /**
+     * Resolves the mapper of a field while parsing a document. Once the mappers change, the lookup is rebuilt after it
+     * has been missed as many times as there are mappers, so that adding many fields dynamically doesn't rebuild it for
+     * every new field.
+     */
+    private Mapper getMapper(String name) {
+        CopyOnWriteHashMap<String, Mapper> mappers = this.mappers;
+        MappersLookup mappersLookup = this.mappersLookup;
+        if (name != null && mappersLookup != null && mappersLookup.isBuiltFrom(mappers)) {
+            return mappersLookup.get(name);
+        }
+        // racy on purpose, this is only a heuristic
+        if (++mappersLookupMisses >= mappers.size()) {
+            mappersLookupMisses = 0;
+            this.mappersLookup = new MappersLookup(mappers);
+        }
+        return mappers.get(name);
+    }
+
     public String nestedTypePathAsString() {
         return nestedTypePathAsString;
     }
@@ -530,7 +552,7 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
 
     private void serializeNullValue(ParseContext context, String lastFieldName) throws IOException {
         // we can only handle null values if we have mappings for them
-        Mapper mapper = mappers.get(lastFieldName);
+        Mapper mapper = getMapper(lastFieldName);
         if (mapper != null) {
             if (mapper instanceof FieldMapper) {
                 if (!((FieldMapper) mapper).supportsNullValue()) {
@@ -549,7 +571,7 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         }
         context.path().add(currentFieldName);
 
-        Mapper objectMapper = mappers.get(currentFieldName);
+        Mapper objectMapper = getMapper(currentFieldName);
         if (objectMapper != null) {
             objectMapper.parse(context);
         } else {
@@ -593,7 +615,7 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
 
     private void serializeArray(ParseContext context, String lastFieldName) throws IOException {
         String arrayFieldName = lastFieldName;
-        Mapper mapper = mappers.get(lastFieldName);
+        Mapper mapper = getMapper(lastFieldName);
         if (mapper != null) {
             // There is a concrete mapper for this field already. Need to check if the mapper 
             // expects an array, if so we pass the context straight to the mapper and if not 
@@ -701,7 +723,7 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         if (currentFieldName == null) {
             throw new MapperParsingException("object mapping [" + name + "] trying to serialize a value with no field associated with it, current value [" + context.parser().textOrNull() + "]");
         }
-        Mapper mapper = mappers.get(currentFieldName);
+        Mapper mapper = getMapper(currentFieldName);
         if (mapper != null) {
             mapper.parse(context);
         } else {
@@ -724,7 +746,7 @@ public class ObjectMapper implements Mapper, AllFieldMapper.IncludeInAll {
         // its not the end of the world, since we add it to the mappers once we create it
         // so next time we won't even get here for this field
         synchronized (mutex) {
-            Mapper mapper = mappers.get(currentFieldName);
+            Mapper mapper = getMapper(currentFieldName);
             if (mapper == null) {
                 BuilderContext builderContext = new BuilderContext(context.indexSettings(), context.path());
                 if (token == XContentParser.Token.VALUE_STRING) {
@@ -0,0 +1,194 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermFilter;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryWrapperFilter;
+import org.apache.lucene.search.TermQuery;
+import org.elasticsearch.common.lucene.search.XFilteredQuery;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Utility to extract the terms a document must contain (at least one of) in order to be able to match a percolator
+ * query. This allows the percolator to only verify the queries that share a term with the document that is being
+ * percolated.
+ */
+public final class ExtractQueryTermsService {
+
+    private ExtractQueryTermsService() {
+    }
+
+    /**
+     * Extracts the terms of the specified query. A document can only match the query if it contains at least one
+     * of the returned terms, an empty set means that the query can't match any document.
+     *
+     * @throws UnsupportedQueryException if the query (or one of its required clauses) can't be analyzed, in which
+     *                                   case the query always needs to be verified
+     */
+    public static Set<Term> extractQueryTerms(Query query) throws UnsupportedQueryException {
+        if (query instanceof TermQuery) {
+            return Collections.singleton(((TermQuery) query).getTerm());
+        } else if (query instanceof PhraseQuery) {
+            Term[] terms = ((PhraseQuery) query).getTerms();
+            if (terms.length == 0) {
+                return Collections.emptySet();
+            }
+            // all terms are required, the longest term is likely the most selective one
+            Term longestTerm = terms[0];
+            for (Term term : terms) {
+                if (longestTerm.bytes().length < term.bytes().length) {
+                    longestTerm = term;
+                }
+            }
+            return Collections.singleton(longestTerm);
+        } else if (query instanceof BooleanQuery) {
+            return extractBooleanQueryTerms((BooleanQuery) query);
+        } else if (query instanceof DisjunctionMaxQuery) {
+            Set<Term> terms = new HashSet<>();
+            for (Query disjunct : ((DisjunctionMaxQuery) query).getDisjuncts()) {
+                terms.addAll(extractQueryTerms(disjunct));
+            }
+            return terms;
+        } else if (query instanceof XFilteredQuery) {
+            return extractQueryTerms(((XFilteredQuery) query).getQuery());
+        } else if (query instanceof FilteredQuery) {
+            return extractQueryTerms(((FilteredQuery) query).getQuery());
+        } else if (query instanceof ConstantScoreQuery) {
+            ConstantScoreQuery constantScoreQuery = (ConstantScoreQuery) query;
+            if (constantScoreQuery.getQuery() != null) {
+                return extractQueryTerms(constantScoreQuery.getQuery());
+            } else {
+                return extractFilterTerms(constantScoreQuery.getFilter());
+            }
+        } else {
+            throw new UnsupportedQueryException(query);
+        }
+    }
+
+    private static Set<Term> extractBooleanQueryTerms(BooleanQuery query) throws UnsupportedQueryException {
+        Set<Term> bestRequiredTerms = null;
+        boolean hasRequiredClauses = false;
+        boolean hasOptionalClauses = false;
+        UnsupportedQueryException unsupportedQueryException = null;
+        Set<Term> optionalTerms = new HashSet<>();
+        for (BooleanClause clause : query.clauses()) {
+            if (clause.isProhibited()) {
+                continue;
+            }
+            if (clause.isRequired()) {
+                hasRequiredClauses = true;
+                try {
+                    Set<Term> terms = extractQueryTerms(clause.getQuery());
+                    bestRequiredTerms = selectMostSelective(bestRequiredTerms, terms);
+                } catch (UnsupportedQueryException e) {
+                    // another required clause may still be analyzable
+                    unsupportedQueryException = e;
+                }
+            } else {
+                hasOptionalClauses = true;
+                if (hasRequiredClauses == false && unsupportedQueryException == null) {
+                    try {
+                        optionalTerms.addAll(extractQueryTerms(clause.getQuery()));
+                    } catch (UnsupportedQueryException e) {
+                        unsupportedQueryException = e;
+                    }
+                }
+            }
+        }
+
+        if (hasRequiredClauses) {
+            if (bestRequiredTerms == null) {
+                throw unsupportedQueryException;
+            }
+            return bestRequiredTerms;
+        } else if (hasOptionalClauses) {
+            if (unsupportedQueryException != null) {
+                throw unsupportedQueryException;
+            }
+            return optionalTerms;
+        } else if (query.clauses().isEmpty()) {
+            return Collections.emptySet();
+        } else {
+            // only prohibited clauses
+            throw new UnsupportedQueryException(query);
+        }
+    }
+
+    private static Set<Term> extractFilterTerms(Filter filter) throws UnsupportedQueryException {
+        if (filter instanceof TermFilter) {
+            return Collections.singleton(((TermFilter) filter).getTerm());
+        } else if (filter instanceof QueryWrapperFilter) {
+            return extractQueryTerms(((QueryWrapperFilter) filter).getQuery());
+        } else {
+            throw new UnsupportedQueryException(new ConstantScoreQuery(filter));
+        }
+    }
+
+    /**
+     * Out of two sets of terms of required clauses, picks the one whose shortest term is the longest since longer
+     * terms tend to be more selective.
+     */
+    static Set<Term> selectMostSelective(Set<Term> terms1, Set<Term> terms2) {
+        if (terms1 == null) {
+            return terms2;
+        }
+        return minTermLength(terms2) > minTermLength(terms1) ? terms2 : terms1;
+    }
+
+    private static int minTermLength(Set<Term> terms) {
+        int min = Integer.MAX_VALUE;
+        for (Term term : terms) {
+            min = Math.min(min, term.bytes().length);
+        }
+        return min;
+    }
+
+    /**
+     * Exception indicating that the terms of a query can't be extracted.
+     */
+    public static class UnsupportedQueryException extends Exception {
+
+        private final Query unsupportedQuery;
+
+        public UnsupportedQueryException(Query unsupportedQuery) {
+            super(unsupportedQuery.getClass().getSimpleName());
+            this.unsupportedQuery = unsupportedQuery;
+        }
+
+        /**
+         * @return The query or a sub query that can't be analyzed
+         */
+        public Query getUnsupportedQuery() {
+            return unsupportedQuery;
+        }
+    }
+}
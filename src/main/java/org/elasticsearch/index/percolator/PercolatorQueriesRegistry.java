@@ -19,7 +19,12 @@
 
 package org.elasticsearch.index.percolator;
 
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.queries.TermFilter;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.BytesRef;
@@ -56,7 +61,9 @@ import org.elasticsearch.percolator.PercolatorService;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -70,6 +77,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class PercolatorQueriesRegistry extends AbstractIndexShardComponent implements Closeable{
 
     public final String MAP_UNMAPPED_FIELDS_AS_STRING = "index.percolator.map_unmapped_fields_as_string";
+    public final String PREFILTER_BY_TERMS = "index.percolator.prefilter_by_terms";
 
     // This is a shard level service, but these below are index level service:
     private final IndexQueryParserService queryParserService;
@@ -82,12 +90,18 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
     private final ShardPercolateService shardPercolateService;
 
     private final ConcurrentMap<BytesRef, Query> percolateQueries = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    // inverted index of the terms extracted from the percolate queries, see ExtractQueryTermsService
+    private final ConcurrentMap<Term, Set<BytesRef>> queriesByTerm = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    private final ConcurrentMap<BytesRef, Set<Term>> extractedTerms = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    // queries we couldn't extract terms from and always need to be verified
+    private final Set<BytesRef> unsupportedQueries = ConcurrentCollections.newConcurrentSet();
     private final ShardLifecycleListener shardLifecycleListener = new ShardLifecycleListener();
     private final RealTimePercolatorOperationListener realTimePercolatorOperationListener = new RealTimePercolatorOperationListener();
     private final PercolateTypeListener percolateTypeListener = new PercolateTypeListener();
     private final AtomicBoolean realTimePercolatorEnabled = new AtomicBoolean(false);
 
     private boolean mapUnmappedFieldsAsString;
+    private final boolean prefilterByTerms;
 
     private CloseableThreadLocal<QueryParseContext> cache = new CloseableThreadLocal<QueryParseContext>() {
         @Override
@@ -109,6 +123,7 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
         this.indexFieldDataService = indexFieldDataService;
         this.shardPercolateService = shardPercolateService;
         this.mapUnmappedFieldsAsString = indexSettings.getAsBoolean(MAP_UNMAPPED_FIELDS_AS_STRING, false);
+        this.prefilterByTerms = indexSettings.getAsBoolean(PREFILTER_BY_TERMS, true);
 
         indicesLifecycle.addListener(shardLifecycleListener);
         mapperService.addTypeListener(percolateTypeListener);
@@ -118,6 +133,11 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
         return percolateQueries;
     }
 
+    // for testing
+    Map<Term, Set<BytesRef>> queriesByTerm() {
+        return queriesByTerm;
+    }
+
     public void close() {
         mapperService.removeTypeListener(percolateTypeListener);
         indicesLifecycle.removeListener(shardLifecycleListener);
@@ -126,7 +146,135 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
     }
 
     public void clear() {
-        percolateQueries.clear();
+        synchronized (queriesByTerm) {
+            percolateQueries.clear();
+            queriesByTerm.clear();
+            extractedTerms.clear();
+            unsupportedQueries.clear();
+        }
+    }
+
+    /**
+     * Returns the percolate queries that may match the document(s) in the specified reader. These are the queries
+     * that share at least one extracted term with the document and the queries whose terms couldn't be extracted.
+     * The returned queries still need to be verified against the document.
+     */
+    public Map<BytesRef, Query> candidateQueries(IndexReader docReader) throws IOException {
+        if (prefilterByTerms == false || unsupportedQueries.size() == percolateQueries.size()) {
+            return percolateQueries;
+        }
+
+        Map<BytesRef, Query> candidates = new HashMap<>();
+        for (AtomicReaderContext leaf : docReader.leaves()) {
+            Fields fields = leaf.reader().fields();
+            if (fields == null) {
+                continue;
+            }
+            TermsEnum termsEnum = null;
+            for (String field : fields) {
+                Terms terms = fields.terms(field);
+                if (terms == null) {
+                    continue;
+                }
+                termsEnum = terms.iterator(termsEnum);
+                for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+                    Set<BytesRef> ids = queriesByTerm.get(new Term(field, term));
+                    if (ids != null) {
+                        addCandidates(ids, candidates);
+                    }
+                }
+            }
+        }
+        addCandidates(unsupportedQueries, candidates);
+        return candidates;
+    }
+
+    private void addCandidates(Set<BytesRef> ids, Map<BytesRef, Query> candidates) {
+        for (BytesRef id : ids) {
+            if (candidates.containsKey(id)) {
+                continue;
+            }
+            Query query = percolateQueries.get(id);
+            // the query may have been removed concurrently
+            if (query != null) {
+                candidates.put(id, query);
+            }
+        }
+    }
+
+    private void putQuery(BytesRef id, Query query) {
+        if (prefilterByTerms == false) {
+            Query previousQuery = percolateQueries.put(id, query);
+            shardPercolateService.addedQuery(id, previousQuery, query);
+            return;
+        }
+
+        Set<Term> terms;
+        try {
+            terms = ExtractQueryTermsService.extractQueryTerms(query);
+        } catch (ExtractQueryTermsService.UnsupportedQueryException e) {
+            logger.trace("can't extract terms from percolate query [{}], unsupported query [{}]", id.utf8ToString(), e.getMessage());
+            terms = null;
+        }
+        Query previousQuery;
+        synchronized (queriesByTerm) {
+            // the query must be reachable through its terms by the time it is published, and the previous
+            // query must stay reachable until then, so only the terms the new query doesn't use are removed
+            if (terms == null) {
+                unsupportedQueries.add(id);
+            } else {
+                for (Term term : terms) {
+                    Set<BytesRef> ids = queriesByTerm.get(term);
+                    if (ids == null) {
+                        ids = ConcurrentCollections.newConcurrentSet();
+                        queriesByTerm.put(term, ids);
+                    }
+                    ids.add(id);
+                }
+            }
+            previousQuery = percolateQueries.put(id, query);
+            Set<Term> previousTerms = terms == null ? extractedTerms.remove(id) : extractedTerms.put(id, terms);
+            if (terms != null) {
+                unsupportedQueries.remove(id);
+            }
+            if (previousTerms != null) {
+                for (Term term : previousTerms) {
+                    if (terms == null || terms.contains(term) == false) {
+                        removeQueryTerm(term, id);
+                    }
+                }
+            }
+        }
+        shardPercolateService.addedQuery(id, previousQuery, query);
+    }
+
+    private Query removeQuery(BytesRef id) {
+        if (prefilterByTerms == false) {
+            return percolateQueries.remove(id);
+        }
+        synchronized (queriesByTerm) {
+            Query query = percolateQueries.remove(id);
+            unsupportedQueries.remove(id);
+            Set<Term> terms = extractedTerms.remove(id);
+            if (terms != null) {
+                for (Term term : terms) {
+                    removeQueryTerm(term, id);
+                }
+            }
+            return query;
+        }
+    }
+
+    // updates of the inverted index are guarded by its monitor, so emptied id sets can be dropped safely
+    private void removeQueryTerm(Term term, BytesRef id) {
+        assert Thread.holdsLock(queriesByTerm);
+        Set<BytesRef> ids = queriesByTerm.get(term);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                queriesByTerm.remove(term);
+            }
+        }
     }
 
     void enableRealTimePercolator() {
@@ -143,14 +291,12 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
 
     public void addPercolateQuery(String idAsString, BytesReference source) {
         Query newquery = parsePercolatorDocument(idAsString, source);
-        BytesRef id = new BytesRef(idAsString);
-        Query previousQuery = percolateQueries.put(id, newquery);
-        shardPercolateService.addedQuery(id, previousQuery, newquery);
+        putQuery(new BytesRef(idAsString), newquery);
     }
 
     public void removePercolateQuery(String idAsString) {
         BytesRef id = new BytesRef(idAsString);
-        Query query = percolateQueries.remove(id);
+        Query query = removeQuery(id);
         if (query != null) {
             shardPercolateService.removedQuery(id, query);
         }
@@ -287,8 +433,7 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
                 searcher.searcher().search(query, queryCollector);
                 Map<BytesRef, Query> queries = queryCollector.queries();
                 for (Map.Entry<BytesRef, Query> entry : queries.entrySet()) {
-                    Query previousQuery = percolateQueries.put(entry.getKey(), entry.getValue());
-                    shardPercolateService.addedQuery(entry.getKey(), previousQuery, entry.getValue());
+                    putQuery(entry.getKey(), entry.getValue());
                 }
                 return queries.size();
             } catch (Exception e) {
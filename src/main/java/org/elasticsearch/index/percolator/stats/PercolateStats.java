@@ -40,6 +40,8 @@ public class PercolateStats implements Streamable, ToXContent {
     private long current;
     private long memorySizeInBytes = -1;
     private long numQueries;
+    private long verifiedQueries;
+    private long matchedQueries;
 
     /**
      * Noop constructor for serialazation purposes.
@@ -47,12 +49,15 @@ public class PercolateStats implements Streamable, ToXContent {
     public PercolateStats() {
     }
 
-    PercolateStats(long percolateCount, long percolateTimeInMillis, long current, long memorySizeInBytes, long numQueries) {
+    PercolateStats(long percolateCount, long percolateTimeInMillis, long current, long memorySizeInBytes, long numQueries,
+                   long verifiedQueries, long matchedQueries) {
         this.percolateCount = percolateCount;
         this.percolateTimeInMillis = percolateTimeInMillis;
         this.current = current;
         this.memorySizeInBytes = memorySizeInBytes;
         this.numQueries = numQueries;
+        this.verifiedQueries = verifiedQueries;
+        this.matchedQueries = matchedQueries;
     }
 
     /**
@@ -90,6 +95,21 @@ public class PercolateStats implements Streamable, ToXContent {
         return numQueries;
     }
 
+    /**
+     * @return The total number of percolate queries that have been verified against percolated documents, after
+     * the queries that don't share any term with the documents have been filtered out.
+     */
+    public long getVerifiedQueries() {
+        return verifiedQueries;
+    }
+
+    /**
+     * @return The total number of percolate queries that matched percolated documents.
+     */
+    public long getMatchedQueries() {
+        return matchedQueries;
+    }
+
     /**
      * @return Temporarily returns <code>-1</code>, but this used to return the total size the loaded queries take in
      * memory, but this is disabled now because the size estimation was too expensive cpu wise. This will be enabled
@@ -115,6 +135,8 @@ public class PercolateStats implements Streamable, ToXContent {
         builder.field(Fields.MEMORY_SIZE_IN_BYTES, memorySizeInBytes);
         builder.field(Fields.MEMORY_SIZE, getMemorySize());
         builder.field(Fields.QUERIES, getNumQueries());
+        builder.field(Fields.VERIFIED_QUERIES, verifiedQueries);
+        builder.field(Fields.MATCHED_QUERIES, matchedQueries);
         builder.endObject();
         return builder;
     }
@@ -128,6 +150,8 @@ public class PercolateStats implements Streamable, ToXContent {
         percolateTimeInMillis += percolate.getTimeInMillis();
         current += percolate.getCurrent();
         numQueries += percolate.getNumQueries();
+        verifiedQueries += percolate.getVerifiedQueries();
+        matchedQueries += percolate.getMatchedQueries();
     }
 
     static final class Fields {
@@ -139,6 +163,8 @@ public class PercolateStats implements Streamable, ToXContent {
         static final XContentBuilderString MEMORY_SIZE_IN_BYTES = new XContentBuilderString("memory_size_in_bytes");
         static final XContentBuilderString MEMORY_SIZE = new XContentBuilderString("memory_size");
         static final XContentBuilderString QUERIES = new XContentBuilderString("queries");
+        static final XContentBuilderString VERIFIED_QUERIES = new XContentBuilderString("verified_queries");
+        static final XContentBuilderString MATCHED_QUERIES = new XContentBuilderString("matched_queries");
     }
 
     public static PercolateStats readPercolateStats(StreamInput in) throws IOException {
@@ -158,6 +184,10 @@ public class PercolateStats implements Streamable, ToXContent {
             in.readLong();
         }
         numQueries = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_1_5_0)) {
+            verifiedQueries = in.readVLong();
+            matchedQueries = in.readVLong();
+        }
     }
 
     @Override
@@ -171,5 +201,9 @@ public class PercolateStats implements Streamable, ToXContent {
             out.writeLong(-1);
         }
         out.writeVLong(numQueries);
+        if (out.getVersion().onOrAfter(Version.V_1_5_0)) {
+            out.writeVLong(verifiedQueries);
+            out.writeVLong(matchedQueries);
+        }
     }
 }
@@ -37,6 +37,7 @@ import java.util.concurrent.TimeUnit;
  *     <li> total time spent in percolate api
  *     <li> the current number of percolate requests
  *     <li> number of registered percolate queries
+ *     <li> number of candidate queries verified against documents and how many of them matched
  * </ul>
  */
 public class ShardPercolateService extends AbstractIndexShardComponent {
@@ -50,6 +51,8 @@ public class ShardPercolateService extends AbstractIndexShardComponent {
     private final CounterMetric currentMetric = new CounterMetric();
 
     private final CounterMetric numberOfQueries = new CounterMetric();
+    private final CounterMetric verifiedQueries = new CounterMetric();
+    private final CounterMetric matchedQueries = new CounterMetric();
 
     public void prePercolate() {
         currentMetric.inc();
@@ -60,6 +63,11 @@ public class ShardPercolateService extends AbstractIndexShardComponent {
         percolateMetric.inc(tookInNanos);
     }
 
+    public void verifiedQueries(long verified, long matched) {
+        verifiedQueries.inc(verified);
+        matchedQueries.inc(matched);
+    }
+
     public void addedQuery(BytesRef id, Query previousQuery, Query newQuery) {
         numberOfQueries.inc();
     }
@@ -72,7 +80,8 @@ public class ShardPercolateService extends AbstractIndexShardComponent {
      * @return The current metrics
      */
     public PercolateStats stats() {
-        return new PercolateStats(percolateMetric.count(), TimeUnit.NANOSECONDS.toMillis(percolateMetric.sum()), currentMetric.count(), -1, numberOfQueries.count());
+        return new PercolateStats(percolateMetric.count(), TimeUnit.NANOSECONDS.toMillis(percolateMetric.sum()), currentMetric.count(), -1, numberOfQueries.count(),
+                verifiedQueries.count(), matchedQueries.count());
     }
 
     // Enable when a more efficient manner is found for estimating the size of a Lucene query.
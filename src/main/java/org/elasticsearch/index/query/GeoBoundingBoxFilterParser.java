@@ -180,7 +180,8 @@ public class GeoBoundingBoxFilterParser implements FilterParser {
 
         Filter filter;
         if ("indexed".equals(type)) {
-            filter = IndexedGeoBoundingBoxFilter.create(topLeft, bottomRight, geoMapper);
+            IndexGeoPointFieldData indexFieldData = parseContext.getForField(mapper);
+            filter = IndexedGeoBoundingBoxFilter.create(topLeft, bottomRight, geoMapper, indexFieldData);
         } else if ("memory".equals(type)) {
             IndexGeoPointFieldData indexFieldData = parseContext.getForField(mapper);
             filter = new InMemoryGeoBoundingBoxFilter(topLeft, bottomRight, indexFieldData);
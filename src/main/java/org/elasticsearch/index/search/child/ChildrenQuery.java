@@ -212,6 +212,7 @@ public class ChildrenQuery extends Query {
             if (numFoundParents == 0) {
                 return Queries.newMatchNoDocsQuery().createWeight(searcher);
             }
+            collector.buildLookup();
             abort = false;
         } finally {
             if (abort) {
@@ -328,6 +329,8 @@ public class ChildrenQuery extends Query {
 
         protected SortedDocValues values;
         protected Scorer scorer;
+        protected long valueCount;
+        protected ParentIdxLookup lookup;
 
         protected ParentCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
             this.globalIfd = globalIfd;
@@ -363,9 +366,19 @@ public class ChildrenQuery extends Query {
             return parentIdxs.size();
         }
 
+        /**
+         * Prepares the lookups of the collected parents by global ordinal, once all children have been collected.
+         */
+        public void buildLookup() {
+            lookup = new ParentIdxLookup(parentIdxs, valueCount, bigArrays);
+        }
+
         @Override
         public void setNextReader(AtomicReaderContext context) throws IOException {
             values = globalIfd.load(context).getOrdinalsValues(parentType);
+            if (values != null) {
+                valueCount = values.getValueCount();
+            }
         }
 
         @Override
@@ -375,7 +388,7 @@ public class ChildrenQuery extends Query {
 
         @Override
         public void close() throws ElasticsearchException {
-            Releasables.close(parentIdxs);
+            Releasables.close(parentIdxs, lookup);
         }
     }
 
@@ -395,7 +408,7 @@ public class ChildrenQuery extends Query {
 
         @Override
         public void close() throws ElasticsearchException {
-            Releasables.close(parentIdxs, scores);
+            Releasables.close(parentIdxs, lookup, scores);
         }
     }
 
@@ -417,7 +430,7 @@ public class ChildrenQuery extends Query {
 
         @Override
         public void close() throws ElasticsearchException {
-            Releasables.close(parentIdxs, scores, occurrences);
+            Releasables.close(parentIdxs, lookup, scores, occurrences);
         }
     }
 
@@ -443,7 +456,7 @@ public class ChildrenQuery extends Query {
 
         @Override
         public void close() throws ElasticsearchException {
-            Releasables.close(parentIdxs, occurrences);
+            Releasables.close(parentIdxs, lookup, occurrences);
         }
     }
 
@@ -537,7 +550,7 @@ public class ChildrenQuery extends Query {
     private static class ParentScorer extends Scorer {
 
         final ParentWeight parentWeight;
-        final LongHash parentIds;
+        final ParentIdxLookup parentIds;
         final FloatArray scores;
 
         final SortedDocValues globalOrdinals;
@@ -551,7 +564,7 @@ public class ChildrenQuery extends Query {
             this.parentWeight = parentWeight;
             this.globalOrdinals = globalOrdinals;
             this.parentsIterator = parentsIterator;
-            this.parentIds = collector.parentIdxs;
+            this.parentIds = collector.lookup;
             this.scores = ((ParentScoreCollector) collector).scores;
         }
 
@@ -693,7 +706,7 @@ public class ChildrenQuery extends Query {
 
     private final static class CountParentOrdIterator extends FilteredDocIdSetIterator {
 
-        private final LongHash parentIds;
+        private final ParentIdxLookup parentIds;
         protected final IntArray occurrences;
         private final int minChildren;
         private final int maxChildren;
@@ -702,7 +715,7 @@ public class ChildrenQuery extends Query {
 
         private CountParentOrdIterator(ParentWeight parentWeight, DocIdSetIterator innerIterator, ParentCollector collector, SortedDocValues ordinals, int minChildren, int maxChildren) {
             super(innerIterator);
-            this.parentIds = ((CountCollector) collector).parentIdxs;
+            this.parentIds = collector.lookup;
             this.occurrences = ((CountCollector) collector).occurrences;
             this.ordinals = ordinals;
             this.parentWeight = parentWeight;
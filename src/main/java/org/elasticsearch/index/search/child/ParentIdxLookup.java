@@ -0,0 +1,77 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search.child;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongHash;
+
+/**
+ * Resolves the global ordinal of a parent to the index its scores and counts have been collected under during the
+ * first phase of a parent/child query. If the collected parents cover a large share of the global ordinals, the
+ * mapping is copied into an array indexed by global ordinal, so that the second phase, which runs a lookup per
+ * parent or child document, doesn't need to probe the hash table.
+ */
+final class ParentIdxLookup implements Releasable {
+
+    // A dense lookup takes 4 bytes per global ordinal, while a hash entry takes more than 16 bytes taking the load
+    // factor into account, so the dense lookup is at most as large as the hash table when this ratio is met.
+    private static final long DENSE_RATIO = 4;
+
+    private final LongHash parentIdxs;
+    // global ordinal -> parent idx + 1, 0 means the parent wasn't collected
+    private final IntArray denseParentIdxs;
+
+    ParentIdxLookup(LongHash parentIdxs, long valueCount, BigArrays bigArrays) {
+        this.parentIdxs = parentIdxs;
+        final long size = parentIdxs.size();
+        if (valueCount > 0 && size * DENSE_RATIO >= valueCount) {
+            denseParentIdxs = bigArrays.newIntArray(valueCount, true);
+            for (long parentIdx = 0; parentIdx < size; parentIdx++) {
+                denseParentIdxs.set(parentIdxs.get(parentIdx), (int) (parentIdx + 1));
+            }
+        } else {
+            denseParentIdxs = null;
+        }
+    }
+
+    /**
+     * @return the index of the parent with the given global ordinal, or <tt>-1</tt> if it hasn't been collected
+     */
+    long find(long globalOrdinal) {
+        if (denseParentIdxs != null) {
+            return denseParentIdxs.get(globalOrdinal) - 1;
+        } else {
+            return parentIdxs.find(globalOrdinal);
+        }
+    }
+
+    boolean isDense() {
+        return denseParentIdxs != null;
+    }
+
+    @Override
+    public void close() throws ElasticsearchException {
+        Releasables.close(denseParentIdxs);
+    }
+}
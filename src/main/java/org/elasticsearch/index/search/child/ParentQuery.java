@@ -145,6 +145,7 @@ public class ParentQuery extends Query {
             if (collector.parentCount() == 0) {
                 return Queries.newMatchNoDocsQuery().createWeight(searcher);
             }
+            collector.buildLookup();
             childWeight = new ChildWeight(parentQuery.createWeight(searcher), childrenFilter, collector, globalIfd);
             releaseCollectorResource = false;
         } finally {
@@ -161,6 +162,8 @@ public class ParentQuery extends Query {
 
         private final LongHash parentIdxs;
         private FloatArray scores;
+        private ParentIdxLookup lookup;
+        private long valueCount;
         private final IndexParentChildFieldData globalIfd;
         private final BigArrays bigArrays;
         private final String parentType;
@@ -201,31 +204,41 @@ public class ParentQuery extends Query {
         @Override
         public void setNextReader(AtomicReaderContext context) throws IOException {
             values = globalIfd.load(context).getOrdinalsValues(parentType);
+            if (values != null) {
+                valueCount = values.getValueCount();
+            }
         }
 
         @Override
         public void close() throws ElasticsearchException {
-            Releasables.close(parentIdxs, scores);
+            Releasables.close(parentIdxs, lookup, scores);
         }
 
         public long parentCount() {
             return parentIdxs.size();
         }
 
+        /**
+         * Prepares the lookups of the collected parents by global ordinal, once all parents have been collected.
+         */
+        public void buildLookup() {
+            lookup = new ParentIdxLookup(parentIdxs, valueCount, bigArrays);
+        }
+
     }
 
     private class ChildWeight extends Weight {
 
         private final Weight parentWeight;
         private final Filter childrenFilter;
-        private final LongHash parentIdxs;
+        private final ParentIdxLookup parentIdxs;
         private final FloatArray scores;
         private final IndexParentChildFieldData globalIfd;
 
         private ChildWeight(Weight parentWeight, Filter childrenFilter, ParentOrdAndScoreCollector collector, IndexParentChildFieldData globalIfd) {
             this.parentWeight = parentWeight;
             this.childrenFilter = new ApplyAcceptedDocsFilter(childrenFilter);
-            this.parentIdxs = collector.parentIdxs;
+            this.parentIdxs = collector.lookup;
             this.scores = collector.scores;
             this.globalIfd = globalIfd;
         }
@@ -269,7 +282,7 @@ public class ParentQuery extends Query {
 
     private static class ChildScorer extends Scorer {
 
-        private final LongHash parentIdxs;
+        private final ParentIdxLookup parentIdxs;
         private final FloatArray scores;
         private final DocIdSetIterator childrenIterator;
         private final SortedDocValues ordinals;
@@ -277,7 +290,7 @@ public class ParentQuery extends Query {
         private int currentChildDoc = -1;
         private float currentScore;
 
-        ChildScorer(Weight weight, LongHash parentIdxs, FloatArray scores, DocIdSetIterator childrenIterator, SortedDocValues ordinals) {
+        ChildScorer(Weight weight, ParentIdxLookup parentIdxs, FloatArray scores, DocIdSetIterator childrenIterator, SortedDocValues ordinals) {
             super(weight);
             this.parentIdxs = parentIdxs;
             this.scores = scores;
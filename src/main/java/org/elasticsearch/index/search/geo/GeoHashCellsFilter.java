@@ -0,0 +1,267 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search.geo;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.StringHelper;
+import org.elasticsearch.common.geo.GeoHashUtils;
+import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.index.fielddata.IndexGeoPointFieldData;
+import org.elasticsearch.index.fielddata.MultiGeoPointValues;
+import org.elasticsearch.index.mapper.geo.GeoPointFieldMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounding box filter that runs on the indexed geohashes of a geo point field. The bounding box is covered by
+ * geohash cells of the finest level that keeps the number of cells under {@link #MAX_CELLS}. Documents with a
+ * geohash in a cell that is fully inside the bounding box match without looking at their points, only the
+ * documents of the cells crossing the edges of the bounding box are verified against field data.
+ */
+public class GeoHashCellsFilter extends Filter {
+
+    static final int MAX_CELLS = 1024;
+
+    private final GeoPoint topLeft;
+    private final GeoPoint bottomRight;
+    private final String geoHashFieldName;
+    private final boolean prefixesIndexed;
+    private final IndexGeoPointFieldData indexFieldData;
+
+    private final BytesRef[] innerCells;
+    private final BytesRef[] edgeCells;
+
+    public GeoHashCellsFilter(GeoPoint topLeft, GeoPoint bottomRight, GeoPointFieldMapper fieldMapper, IndexGeoPointFieldData indexFieldData) {
+        this.topLeft = topLeft;
+        this.bottomRight = bottomRight;
+        this.geoHashFieldName = fieldMapper.geoHashStringMapper().names().indexName();
+        this.prefixesIndexed = fieldMapper.isEnableGeohashPrefix();
+        this.indexFieldData = indexFieldData;
+
+        int maxLevel = Math.min(fieldMapper.geoHashPrecision(), GeoHashUtils.PRECISION);
+        int level = 1;
+        while (level < maxLevel && countCells(level + 1) <= MAX_CELLS) {
+            level++;
+        }
+        List<BytesRef> innerCells = new ArrayList<>();
+        List<BytesRef> edgeCells = new ArrayList<>();
+        collectCells(level, innerCells, edgeCells);
+        this.innerCells = innerCells.toArray(new BytesRef[innerCells.size()]);
+        this.edgeCells = edgeCells.toArray(new BytesRef[edgeCells.size()]);
+    }
+
+    public GeoPoint topLeft() {
+        return topLeft;
+    }
+
+    public GeoPoint bottomRight() {
+        return bottomRight;
+    }
+
+    public String fieldName() {
+        return indexFieldData.getFieldNames().indexName();
+    }
+
+    @Override
+    public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptedDocs) throws IOException {
+        Terms terms = context.reader().terms(geoHashFieldName);
+        if (terms == null) {
+            return null;
+        }
+        final int maxDoc = context.reader().maxDoc();
+        TermsEnum termsEnum = terms.iterator(null);
+        FixedBitSet result = collect(termsEnum, innerCells, acceptedDocs, maxDoc);
+        FixedBitSet edgeDocs = collect(termsEnum, edgeCells, acceptedDocs, maxDoc);
+        if (edgeDocs == null) {
+            return result;
+        }
+
+        final MultiGeoPointValues values = indexFieldData.load(context).getGeoPointValues();
+        DocIdSetIterator iterator = edgeDocs.iterator();
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            if (result != null && result.get(doc)) {
+                continue;
+            }
+            values.setDocument(doc);
+            final int length = values.count();
+            for (int i = 0; i < length; i++) {
+                GeoPoint point = values.valueAt(i);
+                if (contains(point.lat(), point.lon())) {
+                    if (result == null) {
+                        result = new FixedBitSet(maxDoc);
+                    }
+                    result.set(doc);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private FixedBitSet collect(TermsEnum termsEnum, BytesRef[] cells, Bits acceptedDocs, int maxDoc) throws IOException {
+        FixedBitSet docs = null;
+        DocsEnum docsEnum = null;
+        for (BytesRef cell : cells) {
+            if (prefixesIndexed) {
+                // every prefix of the geohash is indexed, so the cell itself is a term
+                if (termsEnum.seekExact(cell)) {
+                    docsEnum = termsEnum.docs(acceptedDocs, docsEnum, DocsEnum.FLAG_NONE);
+                    docs = collect(docsEnum, docs, maxDoc);
+                }
+            } else if (termsEnum.seekCeil(cell) != TermsEnum.SeekStatus.END) {
+                for (BytesRef term = termsEnum.term(); term != null && StringHelper.startsWith(term, cell); term = termsEnum.next()) {
+                    docsEnum = termsEnum.docs(acceptedDocs, docsEnum, DocsEnum.FLAG_NONE);
+                    docs = collect(docsEnum, docs, maxDoc);
+                }
+            }
+        }
+        return docs;
+    }
+
+    private static FixedBitSet collect(DocsEnum docsEnum, FixedBitSet docs, int maxDoc) throws IOException {
+        for (int doc = docsEnum.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docsEnum.nextDoc()) {
+            if (docs == null) {
+                docs = new FixedBitSet(maxDoc);
+            }
+            docs.set(doc);
+        }
+        return docs;
+    }
+
+    private boolean crossesDateline() {
+        return topLeft.lon() > bottomRight.lon();
+    }
+
+    private boolean contains(double lat, double lon) {
+        if (lat > topLeft.lat() || lat < bottomRight.lat()) {
+            return false;
+        }
+        if (crossesDateline()) {
+            return topLeft.lon() <= lon || bottomRight.lon() >= lon;
+        } else {
+            return topLeft.lon() <= lon && bottomRight.lon() >= lon;
+        }
+    }
+
+    private long countCells(int level) {
+        final double cellHeight = 180d / (1L << latBits(level));
+        final double cellWidth = 360d / (1L << lonBits(level));
+        long[] latRange = latIndex(bottomRight.lat(), topLeft.lat(), cellHeight, level);
+        long lats = latRange[1] - latRange[0] + 1;
+        long lons = 0;
+        for (double[] lonRange : lonRanges()) {
+            long[] range = lonIndex(lonRange[0], lonRange[1], cellWidth, level);
+            lons += range[1] - range[0] + 1;
+        }
+        return lats * lons;
+    }
+
+    private void collectCells(int level, List<BytesRef> innerCells, List<BytesRef> edgeCells) {
+        final double cellHeight = 180d / (1L << latBits(level));
+        final double cellWidth = 360d / (1L << lonBits(level));
+        long[] lats = latIndex(bottomRight.lat(), topLeft.lat(), cellHeight, level);
+        for (double[] lonRange : lonRanges()) {
+            long[] lons = lonIndex(lonRange[0], lonRange[1], cellWidth, level);
+            for (long latIdx = lats[0]; latIdx <= lats[1]; latIdx++) {
+                final double minLat = -90d + latIdx * cellHeight;
+                final double maxLat = minLat + cellHeight;
+                for (long lonIdx = lons[0]; lonIdx <= lons[1]; lonIdx++) {
+                    final double minLon = -180d + lonIdx * cellWidth;
+                    final double maxLon = minLon + cellWidth;
+                    BytesRef cell = new BytesRef(GeoHashUtils.encode((minLat + maxLat) / 2, (minLon + maxLon) / 2, level));
+                    if (minLat >= bottomRight.lat() && maxLat <= topLeft.lat() && minLon >= lonRange[0] && maxLon <= lonRange[1]) {
+                        innerCells.add(cell);
+                    } else {
+                        edgeCells.add(cell);
+                    }
+                }
+            }
+        }
+    }
+
+    private double[][] lonRanges() {
+        if (crossesDateline()) {
+            return new double[][]{{topLeft.lon(), 180d}, {-180d, bottomRight.lon()}};
+        } else {
+            return new double[][]{{topLeft.lon(), bottomRight.lon()}};
+        }
+    }
+
+    private static long[] latIndex(double minLat, double maxLat, double cellHeight, int level) {
+        final long max = (1L << latBits(level)) - 1;
+        return new long[]{cellIndex(minLat + 90d, cellHeight, max), cellIndex(maxLat + 90d, cellHeight, max)};
+    }
+
+    private static long[] lonIndex(double minLon, double maxLon, double cellWidth, int level) {
+        final long max = (1L << lonBits(level)) - 1;
+        return new long[]{cellIndex(minLon + 180d, cellWidth, max), cellIndex(maxLon + 180d, cellWidth, max)};
+    }
+
+    private static long cellIndex(double offset, double cellSize, long max) {
+        return Math.max(0, Math.min(max, (long) Math.floor(offset / cellSize)));
+    }
+
+    // geohashes interleave 5 bits per character, starting with a longitude bit
+    private static int lonBits(int level) {
+        return (5 * level + 1) / 2;
+    }
+
+    private static int latBits(int level) {
+        return 5 * level / 2;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        GeoHashCellsFilter that = (GeoHashCellsFilter) o;
+
+        if (!topLeft.equals(that.topLeft)) return false;
+        if (!bottomRight.equals(that.bottomRight)) return false;
+        if (!geoHashFieldName.equals(that.geoHashFieldName)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = topLeft.hashCode();
+        result = 31 * result + bottomRight.hashCode();
+        result = 31 * result + geoHashFieldName.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "GeoHashCellsFilter(" + geoHashFieldName + ", " + topLeft + ", " + bottomRight + ")";
+    }
+}
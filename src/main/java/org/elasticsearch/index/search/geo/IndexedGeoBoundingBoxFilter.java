@@ -24,15 +24,20 @@ import org.apache.lucene.search.Filter;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.common.geo.GeoPoint;
 import org.elasticsearch.common.lucene.search.XBooleanFilter;
+import org.elasticsearch.index.fielddata.IndexGeoPointFieldData;
 import org.elasticsearch.index.mapper.geo.GeoPointFieldMapper;
 
 /**
  */
 public class IndexedGeoBoundingBoxFilter {
 
-    public static Filter create(GeoPoint topLeft, GeoPoint bottomRight, GeoPointFieldMapper fieldMapper) {
+    public static Filter create(GeoPoint topLeft, GeoPoint bottomRight, GeoPointFieldMapper fieldMapper, IndexGeoPointFieldData indexFieldData) {
         if (!fieldMapper.isEnableLatLon()) {
-            throw new ElasticsearchIllegalArgumentException("lat/lon is not enabled (indexed) for field [" + fieldMapper.name() + "], can't use indexed filter on it");
+            if (fieldMapper.geoHashStringMapper() != null) {
+                // no indexed lat/lon, but the geohashes are indexed, run on geohash cells instead
+                return new GeoHashCellsFilter(topLeft, bottomRight, fieldMapper, indexFieldData);
+            }
+            throw new ElasticsearchIllegalArgumentException("neither lat/lon nor geohash is enabled (indexed) for field [" + fieldMapper.name() + "], can't use indexed filter on it");
         }
         //checks to see if bounding box crosses 180 degrees
         if (topLeft.lon() > bottomRight.lon()) {
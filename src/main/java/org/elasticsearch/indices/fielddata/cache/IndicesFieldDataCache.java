@@ -37,6 +37,7 @@ import org.elasticsearch.index.fielddata.AtomicFieldData;
 import org.elasticsearch.index.fielddata.FieldDataType;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.ShardId;
@@ -126,6 +127,9 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
                 logger.error("Failed to call listener on field data cache unloading", e);
             }
         }
+        if (value instanceof GlobalOrdinalsIndexFieldData) {
+            ((GlobalOrdinalsIndexFieldData) value).close();
+        }
     }
 
     public static class FieldDataWeigher implements Weigher<Key, Accountable> {
@@ -51,6 +51,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
@@ -449,10 +450,20 @@ public class RecoveryTarget extends AbstractComponent {
                     recoverySettings.rateLimiter().pause(request.content().length());
                 }
                 BytesReference content = request.content();
-                if (!content.hasArray()) {
-                    content = content.toBytesArray();
+                if (content.hasArray()) {
+                    indexOutput.writeBytes(content.array(), content.arrayOffset(), content.length());
+                } else {
+                    // the chunk spans several network buffers, write them one by one instead of copying them together
+                    for (ByteBuffer buffer : content.toChannelBuffer().toByteBuffers()) {
+                        if (buffer.hasArray()) {
+                            indexOutput.writeBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                        } else {
+                            byte[] bytes = new byte[buffer.remaining()];
+                            buffer.get(bytes);
+                            indexOutput.writeBytes(bytes, bytes.length);
+                        }
+                    }
                 }
-                indexOutput.writeBytes(content.array(), content.arrayOffset(), content.length());
                 recoveryStatus.state().getIndex().addRecoveredBytesToFile(request.name(), content.length());
                 if (indexOutput.getFilePointer() >= request.length() || request.lastChunk()) {
                     try {
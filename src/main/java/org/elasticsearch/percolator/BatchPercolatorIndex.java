@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.percolator;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.IndexSearcher;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.index.mapper.ParsedDocument;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Holds the documents of several percolate requests in a single top level reader, by wrapping one
+ * {@link MemoryIndex} based reader per document. This allows to execute each percolate query once for the
+ * whole batch instead of once per document. The document at position <tt>i</tt> gets doc id <tt>i</tt>.
+ */
+class BatchPercolatorIndex implements Releasable {
+
+    private final MultiReader reader;
+    private final IndexSearcher searcher;
+
+    BatchPercolatorIndex(List<ParsedDocument> parsedDocuments) {
+        IndexReader[] memoryIndices = new IndexReader[parsedDocuments.size()];
+        for (int i = 0; i < parsedDocuments.size(); i++) {
+            ParsedDocument parsedDocument = parsedDocuments.get(i);
+            MemoryIndex memoryIndex = MultiDocumentPercolatorIndex.indexDoc(parsedDocument.rootDoc(), parsedDocument.analyzer(), new MemoryIndex(true));
+            memoryIndices[i] = memoryIndex.createSearcher().getIndexReader();
+        }
+        reader = new MultiReader(memoryIndices, true);
+        searcher = new IndexSearcher(reader);
+    }
+
+    IndexReader reader() {
+        return reader;
+    }
+
+    IndexSearcher searcher() {
+        return searcher;
+    }
+
+    @Override
+    public void close() throws ElasticsearchException {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new ElasticsearchException("failed to close IndexReader in batch percolator", e);
+        }
+    }
+}
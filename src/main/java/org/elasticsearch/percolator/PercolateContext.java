@@ -83,6 +83,8 @@ public class PercolateContext extends SearchContext {
     private int size;
     public boolean doSort;
     public byte percolatorTypeId;
+    // the number of percolate queries that have been executed against the document
+    public long verifiedQueries;
     private boolean trackScores;
 
     private final SearchShardTarget searchShardTarget;
@@ -94,6 +96,7 @@ public class PercolateContext extends SearchContext {
     private final BigArrays bigArrays;
     private final ScriptService scriptService;
     private final ConcurrentMap<BytesRef, Query> percolateQueries;
+    private Map<BytesRef, Query> candidateQueries;
     private final int numberOfShards;
     private String[] types;
 
@@ -167,6 +170,17 @@ public class PercolateContext extends SearchContext {
         return percolateQueries;
     }
 
+    /**
+     * @return The percolate queries that need to be verified against the document, defaults to all percolate queries.
+     */
+    public Map<BytesRef, Query> candidateQueries() {
+        return candidateQueries != null ? candidateQueries : percolateQueries;
+    }
+
+    public void candidateQueries(Map<BytesRef, Query> candidateQueries) {
+        this.candidateQueries = candidateQueries;
+    }
+
     public Query percolateQuery() {
         return percolateQuery;
     }
@@ -534,6 +548,26 @@ public class PercolateContext extends SearchContext {
         return trackScores;
     }
 
+    @Override
+    public SearchContext searchAfter(Object[] searchAfter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object[] searchAfter() {
+        return null;
+    }
+
+    @Override
+    public SearchContext sliceFilter(Filter sliceFilter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Filter sliceFilter() {
+        return null;
+    }
+
     @Override
     public SearchContext parsedPostFilter(ParsedFilter postFilter) {
         throw new UnsupportedOperationException();
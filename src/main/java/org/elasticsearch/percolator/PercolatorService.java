@@ -28,6 +28,7 @@ import org.apache.lucene.index.memory.MemoryIndex;
 import org.apache.lucene.search.*;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CloseableThreadLocal;
+import org.apache.lucene.util.FixedBitSet;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.ElasticsearchParseException;
@@ -38,6 +39,7 @@ import org.elasticsearch.cache.recycler.CacheRecycler;
 import org.elasticsearch.cache.recycler.PageCacheRecycler;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.action.index.MappingUpdatedAction;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
@@ -72,6 +74,7 @@ import org.elasticsearch.index.percolator.stats.ShardPercolateService;
 import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.search.nested.NonNestedDocsFilter;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.percolator.QueryCollector.*;
 import org.elasticsearch.script.ScriptService;
@@ -176,68 +179,278 @@ public class PercolatorService extends AbstractComponent {
         shardPercolateService.prePercolate();
         long startTime = System.nanoTime();
 
-        SearchShardTarget searchShardTarget = new SearchShardTarget(clusterService.localNode().id(), request.shardId().getIndex(), request.shardId().id());
-        final PercolateContext context = new PercolateContext(
-                request, searchShardTarget, indexShard, percolateIndexService, cacheRecycler, pageCacheRecycler, bigArrays, scriptService
-        );
+        final PercolateContext context = createContext(request, percolateIndexService, indexShard);
         try {
-            ParsedDocument parsedDocument = parseRequest(percolateIndexService, request, context);
-            if (context.percolateQueries().isEmpty()) {
+            ParsedDocument parsedDocument = parseDocument(percolateIndexService, request, context);
+            if (parsedDocument == null) {
                 return new PercolateShardResponse(context, request.shardId());
             }
+            return percolate(request, context, parsedDocument, indexShard);
+        } finally {
+            context.close();
+            shardPercolateService.postPercolate(System.nanoTime() - startTime);
+        }
+    }
 
-            if (request.docSource() != null && request.docSource().length() != 0) {
-                parsedDocument = parseFetchedDoc(context, request.docSource(), percolateIndexService, request.documentType());
-            } else if (parsedDocument == null) {
-                throw new ElasticsearchIllegalArgumentException("Nothing to percolate");
-            }
+    /**
+     * Percolates the documents of several requests that target the same shard. The documents of the requests that
+     * only ask for the ids (or the number) of the matching queries are indexed together into one in memory index,
+     * so that each percolate query gets executed once for all these documents. Other requests are percolated one
+     * by one.
+     *
+     * @return for each request, in the same order, its response or the failure it ran into
+     */
+    public ItemResponse[] percolate(List<PercolateShardRequest> requests) {
+        ItemResponse[] responses = new ItemResponse[requests.size()];
+        if (requests.isEmpty()) {
+            return responses;
+        }
+        IndexService percolateIndexService = indicesService.indexServiceSafe(requests.get(0).shardId().getIndex());
+        IndexShard indexShard = percolateIndexService.shardSafe(requests.get(0).shardId().id());
+        indexShard.readAllowed(); // check if we can read the shard...
+        ShardPercolateService shardPercolateService = indexShard.shardPercolateService();
 
-            if (context.percolateQuery() == null && (context.trackScores() || context.doSort || context.facets() != null || context.aggregations() != null)) {
-                context.percolateQuery(new MatchAllDocsQuery());
+        List<Integer> batchSlots = new ArrayList<>();
+        List<PercolateContext> batchContexts = new ArrayList<>();
+        List<ParsedDocument> batchDocuments = new ArrayList<>();
+        // the time each batched request took to be parsed, its share of the batch execution is added later on
+        List<Long> batchTookInNanos = new ArrayList<>();
+        long batchTook = 0;
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                PercolateShardRequest request = requests.get(i);
+                shardPercolateService.prePercolate();
+                long startTime = System.nanoTime();
+                PercolateContext context = null;
+                boolean batched = false;
+                try {
+                    context = createContext(request, percolateIndexService, indexShard);
+                    ParsedDocument parsedDocument = parseDocument(percolateIndexService, request, context);
+                    if (parsedDocument == null) {
+                        responses[i] = new ItemResponse(new PercolateShardResponse(context, request.shardId()));
+                    } else if (context.percolateQuery() == null && context.highlight() == null && !context.doSort && parsedDocument.docs().size() == 1) {
+                        context.percolatorTypeId = request.onlyCount() ? countPercolator.id() : matchPercolator.id();
+                        batchSlots.add(i);
+                        batchContexts.add(context);
+                        batchDocuments.add(parsedDocument);
+                        batchTookInNanos.add(System.nanoTime() - startTime);
+                        batched = true;
+                    } else {
+                        responses[i] = new ItemResponse(percolate(request, context, parsedDocument, indexShard));
+                    }
+                } catch (Throwable t) {
+                    responses[i] = new ItemResponse(t);
+                } finally {
+                    if (!batched) {
+                        if (context != null) {
+                            context.close();
+                        }
+                        shardPercolateService.postPercolate(System.nanoTime() - startTime);
+                    }
+                }
             }
 
-            if (context.doSort && !context.limit) {
-                throw new ElasticsearchIllegalArgumentException("Can't sort if size isn't specified");
+            long batchStartTime = System.nanoTime();
+            try {
+                boolean oneByOne = batchContexts.size() == 1;
+                if (batchContexts.size() > 1) {
+                    try {
+                        PercolateShardResponse[] batchResponses = percolateBatch(batchContexts, batchDocuments, indexShard);
+                        for (int i = 0; i < batchSlots.size(); i++) {
+                            responses[batchSlots.get(i)] = new ItemResponse(batchResponses[i]);
+                        }
+                    } catch (Throwable t) {
+                        // a single document can't fail the others, find out which ones failed
+                        logger.debug("failed to percolate a batch of [{}] documents, percolating them one by one", t, batchContexts.size());
+                        oneByOne = true;
+                    }
+                }
+                if (oneByOne) {
+                    for (int i = 0; i < batchSlots.size(); i++) {
+                        int slot = batchSlots.get(i);
+                        try {
+                            responses[slot] = new ItemResponse(percolate(requests.get(slot), batchContexts.get(i), batchDocuments.get(i), indexShard));
+                        } catch (Throwable t) {
+                            responses[slot] = new ItemResponse(t);
+                        }
+                    }
+                }
+            } finally {
+                batchTook = System.nanoTime() - batchStartTime;
             }
-
-            if (context.highlight() != null && !context.limit) {
-                throw new ElasticsearchIllegalArgumentException("Can't highlight if size isn't specified");
+        } finally {
+            for (int i = 0; i < batchContexts.size(); i++) {
+                batchContexts.get(i).close();
+                // each batched request is accounted for its own parsing and an even share of the batch execution
+                shardPercolateService.postPercolate(batchTookInNanos.get(i) + batchTook / batchContexts.size());
             }
+        }
+        return responses;
+    }
 
-            if (context.size() < 0) {
-                context.size(0);
-            }
+    /**
+     * The outcome of one of the requests percolated by {@link #percolate(List)}: either its response or its failure.
+     */
+    public static final class ItemResponse {
+
+        private final PercolateShardResponse response;
+        private final Throwable failure;
+
+        ItemResponse(PercolateShardResponse response) {
+            this.response = response;
+            this.failure = null;
+        }
+
+        ItemResponse(Throwable failure) {
+            this.response = null;
+            this.failure = failure;
+        }
+
+        @Nullable
+        public PercolateShardResponse response() {
+            return response;
+        }
+
+        @Nullable
+        public Throwable failure() {
+            return failure;
+        }
+
+        public boolean failed() {
+            return failure != null;
+        }
+    }
+
+    private PercolateContext createContext(PercolateShardRequest request, IndexService percolateIndexService, IndexShard indexShard) {
+        SearchShardTarget searchShardTarget = new SearchShardTarget(clusterService.localNode().id(), request.shardId().getIndex(), request.shardId().id());
+        return new PercolateContext(
+                request, searchShardTarget, indexShard, percolateIndexService, cacheRecycler, pageCacheRecycler, bigArrays, scriptService
+        );
+    }
+
+    /**
+     * Parses the request and returns the document to percolate, or <tt>null</tt> if there are no queries to percolate.
+     */
+    private ParsedDocument parseDocument(IndexService percolateIndexService, PercolateShardRequest request, PercolateContext context) {
+        ParsedDocument parsedDocument = parseRequest(percolateIndexService, request, context);
+        if (context.percolateQueries().isEmpty()) {
+            return null;
+        }
+
+        if (request.docSource() != null && request.docSource().length() != 0) {
+            parsedDocument = parseFetchedDoc(context, request.docSource(), percolateIndexService, request.documentType());
+        } else if (parsedDocument == null) {
+            throw new ElasticsearchIllegalArgumentException("Nothing to percolate");
+        }
 
-            // parse the source either into one MemoryIndex, if it is a single document or index multiple docs if nested
-            PercolatorIndex percolatorIndex;
-            boolean isNested = indexShard.mapperService().documentMapper(request.documentType()).hasNestedObjects();
-            if (parsedDocument.docs().size() > 1) {
-                assert isNested;
-                percolatorIndex = multi;
+        if (context.percolateQuery() == null && (context.trackScores() || context.doSort || context.facets() != null || context.aggregations() != null)) {
+            context.percolateQuery(new MatchAllDocsQuery());
+        }
+
+        if (context.doSort && !context.limit) {
+            throw new ElasticsearchIllegalArgumentException("Can't sort if size isn't specified");
+        }
+
+        if (context.highlight() != null && !context.limit) {
+            throw new ElasticsearchIllegalArgumentException("Can't highlight if size isn't specified");
+        }
+
+        if (context.size() < 0) {
+            context.size(0);
+        }
+        return parsedDocument;
+    }
+
+    private PercolateShardResponse percolate(PercolateShardRequest request, PercolateContext context, ParsedDocument parsedDocument, IndexShard indexShard) {
+        // parse the source either into one MemoryIndex, if it is a single document or index multiple docs if nested
+        PercolatorIndex percolatorIndex;
+        boolean isNested = indexShard.mapperService().documentMapper(request.documentType()).hasNestedObjects();
+        if (parsedDocument.docs().size() > 1) {
+            assert isNested;
+            percolatorIndex = multi;
+        } else {
+            percolatorIndex = single;
+        }
+
+        PercolatorType action;
+        if (request.onlyCount()) {
+            action = context.percolateQuery() != null ? queryCountPercolator : countPercolator;
+        } else {
+            if (context.doSort) {
+                action = topMatchingPercolator;
+            } else if (context.percolateQuery() != null) {
+                action = context.trackScores() ? scoringPercolator : queryPercolator;
             } else {
-                percolatorIndex = single;
+                action = matchPercolator;
             }
+        }
+        context.percolatorTypeId = action.id();
 
-            PercolatorType action;
-            if (request.onlyCount()) {
-                action = context.percolateQuery() != null ? queryCountPercolator : countPercolator;
-            } else {
-                if (context.doSort) {
-                    action = topMatchingPercolator;
-                } else if (context.percolateQuery() != null) {
-                    action = context.trackScores() ? scoringPercolator : queryPercolator;
-                } else {
-                    action = matchPercolator;
+        percolatorIndex.prepare(context, parsedDocument);
+        // only verify the queries sharing a term with the document
+        try {
+            context.candidateQueries(indexShard.percolateRegistry().candidateQueries(context.docSearcher().getIndexReader()));
+        } catch (IOException e) {
+            throw new PercolateException(indexShard.shardId(), "failed to select candidate queries", e);
+        }
+        PercolateShardResponse response = action.doPercolate(request, context, isNested);
+        indexShard.shardPercolateService().verifiedQueries(context.verifiedQueries, response.count());
+        return response;
+    }
+
+    /**
+     * Executes each candidate query once against all the documents of the batch and collects per document the
+     * ids of the matching queries, like the count and match percolators do for a single document.
+     */
+    private PercolateShardResponse[] percolateBatch(List<PercolateContext> contexts, List<ParsedDocument> parsedDocuments, IndexShard indexShard) {
+        final int numDocs = contexts.size();
+        final long[] counts = new long[numDocs];
+        final List<List<BytesRef>> matches = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            matches.add(new ArrayList<BytesRef>());
+        }
+
+        try (BatchPercolatorIndex batchIndex = new BatchPercolatorIndex(parsedDocuments)) {
+            Map<BytesRef, Query> candidateQueries = indexShard.percolateRegistry().candidateQueries(batchIndex.reader());
+            BatchMatchCollector collector = new BatchMatchCollector(numDocs);
+            long numMatches = 0;
+            long verifiedQueries = 0;
+            for (Map.Entry<BytesRef, Query> entry : candidateQueries.entrySet()) {
+                collector.reset();
+                try {
+                    batchIndex.searcher().search(entry.getValue(), collector);
+                } catch (Throwable e) {
+                    logger.debug("[" + entry.getKey() + "] failed to execute query", e);
+                    throw new PercolateException(indexShard.shardId(), "failed to execute", e);
+                }
+                verifiedQueries++;
+                for (int doc = collector.matchingDocs().nextSetBit(0); doc >= 0; doc = collector.matchingDocs().nextSetBit(doc + 1)) {
+                    PercolateContext context = contexts.get(doc);
+                    if (context.percolatorTypeId == matchPercolator.id() && (!context.limit || counts[doc] < context.size())) {
+                        matches.get(doc).add(entry.getKey());
+                    }
+                    counts[doc]++;
+                    numMatches++;
                 }
             }
-            context.percolatorTypeId = action.id();
+            indexShard.shardPercolateService().verifiedQueries(verifiedQueries, numMatches);
+        } catch (IOException e) {
+            throw new PercolateException(indexShard.shardId(), "failed to execute", e);
+        }
 
-            percolatorIndex.prepare(context, parsedDocument);
-            return action.doPercolate(request, context, isNested);
-        } finally {
-            context.close();
-            shardPercolateService.postPercolate(System.nanoTime() - startTime);
+        ShardId shardId = indexShard.shardId();
+        PercolateShardResponse[] responses = new PercolateShardResponse[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            PercolateContext context = contexts.get(i);
+            if (context.percolatorTypeId == matchPercolator.id()) {
+                List<BytesRef> docMatches = matches.get(i);
+                BytesRef[] finalMatches = docMatches.toArray(new BytesRef[docMatches.size()]);
+                responses[i] = new PercolateShardResponse(finalMatches, new ArrayList<Map<String, HighlightField>>(), counts[i], context, shardId);
+            } else {
+                responses[i] = new PercolateShardResponse(counts[i], context, shardId);
+            }
         }
+        return responses;
     }
 
     private ParsedDocument parseRequest(IndexService documentIndexService, PercolateShardRequest request, PercolateContext context) throws ElasticsearchException {
@@ -445,7 +658,7 @@ public class PercolatorService extends AbstractComponent {
         public PercolateShardResponse doPercolate(PercolateShardRequest request, PercolateContext context, boolean isNested) {
             long count = 0;
             Lucene.EarlyTerminatingCollector collector = Lucene.createExistsCollector();
-            for (Map.Entry<BytesRef, Query> entry : context.percolateQueries().entrySet()) {
+            for (Map.Entry<BytesRef, Query> entry : context.candidateQueries().entrySet()) {
                 try {
                     if (isNested) {
                         Lucene.exists(context.docSearcher(), entry.getValue(), NonNestedDocsFilter.INSTANCE, collector);
@@ -456,6 +669,7 @@ public class PercolatorService extends AbstractComponent {
                     logger.debug("[" + entry.getKey() + "] failed to execute query", e);
                     throw new PercolateException(context.indexShard().shardId(), "failed to execute", e);
                 }
+                context.verifiedQueries++;
 
                 if (collector.exists()) {
                     count++;
@@ -542,7 +756,7 @@ public class PercolatorService extends AbstractComponent {
             List<Map<String, HighlightField>> hls = new ArrayList<>();
             Lucene.EarlyTerminatingCollector collector = Lucene.createExistsCollector();
 
-            for (Map.Entry<BytesRef, Query> entry : context.percolateQueries().entrySet()) {
+            for (Map.Entry<BytesRef, Query> entry : context.candidateQueries().entrySet()) {
                 if (context.highlight() != null) {
                     context.parsedQuery(new ParsedQuery(entry.getValue()));
                     context.hitContext().cache().clear();
@@ -557,6 +771,7 @@ public class PercolatorService extends AbstractComponent {
                     logger.debug("[" + entry.getKey() + "] failed to execute query", e);
                     throw new PercolateException(context.indexShard().shardId(), "failed to execute", e);
                 }
+                context.verifiedQueries++;
 
                 if (collector.exists()) {
                     if (!context.limit || count < context.size()) {
@@ -791,6 +1006,7 @@ public class PercolatorService extends AbstractComponent {
         percolatorTypeFilter = context.indexService().cache().filter().cache(percolatorTypeFilter);
         XFilteredQuery query = new XFilteredQuery(context.percolateQuery(), percolatorTypeFilter);
         percolatorSearcher.searcher().search(query, percolateCollector);
+        context.verifiedQueries += percolateCollector.verifiedQueries;
         for (Collector queryCollector : percolateCollector.facetAndAggregatorCollector) {
             if (queryCollector instanceof XCollector) {
                 ((XCollector) queryCollector).postCollection();
@@ -888,4 +1104,44 @@ public class PercolatorService extends AbstractComponent {
         return InternalAggregations.reduce(aggregationsList, new ReduceContext(null, bigArrays, scriptService));
     }
 
+    /**
+     * Collects the documents of a batch that match a percolate query.
+     */
+    private static final class BatchMatchCollector extends Collector {
+
+        private final FixedBitSet matchingDocs;
+        private int docBase;
+
+        BatchMatchCollector(int numDocs) {
+            this.matchingDocs = new FixedBitSet(numDocs);
+        }
+
+        void reset() {
+            matchingDocs.clear(0, matchingDocs.length());
+        }
+
+        FixedBitSet matchingDocs() {
+            return matchingDocs;
+        }
+
+        @Override
+        public void setScorer(Scorer scorer) throws IOException {
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            matchingDocs.set(docBase + doc);
+        }
+
+        @Override
+        public void setNextReader(AtomicReaderContext context) throws IOException {
+            docBase = context.docBase;
+        }
+
+        @Override
+        public boolean acceptsDocsOutOfOrder() {
+            return true;
+        }
+    }
+
 }
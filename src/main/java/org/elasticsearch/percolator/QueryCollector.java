@@ -45,7 +45,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
 
 /**
  */
@@ -53,12 +52,13 @@ abstract class QueryCollector extends Collector {
 
     final IndexFieldData<?> idFieldData;
     final IndexSearcher searcher;
-    final ConcurrentMap<BytesRef, Query> queries;
+    final Map<BytesRef, Query> queries;
     final ESLogger logger;
     boolean isNestedDoc = false;
 
     final Lucene.EarlyTerminatingCollector collector = Lucene.createExistsCollector();
     BytesRef current;
+    long verifiedQueries = 0;
 
     SortedBinaryDocValues values;
 
@@ -66,7 +66,7 @@ abstract class QueryCollector extends Collector {
 
     QueryCollector(ESLogger logger, PercolateContext context, boolean isNestedDoc) {
         this.logger = logger;
-        this.queries = context.percolateQueries();
+        this.queries = context.candidateQueries();
         this.searcher = context.docSearcher();
         final FieldMapper<?> idMapper = context.mapperService().smartNameFieldMapper(IdFieldMapper.NAME);
         this.idFieldData = context.fieldData().getForField(idMapper);
@@ -166,7 +166,11 @@ abstract class QueryCollector extends Collector {
         }
         assert numValues == 1;
         current = values.valueAt(0);
-        return queries.get(current);
+        Query query = queries.get(current);
+        if (query != null) {
+            verifiedQueries++;
+        }
+        return query;
     }
 
 
@@ -27,6 +27,7 @@ import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentType;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * A channel used to construct bytes / builder based outputs, and send responses.
@@ -46,6 +47,13 @@ public abstract class RestChannel {
     }
 
     public XContentBuilder newBuilder(@Nullable BytesReference autoDetectSource) throws IOException {
+        return newBuilder(autoDetectSource, bytesOutput());
+    }
+
+    /**
+     * Creates a builder, configured with the format and options of the request, that writes to the given output.
+     */
+    public XContentBuilder newBuilder(@Nullable BytesReference autoDetectSource, OutputStream out) throws IOException {
         XContentType contentType = XContentType.fromRestContentType(request.param("format", request.header("Content-Type")));
         if (contentType == null) {
             // try and guess it from the auto detect source
@@ -57,7 +65,7 @@ public abstract class RestChannel {
             // default to JSON
             contentType = XContentType.JSON;
         }
-        XContentBuilder builder = new XContentBuilder(XContentFactory.xContent(contentType), bytesOutput());
+        XContentBuilder builder = new XContentBuilder(XContentFactory.xContent(contentType), out);
         if (request.paramAsBoolean("pretty", false)) {
             builder.prettyPrint().lfAtEnd();
         }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * A response whose content is written when the response is sent rather than when it is built. Channels that
+ * support it, like the netty http channel, send large contents in chunks while they are written, so that the
+ * whole content doesn't need to be held in memory. Other channels use {@link #content()}, which writes the
+ * whole content first.
+ */
+public abstract class StreamingRestResponse extends RestResponse {
+
+    private final RestChannel channel;
+    private final RestStatus status;
+    private XContentBuilder builder;
+
+    protected StreamingRestResponse(RestChannel channel, RestStatus status) {
+        this.channel = channel;
+        this.status = status;
+    }
+
+    /**
+     * Writes the content of the response to the given builder.
+     */
+    public abstract void writeContent(XContentBuilder builder) throws IOException;
+
+    @Override
+    public String contentType() {
+        return builder().contentType().restContentType();
+    }
+
+    @Override
+    public boolean contentThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public BytesReference content() {
+        return builder().bytes();
+    }
+
+    @Override
+    public RestStatus status() {
+        return status;
+    }
+
+    private XContentBuilder builder() {
+        if (builder == null) {
+            try {
+                XContentBuilder builder = channel.newBuilder();
+                writeContent(builder);
+                this.builder = builder;
+            } catch (IOException e) {
+                throw new ElasticsearchException("failed to write response content", e);
+            }
+        }
+        return builder;
+    }
+}
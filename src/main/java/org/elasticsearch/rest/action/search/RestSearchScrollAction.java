@@ -26,7 +26,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.rest.*;
 import org.elasticsearch.rest.action.support.RestActions;
-import org.elasticsearch.rest.action.support.RestStatusToXContentListener;
+import org.elasticsearch.rest.action.support.RestStreamingStatusToXContentListener;
 import org.elasticsearch.search.Scroll;
 
 import static org.elasticsearch.common.unit.TimeValue.parseTimeValue;
@@ -61,6 +61,6 @@ public class RestSearchScrollAction extends BaseRestHandler {
             searchScrollRequest.scroll(new Scroll(parseTimeValue(scroll, null)));
         }
 
-        client.searchScroll(searchScrollRequest, new RestStatusToXContentListener<SearchResponse>(channel));
+        client.searchScroll(searchScrollRequest, new RestStreamingStatusToXContentListener<SearchResponse>(channel));
     }
 }
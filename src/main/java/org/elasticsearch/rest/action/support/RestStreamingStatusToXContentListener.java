@@ -0,0 +1,51 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action.support;
+
+import org.elasticsearch.common.xcontent.StatusToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.StreamingRestResponse;
+
+import java.io.IOException;
+
+/**
+ * Like {@link RestStatusToXContentListener}, but for responses that can be large, like search responses: the
+ * response is written while it is sent, see {@link StreamingRestResponse}.
+ */
+public class RestStreamingStatusToXContentListener<Response extends StatusToXContent> extends RestResponseListener<Response> {
+
+    public RestStreamingStatusToXContentListener(RestChannel channel) {
+        super(channel);
+    }
+
+    @Override
+    public final RestResponse buildResponse(final Response response) throws Exception {
+        return new StreamingRestResponse(channel, response.status()) {
+            @Override
+            public void writeContent(XContentBuilder builder) throws IOException {
+                builder.startObject();
+                response.toXContent(builder, channel.request());
+                builder.endObject();
+            }
+        };
+    }
+}
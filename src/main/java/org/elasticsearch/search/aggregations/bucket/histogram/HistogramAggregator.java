@@ -19,7 +19,10 @@
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.inject.internal.Nullable;
 import org.elasticsearch.common.lease.Releasables;
@@ -54,6 +57,8 @@ public class HistogramAggregator extends BucketsAggregator {
 
     private final LongHash bucketOrds;
     private SortedNumericDocValues values;
+    private NumericDocValues singleValues;
+    private Bits docsWithField;
 
     public HistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, InternalOrder order,
                                boolean keyed, long minDocCount, @Nullable ExtendedBounds extendedBounds,
@@ -82,11 +87,21 @@ public class HistogramAggregator extends BucketsAggregator {
     @Override
     public void setNextReader(AtomicReaderContext reader) {
         values = valuesSource.longValues();
+        singleValues = DocValues.unwrapSingleton(values);
+        docsWithField = DocValues.unwrapSingletonBits(values);
     }
 
     @Override
     public void collect(int doc, long owningBucketOrdinal) throws IOException {
         assert owningBucketOrdinal == 0;
+        if (singleValues != null) {
+            final long value = singleValues.get(doc);
+            if (value == 0 && docsWithField != null && docsWithField.get(doc) == false) {
+                return;
+            }
+            collectKey(doc, rounding.roundKey(value));
+            return;
+        }
         values.setDocument(doc);
         final int valuesCount = values.count();
 
@@ -98,17 +113,21 @@ public class HistogramAggregator extends BucketsAggregator {
             if (key == previousKey) {
                 continue;
             }
-            long bucketOrd = bucketOrds.add(key);
-            if (bucketOrd < 0) { // already seen
-                bucketOrd = -1 - bucketOrd;
-                collectExistingBucket(doc, bucketOrd);
-            } else {
-                collectBucket(doc, bucketOrd);
-            }
+            collectKey(doc, key);
             previousKey = key;
         }
     }
 
+    private void collectKey(int doc, long key) throws IOException {
+        long bucketOrd = bucketOrds.add(key);
+        if (bucketOrd < 0) { // already seen
+            bucketOrd = -1 - bucketOrd;
+            collectExistingBucket(doc, bucketOrd);
+        } else {
+            collectBucket(doc, bucketOrd);
+        }
+    }
+
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) {
         assert owningBucketOrdinal == 0;
@@ -25,6 +25,7 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.index.FilterableTermsEnum;
@@ -137,19 +138,24 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
     private Filter filter;
     private final TermsAggregator.BucketCountThresholds bucketCountThresholds;
     private final SignificanceHeuristic significanceHeuristic;
+    private final SignificantTermsBackgroundCache backgroundCache;
+    private SignificantTermsBackgroundCache.BackgroundFrequencies backgroundFrequencies;
+    private AggregationContext backgroundContext;
 
     protected TermsAggregator.BucketCountThresholds getBucketCountThresholds() {
         return new TermsAggregator.BucketCountThresholds(bucketCountThresholds);
     }
 
     public SignificantTermsAggregatorFactory(String name, ValuesSourceConfig valueSourceConfig, TermsAggregator.BucketCountThresholds bucketCountThresholds, IncludeExclude includeExclude,
-                                             String executionHint, Filter filter, SignificanceHeuristic significanceHeuristic) {
+                                             String executionHint, Filter filter, SignificanceHeuristic significanceHeuristic,
+                                             @Nullable SignificantTermsBackgroundCache backgroundCache) {
 
         super(name, SignificantStringTerms.TYPE.name(), valueSourceConfig);
         this.bucketCountThresholds = bucketCountThresholds;
         this.includeExclude = includeExclude;
         this.executionHint = executionHint;
         this.significanceHeuristic = significanceHeuristic;
+        this.backgroundCache = backgroundCache;
         if (!valueSourceConfig.unmapped()) {
             this.indexedFieldName = config.fieldContext().field();
             mapper = SearchContext.current().smartNameFieldMapper(indexedFieldName);
@@ -222,11 +228,38 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
      * @return The number of documents in the index (after an optional filter might have been applied)
      */
     public long prepareBackground(AggregationContext context) {
+        if (backgroundFrequencies != null) {
+            // already prepared - return
+            return backgroundFrequencies.numDocs();
+        }
         if (termsEnum != null) {
             // already prepared - return 
             return termsEnum.getNumDocs();
         }
-        SearchContext searchContext = context.searchContext();
+        backgroundContext = context;
+        if (backgroundCache != null) {
+            IndexReader reader = context.searchContext().searcher().getIndexReader();
+            backgroundFrequencies = backgroundCache.get(reader, indexedFieldName, filter);
+            if (backgroundFrequencies == null) {
+                // computing the number of background docs requires to build the terms enum anyway
+                backgroundFrequencies = backgroundCache.put(reader, indexedFieldName, filter, termsEnum().getNumDocs());
+            }
+            if (backgroundFrequencies != null) {
+                return backgroundFrequencies.numDocs();
+            }
+        }
+        return termsEnum().getNumDocs();
+    }
+
+    /**
+     * Returns the TermsEnum that is used to look up background frequencies that are not cached, creating it if necessary.
+     */
+    private FilterableTermsEnum termsEnum() {
+        if (termsEnum != null) {
+            return termsEnum;
+        }
+        assert backgroundContext != null : "prepareBackground must be called first";
+        SearchContext searchContext = backgroundContext.searchContext();
         IndexReader reader = searchContext.searcher().getIndexReader();
         try {
             if (numberOfAggregatorsCreated == 1) {
@@ -240,11 +273,18 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         } catch (IOException e) {
             throw new ElasticsearchException("failed to build terms enumeration", e);
         }
-        return termsEnum.getNumDocs();
+        return termsEnum;
     }
 
     public long getBackgroundFrequency(BytesRef termBytes) {
-        assert termsEnum != null; // having failed to find a field in the index we don't expect any calls for frequencies
+        assert backgroundContext != null; // having failed to find a field in the index we don't expect any calls for frequencies
+        if (backgroundFrequencies != null) {
+            final long cached = backgroundFrequencies.frequency(termBytes);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+        final FilterableTermsEnum termsEnum = termsEnum();
         long result = 0;
         try {
             if (termsEnum.seekExact(termBytes)) {
@@ -253,6 +293,9 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         } catch (IOException e) {
             throw new ElasticsearchException("IOException loading background document frequency info", e);
         }
+        if (backgroundFrequencies != null) {
+            backgroundFrequencies.put(termBytes, result);
+        }
         return result;
     }
 
@@ -270,6 +313,8 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
             }
         } finally {
             termsEnum = null;
+            backgroundFrequencies = null;
+            backgroundContext = null;
         }
     }
 }
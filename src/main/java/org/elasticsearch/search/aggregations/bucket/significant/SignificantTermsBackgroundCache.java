@@ -0,0 +1,231 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.significant;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the background frequencies looked up by the <tt>significant_terms</tt> aggregation per top-level reader,
+ * field and background filter. Background frequencies only depend on the point-in-time view of the shard, so
+ * subsequent requests on the same reader don't need to seek the terms dictionary (and intersect postings with
+ * the background filter) again. Entries are dropped as soon as their reader is closed.
+ * <p/>
+ * The cache is bounded by memory: each entry may grow up to {@link #ENTRY_SIZE} and is weighted as such, and the
+ * frequencies it actually holds are accounted on the fielddata circuit breaker. Terms are simply not cached
+ * anymore once their entry is full or the breaker is close to its limit.
+ */
+public class SignificantTermsBackgroundCache extends AbstractComponent implements IndexReader.ReaderClosedListener {
+
+    public static final String ENABLED = "search.aggregations.significant_terms.background_cache.enabled";
+    public static final String SIZE = "search.aggregations.significant_terms.background_cache.size";
+    public static final String ENTRY_SIZE = "search.aggregations.significant_terms.background_cache.entry_size";
+
+    // the term bytes aside, a cached frequency takes a BytesRef, its byte[], a boxed Long and a hash entry
+    static final long BYTES_PER_TERM = 4 * RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+            + 8 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + 3 * RamUsageEstimator.NUM_BYTES_INT + RamUsageEstimator.NUM_BYTES_LONG;
+
+    private final boolean enabled;
+    private final long entrySizeInBytes;
+    private final CircuitBreakerService breakerService;
+    private final Cache<Key, BackgroundFrequencies> cache;
+
+    @Inject
+    public SignificantTermsBackgroundCache(Settings settings, CircuitBreakerService breakerService) {
+        super(settings);
+        this.enabled = settings.getAsBoolean(ENABLED, true);
+        final long sizeInBytes = settings.getAsMemory(SIZE, "1%").bytes();
+        this.entrySizeInBytes = Math.min(settings.getAsBytesSize(ENTRY_SIZE, new ByteSizeValue(1, ByteSizeUnit.MB)).bytes(), sizeInBytes);
+        this.breakerService = breakerService;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(sizeInBytes)
+                .weigher(new Weigher<Key, BackgroundFrequencies>() {
+                    @Override
+                    public int weigh(Key key, BackgroundFrequencies value) {
+                        // entries grow after they have been added, so they are weighted with the size they may reach
+                        return (int) Math.min(entrySizeInBytes, Integer.MAX_VALUE);
+                    }
+                })
+                .removalListener(new RemovalListener<Key, BackgroundFrequencies>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<Key, BackgroundFrequencies> notification) {
+                        if (notification.getValue() != null) {
+                            notification.getValue().release();
+                        }
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the cached background frequencies for the given reader, field and filter, or <tt>null</tt> if
+     * they are not cached yet.
+     */
+    @Nullable
+    public BackgroundFrequencies get(IndexReader reader, String field, @Nullable Filter filter) {
+        if (enabled == false) {
+            return null;
+        }
+        return cache.getIfPresent(new Key(reader.getCoreCacheKey(), field, filter));
+    }
+
+    /**
+     * Registers the background frequencies for the given reader, field and filter. The returned instance should
+     * be used instead of a new one since another request might have registered it concurrently.
+     */
+    @Nullable
+    public BackgroundFrequencies put(IndexReader reader, String field, @Nullable Filter filter, long numDocs) {
+        if (enabled == false || entrySizeInBytes <= 0) {
+            return null;
+        }
+        reader.addReaderClosedListener(this);
+        final BackgroundFrequencies frequencies = new BackgroundFrequencies(numDocs, entrySizeInBytes, breakerService.getBreaker(CircuitBreaker.Name.FIELDDATA));
+        final BackgroundFrequencies existing = cache.asMap().putIfAbsent(new Key(reader.getCoreCacheKey(), field, filter), frequencies);
+        return existing == null ? frequencies : existing;
+    }
+
+    @Override
+    public void onClose(IndexReader reader) {
+        final Object readerKey = reader.getCoreCacheKey();
+        for (Key key : cache.asMap().keySet()) {
+            if (key.readerKey == readerKey) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    /**
+     * The number of background documents and the frequencies of the terms that have been looked up so far.
+     */
+    public static final class BackgroundFrequencies {
+
+        private final long numDocs;
+        private final long maxSizeInBytes;
+        private final CircuitBreaker breaker;
+        private final ConcurrentMap<BytesRef, Long> frequencies = ConcurrentCollections.newConcurrentMap();
+        private long sizeInBytes;
+        private boolean released;
+
+        BackgroundFrequencies(long numDocs, long maxSizeInBytes, CircuitBreaker breaker) {
+            this.numDocs = numDocs;
+            this.maxSizeInBytes = maxSizeInBytes;
+            this.breaker = breaker;
+        }
+
+        public long numDocs() {
+            return numDocs;
+        }
+
+        /**
+         * Returns the cached frequency of the term, or <tt>-1</tt> if it hasn't been looked up yet.
+         */
+        public long frequency(BytesRef term) {
+            final Long frequency = frequencies.get(term);
+            return frequency == null ? -1 : frequency;
+        }
+
+        public void put(BytesRef term, long frequency) {
+            final long bytes = BYTES_PER_TERM + term.length;
+            synchronized (this) {
+                if (released || sizeInBytes + bytes > maxSizeInBytes || frequencies.containsKey(term)) {
+                    return;
+                }
+                final long limit = breaker.getLimit();
+                if (limit > 0 && breaker.getUsed() + bytes > limit) {
+                    // this is only a cache, rather not cache the term than trip the breaker
+                    return;
+                }
+                breaker.addWithoutBreaking(bytes);
+                sizeInBytes += bytes;
+                frequencies.put(BytesRef.deepCopyOf(term), frequency);
+            }
+        }
+
+        synchronized long sizeInBytes() {
+            return sizeInBytes;
+        }
+
+        synchronized void release() {
+            if (released == false) {
+                released = true;
+                breaker.addWithoutBreaking(-sizeInBytes);
+            }
+        }
+    }
+
+    static final class Key {
+
+        final Object readerKey;
+        final String field;
+        @Nullable
+        final Filter filter;
+
+        Key(Object readerKey, String field, @Nullable Filter filter) {
+            this.readerKey = readerKey;
+            this.field = field;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            if (readerKey != key.readerKey) return false;
+            if (!field.equals(key.field)) return false;
+            if (filter != null ? !filter.equals(key.filter) : key.filter != null) return false;
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(readerKey);
+            result = 31 * result + field.hashCode();
+            result = 31 * result + (filter != null ? filter.hashCode() : 0);
+            return result;
+        }
+    }
+}
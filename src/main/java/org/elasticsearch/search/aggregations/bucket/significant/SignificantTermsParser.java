@@ -39,10 +39,12 @@ import java.io.IOException;
 public class SignificantTermsParser implements Aggregator.Parser {
 
     private final SignificanceHeuristicParserMapper significanceHeuristicParserMapper;
+    private final SignificantTermsBackgroundCache backgroundCache;
 
     @Inject
-    public SignificantTermsParser(SignificanceHeuristicParserMapper significanceHeuristicParserMapper) {
+    public SignificantTermsParser(SignificanceHeuristicParserMapper significanceHeuristicParserMapper, SignificantTermsBackgroundCache backgroundCache) {
         this.significanceHeuristicParserMapper = significanceHeuristicParserMapper;
+        this.backgroundCache = backgroundCache;
     }
 
     @Override
@@ -77,6 +79,6 @@ public class SignificantTermsParser implements Aggregator.Parser {
         if (significanceHeuristic == null) {
             significanceHeuristic = JLHScore.INSTANCE;
         }
-        return new SignificantTermsAggregatorFactory(aggregationName, vsParser.config(), bucketCountThresholds, aggParser.getIncludeExclude(), aggParser.getExecutionHint(), aggParser.getFilter(), significanceHeuristic);
+        return new SignificantTermsAggregatorFactory(aggregationName, vsParser.config(), bucketCountThresholds, aggParser.getIncludeExclude(), aggParser.getExecutionHint(), aggParser.getFilter(), significanceHeuristic, backgroundCache);
     }
 }
@@ -19,10 +19,13 @@
 package org.elasticsearch.search.aggregations.metrics.avg;
 
 import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.util.Bits;
 import org.elasticsearch.common.inject.internal.Nullable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.DoubleArray;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -42,6 +45,8 @@ public class AvgAggregator extends NumericMetricsAggregator.SingleValue {
 
     private final ValuesSource.Numeric valuesSource;
     private SortedNumericDoubleValues values;
+    private NumericDoubleValues singleValues;
+    private Bits docsWithField;
 
     private LongArray counts;
     private DoubleArray sums;
@@ -67,6 +72,8 @@ public class AvgAggregator extends NumericMetricsAggregator.SingleValue {
     @Override
     public void setNextReader(AtomicReaderContext reader) {
         values = valuesSource.doubleValues();
+        singleValues = FieldData.unwrapSingleton(values);
+        docsWithField = FieldData.unwrapSingletonBits(values);
     }
 
     @Override
@@ -74,6 +81,15 @@ public class AvgAggregator extends NumericMetricsAggregator.SingleValue {
         counts = bigArrays.grow(counts, owningBucketOrdinal + 1);
         sums = bigArrays.grow(sums, owningBucketOrdinal + 1);
 
+        if (singleValues != null) {
+            final double value = singleValues.get(doc);
+            if (value != 0 || docsWithField == null || docsWithField.get(doc)) {
+                counts.increment(owningBucketOrdinal, 1);
+                sums.increment(owningBucketOrdinal, value);
+            }
+            return;
+        }
+
         values.setDocument(doc);
         final int valueCount = values.count();
         counts.increment(owningBucketOrdinal, valueCount);
@@ -19,12 +19,15 @@
 package org.elasticsearch.search.aggregations.metrics.stats.extended;
 
 import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.util.Bits;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.common.inject.internal.Nullable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.DoubleArray;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -44,6 +47,8 @@ public class ExtendedStatsAggregator extends NumericMetricsAggregator.MultiValue
 
     private final ValuesSource.Numeric valuesSource;
     private SortedNumericDoubleValues values;
+    private NumericDoubleValues singleValues;
+    private Bits docsWithField;
 
     private LongArray counts;
     private DoubleArray sums;
@@ -82,6 +87,8 @@ public class ExtendedStatsAggregator extends NumericMetricsAggregator.MultiValue
     @Override
     public void setNextReader(AtomicReaderContext reader) {
         values = valuesSource.doubleValues();
+        singleValues = FieldData.unwrapSingleton(values);
+        docsWithField = FieldData.unwrapSingletonBits(values);
     }
 
     @Override
@@ -98,6 +105,19 @@ public class ExtendedStatsAggregator extends NumericMetricsAggregator.MultiValue
             maxes.fill(from, overSize, Double.NEGATIVE_INFINITY);
         }
 
+        if (singleValues != null) {
+            final double value = singleValues.get(doc);
+            if (value == 0 && docsWithField != null && docsWithField.get(doc) == false) {
+                return;
+            }
+            counts.increment(owningBucketOrdinal, 1);
+            sums.increment(owningBucketOrdinal, value);
+            sumOfSqrs.increment(owningBucketOrdinal, value * value);
+            mins.set(owningBucketOrdinal, Math.min(mins.get(owningBucketOrdinal), value));
+            maxes.set(owningBucketOrdinal, Math.max(maxes.get(owningBucketOrdinal), value));
+            return;
+        }
+
         values.setDocument(doc);
         final int valuesCount = values.count();
         counts.increment(owningBucketOrdinal, valuesCount);
@@ -22,6 +22,8 @@ import org.apache.lucene.index.AtomicReaderContext;
 import org.elasticsearch.common.inject.internal.Nullable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -41,6 +43,7 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
 
     private final ValuesSource.Numeric valuesSource;
     private SortedNumericDoubleValues values;
+    private NumericDoubleValues singleValues;
 
     private DoubleArray sums;
     private ValueFormatter formatter;
@@ -64,11 +67,17 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
     @Override
     public void setNextReader(AtomicReaderContext reader) {
         values = valuesSource.doubleValues();
+        // single-valued fields can be read directly, documents without a value return 0 which doesn't change the sum
+        singleValues = FieldData.unwrapSingleton(values);
     }
 
     @Override
     public void collect(int doc, long owningBucketOrdinal) throws IOException {
         sums = bigArrays.grow(sums, owningBucketOrdinal + 1);
+        if (singleValues != null) {
+            sums.increment(owningBucketOrdinal, singleValues.get(doc));
+            return;
+        }
         values.setDocument(doc);
         final int valuesCount = values.count();
         double sum = 0;
@@ -0,0 +1,190 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.tophits;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.FloatArray;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+
+import java.util.Comparator;
+
+/**
+ * Keeps track of the top <tt>n</tt> documents by score of every bucket in flat big arrays, instead of using a
+ * Lucene collector (with its own priority queue) per bucket. Documents of a bucket are stored in a min-heap
+ * whose root is the least competitive document of the bucket.
+ * <p/>
+ * Ties are broken the same way as {@link org.apache.lucene.search.TopScoreDocCollector}: the document with the
+ * lowest doc id wins.
+ */
+final class BucketTopScoreDocs implements Releasable {
+
+    private static final Comparator<ScoreDoc> BY_SCORE_THEN_DOC = new Comparator<ScoreDoc>() {
+        @Override
+        public int compare(ScoreDoc a, ScoreDoc b) {
+            final int cmp = Float.compare(b.score, a.score);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return a.doc - b.doc;
+        }
+    };
+
+    private final BigArrays bigArrays;
+    private final int topN;
+
+    private LongArray totalHits;
+    private FloatArray maxScores;
+    private IntArray docs;
+    private FloatArray scores;
+
+    BucketTopScoreDocs(int topN, long estimatedBucketsCount, BigArrays bigArrays) {
+        assert topN > 0;
+        this.topN = topN;
+        this.bigArrays = bigArrays;
+        final long initialSize = estimatedBucketsCount < 2 ? 1 : estimatedBucketsCount;
+        totalHits = bigArrays.newLongArray(initialSize, true);
+        maxScores = bigArrays.newFloatArray(initialSize, false);
+        maxScores.fill(0, maxScores.size(), Float.NEGATIVE_INFINITY);
+        docs = bigArrays.newIntArray(initialSize * topN, false);
+        scores = bigArrays.newFloatArray(initialSize * topN, false);
+    }
+
+    /**
+     * Collect a document for the given bucket.
+     *
+     * @param doc   the top-level doc id of the document
+     * @param score the score of the document
+     */
+    void collect(long bucket, int doc, float score) {
+        if (bucket >= totalHits.size()) {
+            final long from = totalHits.size();
+            totalHits = bigArrays.grow(totalHits, bucket + 1);
+            maxScores = bigArrays.resize(maxScores, totalHits.size());
+            maxScores.fill(from, maxScores.size(), Float.NEGATIVE_INFINITY);
+        }
+        final long count = totalHits.increment(bucket, 1) - 1;
+        if (score > maxScores.get(bucket)) {
+            maxScores.set(bucket, score);
+        }
+
+        final long offset = bucket * topN;
+        if (count < topN) {
+            // the heap of this bucket is not full yet
+            final long end = offset + topN;
+            if (end > docs.size()) {
+                docs = bigArrays.grow(docs, end);
+                scores = bigArrays.grow(scores, end);
+            }
+            docs.set(offset + count, doc);
+            scores.set(offset + count, score);
+            upHeap(offset, count);
+        } else if (score > scores.get(offset) || (score == scores.get(offset) && doc < docs.get(offset))) {
+            docs.set(offset, doc);
+            scores.set(offset, score);
+            downHeap(offset, topN);
+        }
+    }
+
+    /**
+     * Return the number of documents that have been collected for the given bucket.
+     */
+    long totalHits(long bucket) {
+        return bucket < totalHits.size() ? totalHits.get(bucket) : 0;
+    }
+
+    /**
+     * Return the top documents of the given bucket, sorted by decreasing score.
+     */
+    TopDocs topDocs(long bucket) {
+        final long totalHits = totalHits(bucket);
+        if (totalHits == 0) {
+            return Lucene.EMPTY_TOP_DOCS;
+        }
+        final int size = (int) Math.min(totalHits, topN);
+        final long offset = bucket * topN;
+        final ScoreDoc[] scoreDocs = new ScoreDoc[size];
+        for (int i = 0; i < size; i++) {
+            scoreDocs[i] = new ScoreDoc(docs.get(offset + i), scores.get(offset + i));
+        }
+        ArrayUtil.timSort(scoreDocs, BY_SCORE_THEN_DOC);
+        return new TopDocs((int) totalHits, scoreDocs, maxScores.get(bucket));
+    }
+
+    private boolean lessCompetitive(long slot1, long slot2) {
+        final float score1 = scores.get(slot1);
+        final float score2 = scores.get(slot2);
+        if (score1 != score2) {
+            return score1 < score2;
+        }
+        return docs.get(slot1) > docs.get(slot2);
+    }
+
+    private void swap(long slot1, long slot2) {
+        final int doc = docs.get(slot1);
+        docs.set(slot1, docs.get(slot2));
+        docs.set(slot2, doc);
+        final float score = scores.get(slot1);
+        scores.set(slot1, scores.get(slot2));
+        scores.set(slot2, score);
+    }
+
+    private void upHeap(long offset, long slot) {
+        while (slot > 0) {
+            final long parent = (slot - 1) >>> 1;
+            if (lessCompetitive(offset + slot, offset + parent) == false) {
+                break;
+            }
+            swap(offset + slot, offset + parent);
+            slot = parent;
+        }
+    }
+
+    private void downHeap(long offset, long size) {
+        long slot = 0;
+        while (true) {
+            final long left = (slot << 1) + 1;
+            if (left >= size) {
+                break;
+            }
+            final long right = left + 1;
+            long child = left;
+            if (right < size && lessCompetitive(offset + right, offset + left)) {
+                child = right;
+            }
+            if (lessCompetitive(offset + child, offset + slot) == false) {
+                break;
+            }
+            swap(offset + slot, offset + child);
+            slot = child;
+        }
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(totalHits, maxScores, docs, scores);
+    }
+}
@@ -44,6 +44,8 @@ public class TopHitsAggregator extends MetricsAggregator implements ScorerAware
     private final FetchPhase fetchPhase;
     private final SubSearchContext subSearchContext;
     private final LongObjectPagedHashMap<TopDocsCollector> topDocsCollectors;
+    // used instead of a collector per bucket when hits are sorted by score
+    private final BucketTopScoreDocs topScoreDocs;
 
     private Scorer currentScorer;
     private AtomicReaderContext currentContext;
@@ -53,6 +55,12 @@ public class TopHitsAggregator extends MetricsAggregator implements ScorerAware
         this.fetchPhase = fetchPhase;
         topDocsCollectors = new LongObjectPagedHashMap<>(estimatedBucketsCount, context.bigArrays());
         this.subSearchContext = subSearchContext;
+        final int topN = subSearchContext.from() + subSearchContext.size();
+        if (subSearchContext.sort() == null && topN > 0) {
+            topScoreDocs = new BucketTopScoreDocs(topN, estimatedBucketsCount, context.bigArrays());
+        } else {
+            topScoreDocs = null;
+        }
         context.registerScorerAware(this);
     }
 
@@ -64,10 +72,10 @@ public class TopHitsAggregator extends MetricsAggregator implements ScorerAware
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) {
         TopDocsCollector topDocsCollector = topDocsCollectors.get(owningBucketOrdinal);
-        if (topDocsCollector == null) {
+        if (topDocsCollector == null && (topScoreDocs == null || topScoreDocs.totalHits(owningBucketOrdinal) == 0)) {
             return buildEmptyAggregation();
         } else {
-            TopDocs topDocs = topDocsCollector.topDocs();
+            TopDocs topDocs = topScoreDocs != null ? topScoreDocs.topDocs(owningBucketOrdinal) : topDocsCollector.topDocs();
             if (topDocs.totalHits == 0) {
                 return buildEmptyAggregation();
             }
@@ -102,6 +110,10 @@ public class TopHitsAggregator extends MetricsAggregator implements ScorerAware
 
     @Override
     public void collect(int docId, long bucketOrdinal) throws IOException {
+        if (topScoreDocs != null) {
+            topScoreDocs.collect(bucketOrdinal, currentContext.docBase + docId, currentScorer.score());
+            return;
+        }
         TopDocsCollector topDocsCollector = topDocsCollectors.get(bucketOrdinal);
         if (topDocsCollector == null) {
             Sort sort = subSearchContext.sort();
@@ -142,7 +154,7 @@ public class TopHitsAggregator extends MetricsAggregator implements ScorerAware
 
     @Override
     protected void doClose() {
-        Releasables.close(topDocsCollectors);
+        Releasables.close(topDocsCollectors, topScoreDocs);
     }
 
     public static class Factory extends AggregatorFactory {
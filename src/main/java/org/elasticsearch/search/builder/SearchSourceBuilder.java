@@ -97,6 +97,12 @@ public class SearchSourceBuilder implements ToXContent {
 
     private boolean trackScores = false;
 
+    private Object[] searchAfter;
+
+    private String sliceField;
+    private int sliceId = -1;
+    private int sliceMax = -1;
+
     private Float minScore;
 
     private long timeoutInMillis = -1;
@@ -364,6 +370,37 @@ public class SearchSourceBuilder implements ToXContent {
         return this;
     }
 
+    /**
+     * Only returns the hits that sort after the given sort values, typically the sort values of the last hit of
+     * the previous page. Requires a sort, which should include a unique field (like <tt>_uid</tt>) as a tie
+     * breaker, since hits having the same sort values as the given ones are skipped.
+     */
+    public SearchSourceBuilder searchAfter(Object... sortValues) {
+        this.searchAfter = sortValues;
+        return this;
+    }
+
+    /**
+     * Restricts a scroll to the slice <tt>id</tt> out of <tt>max</tt> disjoint slices of the documents, so that
+     * several scrolls can consume the same result set in parallel. Documents are assigned to slices by their
+     * <tt>_uid</tt>.
+     */
+    public SearchSourceBuilder slice(int id, int max) {
+        return slice(null, id, max);
+    }
+
+    /**
+     * Restricts a scroll to the slice <tt>id</tt> out of <tt>max</tt> disjoint slices of the documents, assigning
+     * documents to slices by the terms of the given field. Only <tt>_uid</tt> is supported, since the slices are
+     * only disjoint and complete if every document has exactly one term in the field.
+     */
+    public SearchSourceBuilder slice(String field, int id, int max) {
+        this.sliceField = field;
+        this.sliceId = id;
+        this.sliceMax = max;
+        return this;
+    }
+
     /**
      * Add a facet to perform as part of the search.
      */
@@ -890,6 +927,24 @@ public class SearchSourceBuilder implements ToXContent {
             builder.endArray();
         }
 
+        if (searchAfter != null) {
+            builder.startArray("search_after");
+            for (Object sortValue : searchAfter) {
+                builder.value(sortValue);
+            }
+            builder.endArray();
+        }
+
+        if (sliceMax != -1) {
+            builder.startObject("slice");
+            if (sliceField != null) {
+                builder.field("field", sliceField);
+            }
+            builder.field("id", sliceId);
+            builder.field("max", sliceMax);
+            builder.endObject();
+        }
+
         if (trackScores) {
             builder.field("track_scores", trackScores);
         }
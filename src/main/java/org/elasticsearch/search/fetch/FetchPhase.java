@@ -22,7 +22,6 @@ package org.elasticsearch.search.fetch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.apache.lucene.index.AtomicReaderContext;
-import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.util.FixedBitSet;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
@@ -167,10 +166,18 @@ public class FetchPhase implements SearchPhase {
 
         InternalSearchHit[] hits = new InternalSearchHit[context.docIdsToLoadSize()];
         FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
-        for (int index = 0; index < context.docIdsToLoadSize(); index++) {
-            int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
-            int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
-            AtomicReaderContext subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
+        List<AtomicReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        long[] docIdsAndIndices = sortedDocIdsToLoad(context);
+        int readerIndex = 0;
+        for (long docIdAndIndex : docIdsAndIndices) {
+            int docId = (int) (docIdAndIndex >>> 32);
+            int index = (int) docIdAndIndex;
+            // doc ids are visited in increasing order, so the segment of the current doc is either the segment of the
+            // previous doc or a later one
+            while (docId >= leaves.get(readerIndex).docBase + leaves.get(readerIndex).reader().maxDoc()) {
+                readerIndex++;
+            }
+            AtomicReaderContext subReaderContext = leaves.get(readerIndex);
             int subDocId = docId - subReaderContext.docBase;
 
             final InternalSearchHit searchHit;
@@ -203,6 +210,22 @@ public class FetchPhase implements SearchPhase {
         context.fetchResult().hits(new InternalSearchHits(hits, context.queryResult().topDocs().totalHits, context.queryResult().topDocs().getMaxScore()));
     }
 
+    /**
+     * Returns the doc ids to load in increasing order, each one packed with its index in the hits to return (doc id
+     * in the upper 32 bits, index in the lower 32 bits). Loading stored fields in doc id order visits segments one
+     * after the other and reads their stored fields sequentially, so documents which share a compressed block
+     * don't cause random reads across the stored fields files when hits come in score or sort order.
+     */
+    private static long[] sortedDocIdsToLoad(SearchContext context) {
+        long[] docIdsAndIndices = new long[context.docIdsToLoadSize()];
+        for (int index = 0; index < docIdsAndIndices.length; index++) {
+            int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
+            docIdsAndIndices[index] = ((long) docId) << 32 | index;
+        }
+        Arrays.sort(docIdsAndIndices);
+        return docIdsAndIndices;
+    }
+
     private int findRootDocumentIfNested(SearchContext context, AtomicReaderContext subReaderContext, int subDocId) throws IOException {
         if (context.mapperService().hasNested()) {
             FixedBitSet nonNested = context.fixedBitSetFilterCache().getFixedBitSetFilter(NonNestedDocsFilter.INSTANCE).getDocIdSet(subReaderContext, null);
@@ -19,6 +19,12 @@
 package org.elasticsearch.search.fetch.fielddata;
 
 import com.google.common.collect.Lists;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.search.internal.SearchContext;
 
 import java.util.List;
 
@@ -30,6 +36,11 @@ public class FieldDataFieldsContext {
     public static class FieldDataField {
         private final String name;
 
+        private boolean resolved;
+        private IndexFieldData<?> indexFieldData;
+        private AtomicReader reader;
+        private ScriptDocValues values;
+
         public FieldDataField(String name) {
             this.name = name;
         }
@@ -37,6 +48,27 @@ public class FieldDataFieldsContext {
         public String name() {
             return name;
         }
+
+        /**
+         * Returns the values of this field for the given segment, or <tt>null</tt> if the field isn't mapped. The
+         * field is resolved once per request and its values are reused for all the hits of the same segment,
+         * which are fetched one after the other.
+         */
+        public ScriptDocValues values(SearchContext context, AtomicReaderContext readerContext) {
+            if (!resolved) {
+                FieldMapper<?> mapper = context.mapperService().smartNameFieldMapper(name);
+                indexFieldData = mapper == null ? null : context.fieldData().getForField(mapper);
+                resolved = true;
+            }
+            if (indexFieldData == null) {
+                return null;
+            }
+            if (reader != readerContext.reader()) {
+                values = indexFieldData.load(readerContext).getScriptValues();
+                reader = readerContext.reader();
+            }
+            return values;
+        }
     }
 
     private List<FieldDataField> fields = Lists.newArrayList();
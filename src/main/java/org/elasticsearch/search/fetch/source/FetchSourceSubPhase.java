@@ -24,7 +24,9 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
-import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.fetch.FetchSubPhase;
 import org.elasticsearch.search.internal.InternalSearchHit;
@@ -74,12 +76,21 @@ public class FetchSourceSubPhase implements FetchSubPhase {
         }
 
         SourceLookup source = context.lookup().source();
-        Object value = source.filter(fetchSourceContext.includes(), fetchSourceContext.excludes());
         try {
-            final int initialCapacity = Math.min(1024, source.internalSourceRef().length());
+            final int initialCapacity = source.internalSourceRef() == null ? 1024 : Math.min(1024, source.internalSourceRef().length());
             BytesStreamOutput streamOutput = new BytesStreamOutput(initialCapacity);
-            XContentBuilder builder = new XContentBuilder(context.lookup().source().sourceContentType().xContent(), streamOutput);
-            builder.value(value);
+            XContentBuilder builder;
+            if (source.source() == null && source.internalSourceRef() != null) {
+                // the source hasn't been parsed yet, filter it while parsing it instead of building a map of it
+                try (XContentParser parser = XContentHelper.createParser(source.internalSourceRef())) {
+                    builder = new XContentBuilder(parser.contentType().xContent(), streamOutput);
+                    XContentMapValues.filter(parser, builder, fetchSourceContext.includes(), fetchSourceContext.excludes());
+                }
+            } else {
+                Object value = source.filter(fetchSourceContext.includes(), fetchSourceContext.excludes());
+                builder = new XContentBuilder(source.sourceContentType().xContent(), streamOutput);
+                builder.value(value);
+            }
             hitContext.hit().sourceRef(builder.bytes());
         } catch (IOException e) {
             throw new ElasticsearchException("Error filtering source", e);
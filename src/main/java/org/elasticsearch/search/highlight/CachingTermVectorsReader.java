@@ -0,0 +1,54 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.highlight;
+
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.FilterAtomicReader;
+
+import java.io.IOException;
+
+/**
+ * Wraps a segment reader to keep the term vectors of the last requested document. Term vectors are decoded for
+ * all the fields of a document at once, so highlighting several fields (or matched fields) of the same hit only
+ * decodes them once instead of once per field.
+ */
+final class CachingTermVectorsReader extends FilterAtomicReader {
+
+    private int docId = -1;
+    private Fields termVectors;
+
+    CachingTermVectorsReader(AtomicReader in) {
+        super(in);
+    }
+
+    @Override
+    public Fields getTermVectors(int docID) throws IOException {
+        if (docID != docId) {
+            termVectors = super.getTermVectors(docID);
+            docId = docID;
+        }
+        return termVectors;
+    }
+
+    AtomicReader unwrap() {
+        return in;
+    }
+}
@@ -74,6 +74,9 @@ public class FastVectorHighlighter implements Highlighter {
             hitContext.cache().put(CACHE_KEY, new HighlighterEntry());
         }
         HighlighterEntry cache = (HighlighterEntry) hitContext.cache().get(CACHE_KEY);
+        if (cache.reader == null || cache.reader.unwrap() != hitContext.reader()) {
+            cache.reader = new CachingTermVectorsReader(hitContext.reader());
+        }
 
         try {
             FieldQuery fieldQuery;
@@ -145,13 +148,14 @@ public class FastVectorHighlighter implements Highlighter {
             // a HACK to make highlighter do highlighting, even though its using the single frag list builder
             int numberOfFragments = field.fieldOptions().numberOfFragments() == 0 ? Integer.MAX_VALUE : field.fieldOptions().numberOfFragments();
             int fragmentCharSize = field.fieldOptions().numberOfFragments() == 0 ? Integer.MAX_VALUE : field.fieldOptions().fragmentCharSize();
-            // we highlight against the low level reader and docId, because if we load source, we want to reuse it if possible
+            // we highlight against the low level reader and docId, because if we load source, we want to reuse it if possible,
+            // the reader keeps the term vectors of the hit so that they are only decoded once for all highlighted fields
             // Only send matched fields if they were requested to save time.
             if (field.fieldOptions().matchedFields() != null && !field.fieldOptions().matchedFields().isEmpty()) {
-                fragments = cache.fvh.getBestFragments(fieldQuery, hitContext.reader(), hitContext.docId(), mapper.names().indexName(), field.fieldOptions().matchedFields(), fragmentCharSize,
+                fragments = cache.fvh.getBestFragments(fieldQuery, cache.reader, hitContext.docId(), mapper.names().indexName(), field.fieldOptions().matchedFields(), fragmentCharSize,
                         numberOfFragments, entry.fragListBuilder, entry.fragmentsBuilder, field.fieldOptions().preTags(), field.fieldOptions().postTags(), encoder);
             } else {
-                fragments = cache.fvh.getBestFragments(fieldQuery, hitContext.reader(), hitContext.docId(), mapper.names().indexName(), fragmentCharSize,
+                fragments = cache.fvh.getBestFragments(fieldQuery, cache.reader, hitContext.docId(), mapper.names().indexName(), fragmentCharSize,
                         numberOfFragments, entry.fragListBuilder, entry.fragmentsBuilder, field.fieldOptions().preTags(), field.fieldOptions().postTags(), encoder);
             }
 
@@ -164,7 +168,7 @@ public class FastVectorHighlighter implements Highlighter {
                 // Essentially we just request that a fragment is built from 0 to noMatchSize using the normal fragmentsBuilder
                 FieldFragList fieldFragList = new SimpleFieldFragList(-1 /*ignored*/);
                 fieldFragList.add(0, noMatchSize, Collections.<WeightedPhraseInfo>emptyList());
-                fragments = entry.fragmentsBuilder.createFragments(hitContext.reader(), hitContext.docId(), mapper.names().indexName(),
+                fragments = entry.fragmentsBuilder.createFragments(cache.reader, hitContext.docId(), mapper.names().indexName(),
                         fieldFragList, 1, field.fieldOptions().preTags(), field.fieldOptions().postTags(), encoder);
                 if (fragments != null && fragments.length > 0) {
                     return new HighlightField(highlighterContext.fieldName, StringText.convertFromStringArray(fragments));
@@ -190,5 +194,6 @@ public class FastVectorHighlighter implements Highlighter {
         public FieldQuery noFieldMatchFieldQuery;
         public FieldQuery fieldMatchFieldQuery;
         public Map<FieldMapper, MapperHighlightEntry> mappers = Maps.newHashMap();
+        CachingTermVectorsReader reader;
     }
 }
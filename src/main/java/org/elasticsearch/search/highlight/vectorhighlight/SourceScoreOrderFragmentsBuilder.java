@@ -20,7 +20,6 @@ package org.elasticsearch.search.highlight.vectorhighlight;
 
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.highlight.Encoder;
 import org.apache.lucene.search.vectorhighlight.BoundaryScanner;
@@ -55,9 +54,10 @@ public class SourceScoreOrderFragmentsBuilder extends ScoreOrderFragmentsBuilder
 
     @Override
     protected Field[] getFields(IndexReader reader, int docId, String fieldName) throws IOException {
-        // we know its low level reader, and matching docId, since that's how we call the highlighter with
+        // we know its low level reader, and matching docId, since that's how we call the highlighter with, but
+        // the reader may wrap the segment reader so we use the segment of the hit to reuse its loaded source
         SearchLookup lookup = searchContext.lookup();
-        lookup.setNextReader((AtomicReaderContext) reader.getContext());
+        lookup.setNextReader(hitContext.readerContext());
         lookup.setNextDocId(docId);
 
         List<Object> values = lookup.source().extractRawValues(hitContext.getSourcePath(mapper.names().sourcePath()));
@@ -151,6 +151,10 @@ public class DefaultSearchContext extends SearchContext {
 
     private boolean trackScores = false; // when sorting, track scores as well...
 
+    private Object[] searchAfter;
+
+    private Filter sliceFilter;
+
     private ParsedQuery originalQuery;
 
     private Query query;
@@ -238,6 +242,21 @@ public class DefaultSearchContext extends SearchContext {
             }
         }
 
+        if (searchAfter != null) {
+            if (sort == null) {
+                throw new QueryPhaseExecutionException(this, "[search_after] requires a sort");
+            }
+            if (from() > 0) {
+                throw new QueryPhaseExecutionException(this, "[from] must be 0 when [search_after] is used");
+            }
+            if (scroll != null) {
+                throw new QueryPhaseExecutionException(this, "[search_after] can't be used with scroll");
+            }
+        }
+        if (sliceFilter != null && scroll == null) {
+            throw new QueryPhaseExecutionException(this, "[slice] can only be used with scroll");
+        }
+
         if (query() == null) {
             parsedQuery(ParsedQuery.parsedMatchAllQuery());
         }
@@ -254,6 +273,10 @@ public class DefaultSearchContext extends SearchContext {
                 parsedQuery(new ParsedQuery(new XFilteredQuery(query(), searchFilter), parsedQuery()));
             }
         }
+        if (sliceFilter != null) {
+            // the slice is cached per segment so that the terms aren't walked again on every scroll page
+            parsedQuery(new ParsedQuery(new XFilteredQuery(query(), filterCache().cache(sliceFilter)), parsedQuery()));
+        }
     }
 
     public Filter searchFilter(String[] types) {
@@ -535,6 +558,28 @@ public class DefaultSearchContext extends SearchContext {
         return this.trackScores;
     }
 
+    @Override
+    public SearchContext searchAfter(Object[] searchAfter) {
+        this.searchAfter = searchAfter;
+        return this;
+    }
+
+    @Override
+    public Object[] searchAfter() {
+        return searchAfter;
+    }
+
+    @Override
+    public SearchContext sliceFilter(Filter sliceFilter) {
+        this.sliceFilter = sliceFilter;
+        return this;
+    }
+
+    @Override
+    public Filter sliceFilter() {
+        return sliceFilter;
+    }
+
     public SearchContext parsedPostFilter(ParsedFilter postFilter) {
         this.postFilter = postFilter;
         return this;
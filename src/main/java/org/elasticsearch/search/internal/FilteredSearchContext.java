@@ -386,6 +386,26 @@ public abstract class FilteredSearchContext extends SearchContext {
         return in.trackScores();
     }
 
+    @Override
+    public SearchContext searchAfter(Object[] searchAfter) {
+        return in.searchAfter(searchAfter);
+    }
+
+    @Override
+    public Object[] searchAfter() {
+        return in.searchAfter();
+    }
+
+    @Override
+    public SearchContext sliceFilter(Filter sliceFilter) {
+        return in.sliceFilter(sliceFilter);
+    }
+
+    @Override
+    public Filter sliceFilter() {
+        return in.sliceFilter();
+    }
+
     @Override
     public SearchContext parsedPostFilter(ParsedFilter postFilter) {
         return in.parsedPostFilter(postFilter);
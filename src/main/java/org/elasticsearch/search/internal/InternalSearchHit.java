@@ -29,6 +29,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -47,8 +48,10 @@ import org.elasticsearch.search.highlight.HighlightField;
 import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.elasticsearch.common.lucene.Lucene.readExplanation;
@@ -65,6 +68,9 @@ public class InternalSearchHit implements SearchHit {
     private static final Object[] EMPTY_SORT_VALUES = new Object[0];
     private static final Text MAX_TERM_AS_TEXT = new StringAndBytesText(BytesRefFieldComparatorSource.MAX_TERM.utf8ToString());
 
+    // the initial size of the output the values of the fields of a hit are serialized into, fields are usually small
+    static final int FIELDS_OUT_EXPECTED_SIZE = 256;
+
     private transient int docId;
 
     private float score = Float.NEGATIVE_INFINITY;
@@ -78,7 +84,9 @@ public class InternalSearchHit implements SearchHit {
 
     private BytesReference source;
 
-    private Map<String, SearchHitField> fields = ImmutableMap.of();
+    private volatile Map<String, SearchHitField> fields = ImmutableMap.of();
+    // the fields as received from the shard, decoded on first access, see #decodeFields()
+    private volatile SerializedFields serializedFields;
 
     private Map<String, HighlightField> highlightFields = null;
 
@@ -281,6 +289,7 @@ public class InternalSearchHit implements SearchHit {
 
     @Override
     public Iterator<SearchHitField> iterator() {
+        decodeFields();
         return fields.values().iterator();
     }
 
@@ -291,6 +300,7 @@ public class InternalSearchHit implements SearchHit {
 
     @Override
     public Map<String, SearchHitField> fields() {
+        decodeFields();
         if (fields == null) {
             return ImmutableMap.of();
         }
@@ -299,6 +309,7 @@ public class InternalSearchHit implements SearchHit {
 
     // returns the fields without handling null cases
     public Map<String, SearchHitField> fieldsOrNull() {
+        decodeFields();
         return this.fields;
     }
 
@@ -309,6 +320,28 @@ public class InternalSearchHit implements SearchHit {
 
     public void fields(Map<String, SearchHitField> fields) {
         this.fields = fields;
+        this.serializedFields = null;
+    }
+
+    /**
+     * Decodes the fields received from the shard if they haven't been accessed yet. Fields are kept serialized until
+     * then, so that hits whose fields are only passed on to another node are not deserialized and serialized again.
+     */
+    private void decodeFields() {
+        SerializedFields serializedFields = this.serializedFields;
+        if (serializedFields == null) {
+            return;
+        }
+        Map<String, SearchHitField> fields;
+        try {
+            fields = serializedFields.decode();
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("failed to read fields of search hit [" + id + "]", e);
+        }
+        // the decoded fields are published before the serialized ones are dropped, so that a thread that sees the
+        // latter dropped sees the former too, threads decoding concurrently decode the same fields
+        this.fields = fields;
+        this.serializedFields = null;
     }
 
     public Map<String, HighlightField> internalHighlightFields() {
@@ -455,6 +488,7 @@ public class InternalSearchHit implements SearchHit {
         if (source != null) {
             XContentHelper.writeRawField("_source", source, builder, params);
         }
+        decodeFields();
         if (fields != null && !fields.isEmpty()) {
             builder.startObject(Fields.FIELDS);
             for (SearchHitField field : fields.values()) {
@@ -542,6 +576,21 @@ public class InternalSearchHit implements SearchHit {
         builder.endObject();
     }
 
+    /**
+     * Returns the serialized values of the fields as they were received, or <tt>null</tt> if they have been decoded.
+     */
+    BytesReference serializedFields() {
+        SerializedFields serializedFields = this.serializedFields;
+        return serializedFields == null ? null : serializedFields.values;
+    }
+
+    private static void writeFields(StreamOutput out, Map<String, SearchHitField> fields) throws IOException {
+        out.writeVInt(fields.size());
+        for (SearchHitField hitField : fields.values()) {
+            hitField.writeTo(out);
+        }
+    }
+
     public static InternalSearchHit readSearchHit(StreamInput in, InternalSearchHits.StreamContext context) throws IOException {
         InternalSearchHit hit = new InternalSearchHit();
         hit.readFrom(in, context);
@@ -568,44 +617,22 @@ public class InternalSearchHit implements SearchHit {
         if (in.readBoolean()) {
             explanation = readExplanation(in);
         }
-        int size = in.readVInt();
-        if (size == 0) {
-            fields = ImmutableMap.of();
-        } else if (size == 1) {
-            SearchHitField hitField = readSearchHitField(in);
-            fields = ImmutableMap.of(hitField.name(), hitField);
-        } else if (size == 2) {
-            SearchHitField hitField1 = readSearchHitField(in);
-            SearchHitField hitField2 = readSearchHitField(in);
-            fields = ImmutableMap.of(hitField1.name(), hitField1, hitField2.name(), hitField2);
-        } else if (size == 3) {
-            SearchHitField hitField1 = readSearchHitField(in);
-            SearchHitField hitField2 = readSearchHitField(in);
-            SearchHitField hitField3 = readSearchHitField(in);
-            fields = ImmutableMap.of(hitField1.name(), hitField1, hitField2.name(), hitField2, hitField3.name(), hitField3);
-        } else if (size == 4) {
-            SearchHitField hitField1 = readSearchHitField(in);
-            SearchHitField hitField2 = readSearchHitField(in);
-            SearchHitField hitField3 = readSearchHitField(in);
-            SearchHitField hitField4 = readSearchHitField(in);
-            fields = ImmutableMap.of(hitField1.name(), hitField1, hitField2.name(), hitField2, hitField3.name(), hitField3, hitField4.name(), hitField4);
-        } else if (size == 5) {
-            SearchHitField hitField1 = readSearchHitField(in);
-            SearchHitField hitField2 = readSearchHitField(in);
-            SearchHitField hitField3 = readSearchHitField(in);
-            SearchHitField hitField4 = readSearchHitField(in);
-            SearchHitField hitField5 = readSearchHitField(in);
-            fields = ImmutableMap.of(hitField1.name(), hitField1, hitField2.name(), hitField2, hitField3.name(), hitField3, hitField4.name(), hitField4, hitField5.name(), hitField5);
-        } else {
-            ImmutableMap.Builder<String, SearchHitField> builder = ImmutableMap.builder();
-            for (int i = 0; i < size; i++) {
-                SearchHitField hitField = readSearchHitField(in);
-                builder.put(hitField.name(), hitField);
+        if (in.getVersion().onOrAfter(Version.V_1_5_0)) {
+            int size = in.readVInt();
+            if (size == 0) {
+                fields = ImmutableMap.of();
+            } else {
+                String[] names = new String[size];
+                for (int i = 0; i < size; i++) {
+                    names[i] = in.readSharedString();
+                }
+                serializedFields = new SerializedFields(names, in.readBytesReference(), in.getVersion());
             }
-            fields = builder.build();
+        } else {
+            fields = readFields(in);
         }
 
-        size = in.readVInt();
+        int size = in.readVInt();
         if (size == 0) {
             highlightFields = ImmutableMap.of();
         } else if (size == 1) {
@@ -698,12 +725,59 @@ public class InternalSearchHit implements SearchHit {
         }
     }
 
+    private static Map<String, SearchHitField> readFields(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        if (size == 0) {
+            return ImmutableMap.of();
+        } else if (size == 1) {
+            SearchHitField hitField = readSearchHitField(in);
+            return ImmutableMap.of(hitField.name(), hitField);
+        } else if (size == 2) {
+            SearchHitField hitField1 = readSearchHitField(in);
+            SearchHitField hitField2 = readSearchHitField(in);
+            return ImmutableMap.of(hitField1.name(), hitField1, hitField2.name(), hitField2);
+        } else if (size == 3) {
+            SearchHitField hitField1 = readSearchHitField(in);
+            SearchHitField hitField2 = readSearchHitField(in);
+            SearchHitField hitField3 = readSearchHitField(in);
+            return ImmutableMap.of(hitField1.name(), hitField1, hitField2.name(), hitField2, hitField3.name(), hitField3);
+        } else if (size == 4) {
+            SearchHitField hitField1 = readSearchHitField(in);
+            SearchHitField hitField2 = readSearchHitField(in);
+            SearchHitField hitField3 = readSearchHitField(in);
+            SearchHitField hitField4 = readSearchHitField(in);
+            return ImmutableMap.of(hitField1.name(), hitField1, hitField2.name(), hitField2, hitField3.name(), hitField3, hitField4.name(), hitField4);
+        } else if (size == 5) {
+            SearchHitField hitField1 = readSearchHitField(in);
+            SearchHitField hitField2 = readSearchHitField(in);
+            SearchHitField hitField3 = readSearchHitField(in);
+            SearchHitField hitField4 = readSearchHitField(in);
+            SearchHitField hitField5 = readSearchHitField(in);
+            return ImmutableMap.of(hitField1.name(), hitField1, hitField2.name(), hitField2, hitField3.name(), hitField3, hitField4.name(), hitField4, hitField5.name(), hitField5);
+        } else {
+            ImmutableMap.Builder<String, SearchHitField> builder = ImmutableMap.builder();
+            for (int i = 0; i < size; i++) {
+                SearchHitField hitField = readSearchHitField(in);
+                builder.put(hitField.name(), hitField);
+            }
+            return builder.build();
+        }
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         writeTo(out, InternalSearchHits.streamContext().streamShardTarget(InternalSearchHits.StreamContext.ShardTargetType.STREAM));
     }
 
     public void writeTo(StreamOutput out, InternalSearchHits.StreamContext context) throws IOException {
+        writeTo(out, context, null);
+    }
+
+    /**
+     * @param fieldsOut a scratch output the fields are serialized into before they are written to <tt>out</tt>, which
+     *                  is reset before being used, or <tt>null</tt> to allocate one when needed
+     */
+    void writeTo(StreamOutput out, InternalSearchHits.StreamContext context, @Nullable BytesStreamOutput fieldsOut) throws IOException {
         out.writeFloat(score);
         out.writeText(id);
         out.writeSharedText(type);
@@ -718,13 +792,37 @@ public class InternalSearchHit implements SearchHit {
             out.writeBoolean(true);
             writeExplanation(out, explanation);
         }
-        if (fields == null) {
-            out.writeVInt(0);
-        } else {
-            out.writeVInt(fields.size());
-            for (SearchHitField hitField : fields().values()) {
-                hitField.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_1_5_0)) {
+            SerializedFields serializedFields = this.serializedFields;
+            if (serializedFields != null && serializedFields.version.equals(out.getVersion())) {
+                // pass the fields on as they were received
+                serializedFields.writeTo(out);
+            } else {
+                Map<String, SearchHitField> fields = fields();
+                out.writeVInt(fields.size());
+                if (!fields.isEmpty()) {
+                    // the names are written to out so that they are shared across hits, the values are serialized on
+                    // their own so that the receiving node can skip them until they are accessed
+                    for (SearchHitField hitField : fields.values()) {
+                        out.writeSharedString(hitField.name());
+                    }
+                    if (fieldsOut == null) {
+                        fieldsOut = new BytesStreamOutput(FIELDS_OUT_EXPECTED_SIZE);
+                    } else {
+                        fieldsOut.reset();
+                    }
+                    fieldsOut.setVersion(out.getVersion());
+                    for (SearchHitField hitField : fields.values()) {
+                        fieldsOut.writeVInt(hitField.values().size());
+                        for (Object value : hitField.values()) {
+                            fieldsOut.writeGenericValue(value);
+                        }
+                    }
+                    out.writeBytesReference(fieldsOut.bytes());
+                }
             }
+        } else {
+            writeFields(out, fields());
         }
         if (highlightFields == null) {
             out.writeVInt(0);
@@ -884,4 +982,43 @@ public class InternalSearchHit implements SearchHit {
         }
     }
 
+    /**
+     * The fields of a hit as received from the shard: their names, read from the stream of the hits, and their
+     * values, kept serialized until they are accessed.
+     */
+    private static final class SerializedFields {
+
+        final String[] names;
+        final BytesReference values;
+        final Version version;
+
+        SerializedFields(String[] names, BytesReference values, Version version) {
+            this.names = names;
+            this.values = values;
+            this.version = version;
+        }
+
+        Map<String, SearchHitField> decode() throws IOException {
+            StreamInput in = values.streamInput();
+            in.setVersion(version);
+            ImmutableMap.Builder<String, SearchHitField> builder = ImmutableMap.builder();
+            for (String name : names) {
+                int size = in.readVInt();
+                List<Object> fieldValues = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    fieldValues.add(in.readGenericValue());
+                }
+                builder.put(name, new InternalSearchHitField(name, fieldValues));
+            }
+            return builder.build();
+        }
+
+        void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(names.length);
+            for (String name : names) {
+                out.writeSharedString(name);
+            }
+            out.writeBytesReference(values);
+        }
+    }
 }
\ No newline at end of file
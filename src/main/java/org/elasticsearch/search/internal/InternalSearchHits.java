@@ -21,6 +21,7 @@ package org.elasticsearch.search.internal;
 
 import com.carrotsearch.hppc.IntObjectOpenHashMap;
 import com.google.common.collect.Iterators;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -255,8 +256,10 @@ public class InternalSearchHits implements SearchHits {
                 }
             }
 
+            // shared by the hits to serialize their fields into
+            BytesStreamOutput fieldsOut = new BytesStreamOutput(InternalSearchHit.FIELDS_OUT_EXPECTED_SIZE);
             for (InternalSearchHit hit : hits) {
-                hit.writeTo(out, context);
+                hit.writeTo(out, context, fieldsOut);
             }
         }
     }
@@ -254,6 +254,20 @@ public abstract class SearchContext implements Releasable {
 
     public abstract boolean trackScores();
 
+    /**
+     * The sort values of the last hit of the previous page, only the hits sorting after them are returned.
+     */
+    public abstract SearchContext searchAfter(Object[] searchAfter);
+
+    public abstract Object[] searchAfter();
+
+    /**
+     * The filter restricting a scroll to one of its slices.
+     */
+    public abstract SearchContext sliceFilter(Filter sliceFilter);
+
+    public abstract Filter sliceFilter();
+
     public abstract SearchContext parsedPostFilter(ParsedFilter postFilter);
 
     public abstract ParsedFilter parsedPostFilter();
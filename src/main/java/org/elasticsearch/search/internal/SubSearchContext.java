@@ -214,6 +214,26 @@ public class SubSearchContext extends FilteredSearchContext {
         return trackScores;
     }
 
+    @Override
+    public SearchContext searchAfter(Object[] searchAfter) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    public Object[] searchAfter() {
+        return null;
+    }
+
+    @Override
+    public SearchContext sliceFilter(Filter sliceFilter) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    public Filter sliceFilter() {
+        return null;
+    }
+
     @Override
     public SearchContext parsedPostFilter(ParsedFilter postFilter) {
         throw new UnsupportedOperationException("Not supported");
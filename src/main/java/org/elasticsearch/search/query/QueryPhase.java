@@ -20,6 +20,7 @@
 package org.elasticsearch.search.query;
 
 import com.google.common.collect.ImmutableMap;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopDocs;
@@ -35,6 +36,7 @@ import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.rescore.RescorePhase;
 import org.elasticsearch.search.rescore.RescoreSearchContext;
+import org.elasticsearch.search.slice.SliceParseElement;
 import org.elasticsearch.search.sort.SortParseElement;
 import org.elasticsearch.search.sort.TrackScoresParseElement;
 import org.elasticsearch.search.suggest.SuggestPhase;
@@ -74,6 +76,9 @@ public class QueryPhase implements SearchPhase {
                 .put("filterBinary", new FilterBinaryParseElement())
                 .put("filter_binary", new FilterBinaryParseElement())
                 .put("sort", new SortParseElement())
+                .put("search_after", new SearchAfterParseElement())
+                .put("searchAfter", new SearchAfterParseElement())
+                .put("slice", new SliceParseElement())
                 .put("trackScores", new TrackScoresParseElement())
                 .put("track_scores", new TrackScoresParseElement())
                 .put("min_score", new MinScoreParseElement())
@@ -146,7 +151,11 @@ public class QueryPhase implements SearchPhase {
                         }
                     }
                 } else {
-                    if (searchContext.sort() != null) {
+                    if (searchContext.searchAfter() != null) {
+                        FieldDoc after = SearchAfterParseElement.buildFieldDoc(searchContext.sort(), searchContext.searchAfter());
+                        topDocs = searchContext.searcher().searchAfter(after, query, null, numDocs, searchContext.sort(),
+                                searchContext.trackScores(), searchContext.trackScores());
+                    } else if (searchContext.sort() != null) {
                         topDocs = searchContext.searcher().search(query, null, numDocs, searchContext.sort(),
                                 searchContext.trackScores(), searchContext.trackScores());
                     } else {
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.search.SearchParseElement;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser element for 'search_after', the sort values of the last hit of the previous page:
+ * <pre>
+ * "search_after" : [1425340800000, "type#id"]
+ * </pre>
+ */
+public class SearchAfterParseElement implements SearchParseElement {
+
+    @Override
+    public void parse(XContentParser parser, SearchContext context) throws Exception {
+        XContentParser.Token token = parser.currentToken();
+        if (token != XContentParser.Token.START_ARRAY) {
+            throw new ElasticsearchParseException("[search_after] must be an array of sort values");
+        }
+        List<Object> values = new ArrayList<>();
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.VALUE_NUMBER) {
+                values.add(parser.numberValue());
+            } else if (token == XContentParser.Token.VALUE_STRING) {
+                values.add(parser.text());
+            } else if (token == XContentParser.Token.VALUE_BOOLEAN) {
+                values.add(parser.booleanValue());
+            } else if (token == XContentParser.Token.VALUE_NULL) {
+                values.add(null);
+            } else {
+                throw new ElasticsearchParseException("[search_after] values must be numbers, strings, booleans or null, got [" + token + "]");
+            }
+        }
+        context.searchAfter(values.toArray());
+    }
+
+    /**
+     * Converts the sort values of the <tt>search_after</tt> element into the {@link FieldDoc} to resume the search
+     * after. The doc id is set to {@link Integer#MAX_VALUE} so that all hits having these exact sort values are
+     * considered as already returned.
+     */
+    public static FieldDoc buildFieldDoc(Sort sort, Object[] values) {
+        SortField[] sortFields = sort.getSort();
+        if (sortFields.length != values.length) {
+            throw new ElasticsearchIllegalArgumentException("[search_after] has " + values.length + " value(s) but the sort has "
+                    + sortFields.length + " field(s)");
+        }
+        Object[] fieldValues = new Object[values.length];
+        for (int i = 0; i < sortFields.length; i++) {
+            fieldValues[i] = convertValue(sortFields[i], values[i]);
+        }
+        return new FieldDoc(Integer.MAX_VALUE, Float.NaN, fieldValues);
+    }
+
+    private static Object convertValue(SortField sortField, Object value) {
+        SortField.Type type = sortField.getType();
+        if (type == SortField.Type.CUSTOM && sortField.getComparatorSource() instanceof IndexFieldData.XFieldComparatorSource) {
+            type = ((IndexFieldData.XFieldComparatorSource) sortField.getComparatorSource()).reducedType();
+        }
+        if (value == null) {
+            if (type == SortField.Type.STRING || type == SortField.Type.STRING_VAL) {
+                // missing string values are represented as null
+                return null;
+            }
+            throw new ElasticsearchIllegalArgumentException("[search_after] doesn't support null values for sort field [" + sortField + "]");
+        }
+        try {
+            switch (type) {
+                case STRING:
+                case STRING_VAL:
+                    return new BytesRef(value.toString());
+                case SCORE:
+                case FLOAT:
+                    return value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(value.toString());
+                case DOUBLE:
+                    return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+                case DOC:
+                case INT:
+                    return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString());
+                case LONG:
+                    return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+                default:
+                    throw new ElasticsearchIllegalArgumentException("[search_after] doesn't support sort field [" + sortField + "]");
+            }
+        } catch (NumberFormatException e) {
+            throw new ElasticsearchIllegalArgumentException("[search_after] value [" + value + "] doesn't match the type of sort field [" + sortField + "]", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.slice;
+
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.search.SearchParseElement;
+import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.internal.SearchContext;
+
+/**
+ * Parser element for 'slice', which restricts a scroll to one of <tt>max</tt> disjoint slices of the documents.
+ * Documents are assigned to slices by their <tt>_uid</tt>, the only field supported:
+ * <pre>
+ * "slice" : {
+ *     "field" : "_uid",
+ *     "id" : 0,
+ *     "max" : 4
+ * }
+ * </pre>
+ */
+public class SliceParseElement implements SearchParseElement {
+
+    @Override
+    public void parse(XContentParser parser, SearchContext context) throws Exception {
+        String field = UidFieldMapper.NAME;
+        int id = -1;
+        int max = -1;
+
+        XContentParser.Token token;
+        String currentFieldName = null;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if ("field".equals(currentFieldName)) {
+                    field = parser.text();
+                } else if ("id".equals(currentFieldName)) {
+                    id = parser.intValue();
+                } else if ("max".equals(currentFieldName)) {
+                    max = parser.intValue();
+                } else {
+                    throw new SearchParseException(context, "[slice] does not support [" + currentFieldName + "]");
+                }
+            }
+        }
+
+        if (max <= 1) {
+            throw new SearchParseException(context, "[slice] max must be greater than 1");
+        }
+        if (id < 0 || id >= max) {
+            throw new SearchParseException(context, "[slice] id must be greater than or equal to 0 and lower than max");
+        }
+        FieldMapper<?> mapper = context.smartNameFieldMapper(field);
+        if (mapper == null) {
+            throw new SearchParseException(context, "No mapping found for [" + field + "] to slice on");
+        }
+        // slices are only disjoint and complete if every document has exactly one term in the field, which
+        // numeric (several precision terms), analyzed, multi-valued or missing values would all break
+        if (!UidFieldMapper.NAME.equals(mapper.names().indexName())) {
+            throw new SearchParseException(context, "[slice] can only be used on [" + UidFieldMapper.NAME + "], got [" + field + "]");
+        }
+        context.sliceFilter(new TermsSliceFilter(mapper.names().indexName(), id, max));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.slice;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.StringHelper;
+
+import java.io.IOException;
+
+/**
+ * A filter that partitions the documents of an index into <tt>max</tt> slices by hashing the terms of a field,
+ * and only matches the documents of slice <tt>id</tt>. The field must have exactly one term per document (like
+ * <tt>_uid</tt>) for the slices to be disjoint and complete, see {@link SliceParseElement}. Since the partitioning only
+ * depends on the terms, the slices of the same point in time view are stable across requests.
+ */
+public class TermsSliceFilter extends Filter {
+
+    static final int SEED = 7919;
+
+    private final String field;
+    private final int id;
+    private final int max;
+
+    public TermsSliceFilter(String field, int id, int max) {
+        this.field = field;
+        this.id = id;
+        this.max = max;
+    }
+
+    @Override
+    public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
+        Terms terms = context.reader().terms(field);
+        if (terms == null) {
+            return null;
+        }
+        FixedBitSet bits = null;
+        TermsEnum termsEnum = terms.iterator(null);
+        DocsEnum docsEnum = null;
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+            if (slice(term, max) != id) {
+                continue;
+            }
+            docsEnum = termsEnum.docs(acceptDocs, docsEnum, DocsEnum.FLAG_NONE);
+            if (bits == null) {
+                bits = new FixedBitSet(context.reader().maxDoc());
+            }
+            for (int doc = docsEnum.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docsEnum.nextDoc()) {
+                bits.set(doc);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * @return the slice the given term belongs to
+     */
+    static int slice(BytesRef term, int max) {
+        return Math.abs(StringHelper.murmurhash3_x86_32(term, SEED) % max);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TermsSliceFilter that = (TermsSliceFilter) o;
+        return id == that.id && max == that.max && field.equals(that.field);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = field.hashCode();
+        result = 31 * result + id;
+        result = 31 * result + max;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "slice(" + field + ", id=" + id + ", max=" + max + ")";
+    }
+}
@@ -26,11 +26,13 @@ import org.apache.lucene.index.FilterAtomicReader.FilterTerms;
 import org.apache.lucene.search.suggest.Lookup;
 import org.apache.lucene.store.IOContext.Context;
 import org.apache.lucene.store.*;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.ElasticsearchIllegalStateException;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.mapper.core.CompletionFieldMapper;
 import org.elasticsearch.search.suggest.completion.CompletionTokenStream.ToFiniteStrings;
 
@@ -40,6 +42,8 @@ import java.io.IOException;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This {@link PostingsFormat} is basically a T-Sink for a default postings
@@ -207,7 +211,10 @@ public class Completion090PostingsFormat extends PostingsFormat {
 
         private final FieldsProducer delegateProducer;
         private final LookupFactory lookupFactory;
+        private final CompletionLookupProvider completionLookupProvider;
         private final int version;
+        // tracks the surface forms of deleted documents per field, see CompletionTerms#deletedSurfaceForms
+        private final ConcurrentMap<String, DeletedSurfaceForms> deletedSurfaceForms = ConcurrentCollections.newConcurrentMap();
 
         public CompletionFieldsProducer(SegmentReadState state) throws IOException {
             String suggestFSTFile = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, EXTENSION);
@@ -237,6 +244,7 @@ public class Completion090PostingsFormat extends PostingsFormat {
                     this.lookupFactory = null;
                 }
                 this.delegateProducer = delegateProducer;
+                this.completionLookupProvider = completionLookupProvider;
                 success = true;
             } finally {
                 if (!success) {
@@ -263,7 +271,15 @@ public class Completion090PostingsFormat extends PostingsFormat {
             if (terms == null || lookupFactory == null) {
                 return terms;
             }
-            return new CompletionTerms(terms, lookupFactory);
+            DeletedSurfaceForms deleted = deletedSurfaceForms.get(field);
+            if (deleted == null) {
+                deleted = new DeletedSurfaceForms();
+                DeletedSurfaceForms existing = deletedSurfaceForms.putIfAbsent(field, deleted);
+                if (existing != null) {
+                    deleted = existing;
+                }
+            }
+            return new CompletionTerms(terms, lookupFactory, completionLookupProvider, deleted);
         }
 
         @Override
@@ -284,10 +300,14 @@ public class Completion090PostingsFormat extends PostingsFormat {
 
     public static final class CompletionTerms extends FilterTerms {
         private final LookupFactory lookup;
+        private final PayloadProcessor payloadProcessor;
+        private final DeletedSurfaceForms deletedSurfaceForms;
 
-        public CompletionTerms(Terms delegate, LookupFactory lookup) {
+        CompletionTerms(Terms delegate, LookupFactory lookup, PayloadProcessor payloadProcessor, DeletedSurfaceForms deletedSurfaceForms) {
             super(delegate);
             this.lookup = lookup;
+            this.payloadProcessor = payloadProcessor;
+            this.deletedSurfaceForms = deletedSurfaceForms;
         }
 
         public Lookup getLookup(CompletionFieldMapper mapper, CompletionSuggestionContext suggestionContext) {
@@ -297,6 +317,16 @@ public class Completion090PostingsFormat extends PostingsFormat {
         public CompletionStats stats(String ... fields) {
             return lookup.stats(fields);
         }
+
+        /**
+         * Returns the surface forms that are only indexed by deleted documents. The lookup of a segment is built at
+         * flush time and still returns the suggestions of deleted documents until the segment gets merged away,
+         * so these have to be filtered out of its results. The surface forms of the documents are loaded once per
+         * segment, later deletes only look at the documents deleted since the last live docs.
+         */
+        public Set<String> deletedSurfaceForms(Bits liveDocs) throws IOException {
+            return deletedSurfaceForms.get(liveDocs, this, payloadProcessor);
+        }
     }
 
     public static abstract class CompletionLookupProvider implements PayloadProcessor, ToFiniteStrings {
@@ -40,11 +40,17 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class CompletionSuggester extends Suggester<CompletionSuggestionContext> {
 
     private static final ScoreComparator scoreComparator = new ScoreComparator();
 
+    /**
+     * The lookup of a segment may return at most this many suggestions of deleted documents on top of the requested
+     * size, deleted suggestions beyond that may make a segment return less than the requested number of suggestions.
+     */
+    private static final int MAX_DELETED_OVERFETCH = 1000;
 
     @Override
     protected Suggest.Suggestion<? extends Suggest.Suggestion.Entry<? extends Suggest.Suggestion.Entry.Option>> innerExecute(String name,
@@ -63,6 +69,10 @@ public class CompletionSuggester extends Suggester<CompletionSuggestionContext>
         Map<String, CompletionSuggestion.Entry.Option> results = Maps.newHashMapWithExpectedSize(indexReader.leaves().size() * suggestionContext.getSize());
         for (AtomicReaderContext atomicReaderContext : indexReader.leaves()) {
             AtomicReader atomicReader = atomicReaderContext.reader();
+            if (atomicReader.numDocs() == 0) {
+                // all documents of this segment are deleted, its lookup would only return stale suggestions
+                continue;
+            }
             Terms terms = atomicReader.fields().terms(fieldName);
             if (terms instanceof Completion090PostingsFormat.CompletionTerms) {
                 final Completion090PostingsFormat.CompletionTerms lookupTerms = (Completion090PostingsFormat.CompletionTerms) terms;
@@ -72,10 +82,16 @@ public class CompletionSuggester extends Suggester<CompletionSuggestionContext>
                     // docs from the segment that had a value in this segment.
                     continue;
                 }
-                List<Lookup.LookupResult> lookupResults = lookup.lookup(spare.get(), false, suggestionContext.getSize());
+                // only the documents deleted since the last refresh are looked at, see DeletedSurfaceForms
+                final Set<String> deleted = lookupTerms.deletedSurfaceForms(atomicReader.getLiveDocs());
+                final int num = suggestionContext.getSize() + Math.min(deleted.size(), MAX_DELETED_OVERFETCH);
+                List<Lookup.LookupResult> lookupResults = lookup.lookup(spare.get(), false, num);
                 for (Lookup.LookupResult res : lookupResults) {
 
                     final String key = res.key.toString();
+                    if (deleted.contains(key)) {
+                        continue;
+                    }
                     final float score = res.value;
                     final Option value = results.get(key);
                     if (value == null) {
@@ -0,0 +1,209 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.suggest.completion;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.lucene.index.DocsAndPositionsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks the surface forms of a completion field of a segment that are only indexed by deleted documents. The
+ * surface forms of each document are loaded from the postings payloads once, the first time deleted suggestions
+ * are asked for. After that, new live docs of the segment are diffed against the last ones, so that only the
+ * documents deleted in between are looked at rather than all the postings of the field.
+ */
+final class DeletedSurfaceForms {
+
+    /*
+     * The deleted surface forms per live docs instance. The live docs of a segment are replaced on every refresh
+     * that sees new deletes, and are dropped together with the reader.
+     */
+    private final Cache<Bits, Set<String>> byLiveDocs = CacheBuilder.newBuilder().weakKeys().build();
+
+    // the surface forms by ordinal, and the ordinals of the surface forms of each document, loaded once
+    private String[] surfaceForms;
+    private int[] docStarts;
+    private int[] ords;
+    // the number of documents of each surface form
+    private int[] docCounts;
+
+    // the last live docs the deleted surface forms have been computed for
+    private Snapshot last;
+
+    /**
+     * Returns the surface forms of the field that are only indexed by deleted documents according to the given live docs.
+     */
+    Set<String> get(Bits liveDocs, Terms terms, PayloadProcessor payloadProcessor) throws IOException {
+        if (liveDocs == null) {
+            return Collections.emptySet();
+        }
+        Set<String> deleted = byLiveDocs.getIfPresent(liveDocs);
+        if (deleted != null) {
+            return deleted;
+        }
+        synchronized (this) {
+            deleted = byLiveDocs.getIfPresent(liveDocs);
+            if (deleted != null) {
+                return deleted;
+            }
+            if (surfaceForms == null) {
+                load(terms, payloadProcessor, liveDocs.length());
+            }
+            Snapshot snapshot = last == null ? null : diff(last, liveDocs);
+            if (snapshot == null) {
+                // the live docs of an older reader, start from all documents being live
+                snapshot = diff(null, liveDocs);
+            }
+            if (last == null || snapshot.numDeleted >= last.numDeleted) {
+                last = snapshot;
+            }
+            byLiveDocs.put(liveDocs, snapshot.deleted);
+            return snapshot.deleted;
+        }
+    }
+
+    /**
+     * Applies the documents that are deleted in the given live docs but not in the previous ones, or returns
+     * <tt>null</tt> if a document deleted in the previous live docs is live in the given ones.
+     */
+    private Snapshot diff(Snapshot previous, Bits liveDocs) {
+        int[] liveCounts;
+        Set<String> deleted;
+        int numDeleted;
+        if (previous == null) {
+            liveCounts = docCounts.clone();
+            deleted = new HashSet<>();
+            numDeleted = 0;
+        } else {
+            liveCounts = previous.liveCounts.clone();
+            deleted = new HashSet<>(previous.deleted);
+            numDeleted = previous.numDeleted;
+        }
+        final int maxDoc = docStarts.length - 1;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            final boolean wasLive = previous == null || previous.liveDocs.get(doc);
+            if (wasLive == liveDocs.get(doc)) {
+                continue;
+            }
+            if (!wasLive) {
+                return null;
+            }
+            numDeleted++;
+            for (int i = docStarts[doc]; i < docStarts[doc + 1]; i++) {
+                if (--liveCounts[ords[i]] == 0) {
+                    deleted.add(surfaceForms[ords[i]]);
+                }
+            }
+        }
+        return new Snapshot(liveDocs, liveCounts, numDeleted, Collections.unmodifiableSet(deleted));
+    }
+
+    private void load(Terms terms, PayloadProcessor payloadProcessor, int maxDoc) throws IOException {
+        final Map<BytesRef, Integer> ordinals = new HashMap<>();
+        final List<String> forms = new ArrayList<>();
+        // pairs of document and ordinal
+        final LongArrayList docOrds = new LongArrayList();
+        PayloadProcessor.SuggestPayload spare = new PayloadProcessor.SuggestPayload();
+        TermsEnum termsEnum = terms.iterator(null);
+        DocsAndPositionsEnum docsEnum = null;
+        while (termsEnum.next() != null) {
+            docsEnum = termsEnum.docsAndPositions(null, docsEnum, DocsAndPositionsEnum.FLAG_PAYLOADS);
+            if (docsEnum == null) {
+                // no payloads indexed, nothing we can match results against
+                ordinals.clear();
+                forms.clear();
+                docOrds.clear();
+                break;
+            }
+            for (int doc = docsEnum.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docsEnum.nextDoc()) {
+                for (int i = 0; i < docsEnum.freq(); i++) {
+                    docsEnum.nextPosition();
+                    BytesRef payload = docsEnum.getPayload();
+                    if (payload == null) {
+                        continue;
+                    }
+                    payloadProcessor.parsePayload(payload, spare);
+                    BytesRef surfaceForm = spare.surfaceForm.get();
+                    Integer ord = ordinals.get(surfaceForm);
+                    if (ord == null) {
+                        ord = forms.size();
+                        ordinals.put(BytesRef.deepCopyOf(surfaceForm), ord);
+                        forms.add(surfaceForm.utf8ToString());
+                    }
+                    docOrds.add(((long) doc) << 32 | ord);
+                }
+            }
+        }
+
+        final long[] pairs = docOrds.toArray();
+        Arrays.sort(pairs);
+        int[] docStarts = new int[maxDoc + 1];
+        int[] ords = new int[pairs.length];
+        int[] docCounts = new int[forms.size()];
+        int numOrds = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            if (i > 0 && pairs[i] == pairs[i - 1]) {
+                // a surface form indexed several times by the same document
+                continue;
+            }
+            final int doc = (int) (pairs[i] >>> 32);
+            final int ord = (int) pairs[i];
+            docStarts[doc + 1]++;
+            ords[numOrds++] = ord;
+            docCounts[ord]++;
+        }
+        for (int doc = 0; doc < maxDoc; doc++) {
+            docStarts[doc + 1] += docStarts[doc];
+        }
+        this.surfaceForms = forms.toArray(new String[forms.size()]);
+        this.docStarts = docStarts;
+        this.ords = Arrays.copyOf(ords, numOrds);
+        this.docCounts = docCounts;
+    }
+
+    private static final class Snapshot {
+        final Bits liveDocs;
+        final int[] liveCounts;
+        final int numDeleted;
+        final Set<String> deleted;
+
+        Snapshot(Bits liveDocs, int[] liveCounts, int numDeleted, Set<String> deleted) {
+            this.liveDocs = liveDocs;
+            this.liveCounts = liveCounts;
+            this.numDeleted = numDeleted;
+            this.deleted = deleted;
+        }
+    }
+}
@@ -149,6 +149,7 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
     protected void doStart() throws ElasticsearchException {
         adapter.rxMetric.clear();
         adapter.txMetric.clear();
+        adapter.flushMetric.clear();
         transport.transportServiceAdapter(adapter);
         transport.start();
         if (transport.boundAddress() != null && logger.isInfoEnabled()) {
@@ -201,7 +202,8 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
     }
 
     public TransportStats stats() {
-        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum());
+        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum(),
+                adapter.flushMetric.count(), adapter.flushMetric.sum());
     }
 
     public BoundTransportAddress boundAddress() {
@@ -336,6 +338,7 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
 
         final MeanMetric rxMetric = new MeanMetric();
         final MeanMetric txMetric = new MeanMetric();
+        final MeanMetric flushMetric = new MeanMetric();
 
         @Override
         public void received(long size) {
@@ -347,6 +350,11 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
             txMetric.inc(size);
         }
 
+        @Override
+        public void flushed(int messages) {
+            flushMetric.inc(messages);
+        }
+
         @Override
         public void onRequestSent(DiscoveryNode node, long requestId, String action, TransportRequest request, TransportRequestOptions options) {
             if (traceEnabled() && shouldTraceAction(action)) {
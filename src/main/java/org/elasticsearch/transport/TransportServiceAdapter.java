@@ -31,6 +31,9 @@ public interface TransportServiceAdapter {
 
     void sent(long size);
 
+    /** called by the {@link Transport} implementation for each write to a channel, with the number of messages it carries */
+    void flushed(int messages);
+
     /** called by the {@link Transport} implementation once a request has been sent */
     void onRequestSent(DiscoveryNode node, long requestId, String action, TransportRequest request, TransportRequestOptions options);
 
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -36,17 +37,25 @@ public class TransportStats implements Streamable, ToXContent {
     private long rxSize;
     private long txCount;
     private long txSize;
+    private long txFlushCount;
+    private long txFlushMessages;
 
     TransportStats() {
 
     }
 
     public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+        this(serverOpen, rxCount, rxSize, txCount, txSize, 0, 0);
+    }
+
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, long txFlushCount, long txFlushMessages) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.txFlushCount = txFlushCount;
+        this.txFlushMessages = txFlushMessages;
     }
 
     public long serverOpen() {
@@ -89,6 +98,39 @@ public class TransportStats implements Streamable, ToXContent {
         return txSize();
     }
 
+    /**
+     * The number of writes issued to the transport channels, each write possibly carrying several messages.
+     */
+    public long txFlushCount() {
+        return txFlushCount;
+    }
+
+    public long getTxFlushCount() {
+        return txFlushCount();
+    }
+
+    /**
+     * The number of messages sent through the writes counted by {@link #txFlushCount()}.
+     */
+    public long txFlushMessages() {
+        return txFlushMessages;
+    }
+
+    public long getTxFlushMessages() {
+        return txFlushMessages();
+    }
+
+    /**
+     * The average number of messages sent per write.
+     */
+    public double txMessagesPerFlush() {
+        return txFlushCount == 0 ? 0 : (double) txFlushMessages / txFlushCount;
+    }
+
+    public double getTxMessagesPerFlush() {
+        return txMessagesPerFlush();
+    }
+
     public static TransportStats readTransportStats(StreamInput in) throws IOException {
         TransportStats stats = new TransportStats();
         stats.readFrom(in);
@@ -102,6 +144,10 @@ public class TransportStats implements Streamable, ToXContent {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_1_5_0)) {
+            txFlushCount = in.readVLong();
+            txFlushMessages = in.readVLong();
+        }
     }
 
     @Override
@@ -111,6 +157,10 @@ public class TransportStats implements Streamable, ToXContent {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_1_5_0)) {
+            out.writeVLong(txFlushCount);
+            out.writeVLong(txFlushMessages);
+        }
     }
 
     @Override
@@ -121,6 +171,8 @@ public class TransportStats implements Streamable, ToXContent {
         builder.byteSizeField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, rxSize);
         builder.field(Fields.TX_COUNT, txCount);
         builder.byteSizeField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, txSize);
+        builder.field(Fields.TX_FLUSH_COUNT, txFlushCount);
+        builder.field(Fields.TX_FLUSH_MESSAGES, txFlushMessages);
         builder.endObject();
         return builder;
     }
@@ -134,5 +186,7 @@ public class TransportStats implements Streamable, ToXContent {
         static final XContentBuilderString TX_COUNT = new XContentBuilderString("tx_count");
         static final XContentBuilderString TX_SIZE = new XContentBuilderString("tx_size");
         static final XContentBuilderString TX_SIZE_IN_BYTES = new XContentBuilderString("tx_size_in_bytes");
+        static final XContentBuilderString TX_FLUSH_COUNT = new XContentBuilderString("tx_flush_count");
+        static final XContentBuilderString TX_FLUSH_MESSAGES = new XContentBuilderString("tx_flush_messages");
     }
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ChannelBufferBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.netty.NettyUtils;
 import org.jboss.netty.buffer.ChannelBuffer;
 
 import java.io.EOFException;
@@ -53,17 +54,18 @@ public class ChannelBufferStreamInput extends StreamInput {
 
     @Override
     public BytesReference readBytesReference(int length) throws IOException {
-        ChannelBufferBytesReference ref = new ChannelBufferBytesReference(buffer.slice(buffer.readerIndex(), length));
+        ChannelBufferBytesReference ref = new ChannelBufferBytesReference(NettyUtils.slice(buffer, buffer.readerIndex(), length));
         buffer.skipBytes(length);
         return ref;
     }
 
     @Override
     public BytesRef readBytesRef(int length) throws IOException {
-        if (!buffer.hasArray()) {
+        ChannelBuffer slice = NettyUtils.slice(buffer, buffer.readerIndex(), length);
+        if (!slice.hasArray()) {
             return super.readBytesRef(length);
         }
-        BytesRef bytesRef = new BytesRef(buffer.array(), buffer.arrayOffset() + buffer.readerIndex(), length);
+        BytesRef bytesRef = new BytesRef(slice.array(), slice.arrayOffset() + slice.readerIndex(), length);
         buffer.skipBytes(length);
         return bytesRef;
     }
@@ -38,7 +38,6 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.math.MathUtils;
 import org.elasticsearch.common.netty.NettyUtils;
 import org.elasticsearch.common.netty.OpenChannelsHandler;
-import org.elasticsearch.common.netty.ReleaseChannelFutureListener;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.network.NetworkUtils;
 import org.elasticsearch.common.settings.ImmutableSettings;
@@ -47,6 +46,7 @@ import org.elasticsearch.common.transport.BoundTransportAddress;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
 import org.elasticsearch.common.transport.PortsRange;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
@@ -121,6 +121,7 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
     protected final ByteSizeValue maxCumulationBufferCapacity;
     protected final int maxCompositeBufferComponents;
     protected final boolean compress;
+    protected final NettyWriteCoalescer writeCoalescer;
     protected final ReceiveBufferSizePredictorFactory receiveBufferSizePredictorFactory;
     protected final int workerCount;
     protected final ByteSizeValue receivePredictorMin;
@@ -167,6 +168,8 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         this.maxCumulationBufferCapacity = componentSettings.getAsBytesSize("max_cumulation_buffer_capacity", null);
         this.maxCompositeBufferComponents = componentSettings.getAsInt("max_composite_buffer_components", -1);
         this.compress = settings.getAsBoolean(TransportSettings.TRANSPORT_TCP_COMPRESS, false);
+        this.writeCoalescer = new NettyWriteCoalescer(this, componentSettings.getAsBoolean("write_coalescing", true),
+                componentSettings.getAsBytesSize("write_coalescing_max_size", new ByteSizeValue(64, ByteSizeUnit.KB)));
 
         this.connectionsPerNodeRecovery = componentSettings.getAsInt("connections_per_node.recovery", settings.getAsInt(CONNECTIONS_PER_NODE_RECOVERY, 2));
         this.connectionsPerNodeBulk = componentSettings.getAsInt("connections_per_node.bulk", settings.getAsInt(CONNECTIONS_PER_NODE_BULK, 3));
@@ -639,20 +642,21 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         boolean addedReleaseListener = false;
         try {
             bStream.skip(NettyHeader.HEADER_SIZE);
+
+            // we pick the smallest of the 2, to support both backward and forward compatibility
+            // note, this is the only place we need to do this, since from here on, we use the serialized version
+            // as the version to use also when the node receiving this request will send the response with
+            Version version = Version.smallest(this.version, node.version());
+
             StreamOutput stream = bStream;
             // only compress if asked, and, the request is not bytes, since then only
             // the header part is compressed, and the "body" can't be extracted as compressed
             if (options.compress() && (!(request instanceof BytesTransportRequest))) {
                 status = TransportStatus.setCompress(status);
-                stream = CompressorFactory.defaultCompressor().streamOutput(stream);
+                stream = CompressorFactory.transportCompressor(version).streamOutput(stream);
             }
             stream = new HandlesStreamOutput(stream);
 
-            // we pick the smallest of the 2, to support both backward and forward compatibility
-            // note, this is the only place we need to do this, since from here on, we use the serialized version
-            // as the version to use also when the node receiving this request will send the response with
-            Version version = Version.smallest(this.version, node.version());
-
             stream.setVersion(version);
             stream.writeString(transportServiceAdapter.action(action, version));
 
@@ -677,10 +681,9 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
                 buffer = bytes.toChannelBuffer();
             }
             NettyHeader.writeHeader(buffer, requestId, status, version);
-            ChannelFuture future = targetChannel.write(buffer);
-            ReleaseChannelFutureListener listener = new ReleaseChannelFutureListener(bytes);
-            future.addListener(listener);
+            // the coalescer releases the bytes from now on, even if the write fails
             addedReleaseListener = true;
+            writeCoalescer.write(targetChannel, buffer, bytes);
             transportServiceAdapter.onRequestSent(node, requestId, action, request, options);
         } finally {
             if (!addedReleaseListener) {
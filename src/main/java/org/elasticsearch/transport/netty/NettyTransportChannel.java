@@ -20,21 +20,17 @@
 package org.elasticsearch.transport.netty;
 
 import org.elasticsearch.Version;
-import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.ThrowableObjectOutputStream;
-import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.HandlesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasables;
-import org.elasticsearch.common.netty.ReleaseChannelFutureListener;
 import org.elasticsearch.transport.*;
 import org.elasticsearch.transport.support.TransportStatus;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
-import org.jboss.netty.channel.ChannelFuture;
 
 import java.io.IOException;
 import java.io.NotSerializableException;
@@ -92,7 +88,7 @@ public class NettyTransportChannel implements TransportChannel {
             StreamOutput stream = bStream;
             if (options.compress()) {
                 status = TransportStatus.setCompress(status);
-                stream = CompressorFactory.defaultCompressor().streamOutput(stream);
+                stream = CompressorFactory.transportCompressor(version).streamOutput(stream);
             }
             stream = new HandlesStreamOutput(stream);
             stream.setVersion(version);
@@ -102,10 +98,8 @@ public class NettyTransportChannel implements TransportChannel {
             ReleasableBytesReference bytes = bStream.bytes();
             ChannelBuffer buffer = bytes.toChannelBuffer();
             NettyHeader.writeHeader(buffer, requestId, status, version);
-            ChannelFuture future = channel.write(buffer);
-            ReleaseChannelFutureListener listener = new ReleaseChannelFutureListener(bytes);
-            future.addListener(listener);
             addedReleaseListener = true;
+            transport.writeCoalescer.write(channel, buffer, bytes);
             transportServiceAdapter.onResponseSent(requestId, action, response, options);
         } finally {
             if (!addedReleaseListener) {
@@ -116,30 +110,38 @@ public class NettyTransportChannel implements TransportChannel {
 
     @Override
     public void sendResponse(Throwable error) throws IOException {
-        BytesStreamOutput stream = new BytesStreamOutput();
+        ReleasableBytesStreamOutput stream = new ReleasableBytesStreamOutput(transport.bigArrays);
+        boolean addedReleaseListener = false;
         try {
-            stream.skip(NettyHeader.HEADER_SIZE);
-            RemoteTransportException tx = new RemoteTransportException(transport.nodeName(), transport.wrapAddress(channel.getLocalAddress()), action, error);
-            ThrowableObjectOutputStream too = new ThrowableObjectOutputStream(stream);
-            too.writeObject(tx);
-            too.close();
-        } catch (NotSerializableException e) {
-            stream.reset();
-            stream.skip(NettyHeader.HEADER_SIZE);
-            RemoteTransportException tx = new RemoteTransportException(transport.nodeName(), transport.wrapAddress(channel.getLocalAddress()), action, new NotSerializableTransportException(error));
-            ThrowableObjectOutputStream too = new ThrowableObjectOutputStream(stream);
-            too.writeObject(tx);
-            too.close();
-        }
+            try {
+                stream.skip(NettyHeader.HEADER_SIZE);
+                RemoteTransportException tx = new RemoteTransportException(transport.nodeName(), transport.wrapAddress(channel.getLocalAddress()), action, error);
+                ThrowableObjectOutputStream too = new ThrowableObjectOutputStream(stream);
+                too.writeObject(tx);
+                too.close();
+            } catch (NotSerializableException e) {
+                stream.reset();
+                stream.skip(NettyHeader.HEADER_SIZE);
+                RemoteTransportException tx = new RemoteTransportException(transport.nodeName(), transport.wrapAddress(channel.getLocalAddress()), action, new NotSerializableTransportException(error));
+                ThrowableObjectOutputStream too = new ThrowableObjectOutputStream(stream);
+                too.writeObject(tx);
+                too.close();
+            }
 
-        byte status = 0;
-        status = TransportStatus.setResponse(status);
-        status = TransportStatus.setError(status);
+            byte status = 0;
+            status = TransportStatus.setResponse(status);
+            status = TransportStatus.setError(status);
 
-        BytesReference bytes = stream.bytes();
-        ChannelBuffer buffer = bytes.toChannelBuffer();
-        NettyHeader.writeHeader(buffer, requestId, status, version);
-        channel.write(buffer);
-        transportServiceAdapter.onResponseSent(requestId, action, error);
+            ReleasableBytesReference bytes = stream.bytes();
+            ChannelBuffer buffer = bytes.toChannelBuffer();
+            NettyHeader.writeHeader(buffer, requestId, status, version);
+            addedReleaseListener = true;
+            transport.writeCoalescer.write(channel, buffer, bytes);
+            transportServiceAdapter.onResponseSent(requestId, action, error);
+        } finally {
+            if (!addedReleaseListener) {
+                Releasables.close(stream.bytes());
+            }
+        }
     }
 }
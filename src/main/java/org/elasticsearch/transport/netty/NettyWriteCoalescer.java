@@ -0,0 +1,197 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport.netty;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.netty.NettyUtils;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.transport.TransportServiceAdapter;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelLocal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes transport messages to a channel, batching the messages that are queued to the same channel while a
+ * previous write on it is still in flight into a single gathering write once that write completes. Messages are
+ * written in the order they have been queued, and the {@link Releasable} of each message is released once the
+ * write it was part of completes. Once a write fails, the messages queued behind it are released without being
+ * written.
+ * <p/>
+ * Small messages like replica writes of single documents, pings and fault detection requests are then sent with
+ * a single syscall per batch instead of one per message, without delaying a message when the channel is idle.
+ */
+class NettyWriteCoalescer {
+
+    private final NettyTransport transport;
+    private final boolean enabled;
+    private final long maxSize;
+
+    private final ChannelLocal<PendingWrites> pendingWrites = new ChannelLocal<>(true);
+
+    NettyWriteCoalescer(NettyTransport transport, boolean enabled, ByteSizeValue maxSize) {
+        this.transport = transport;
+        this.enabled = enabled;
+        this.maxSize = maxSize.bytes();
+    }
+
+    /**
+     * Writes the given buffer to the channel, or queues it if a write is already in flight on this channel. The
+     * releasable is released once the buffer has been written or failed to be written, including when this method
+     * throws.
+     */
+    void write(Channel channel, ChannelBuffer buffer, @Nullable Releasable releasable) {
+        Message message = new Message(buffer, releasable);
+        if (!enabled) {
+            flush(channel, null, Collections.singletonList(message));
+            return;
+        }
+        PendingWrites pending = pendingWrites.get(channel);
+        if (pending == null) {
+            PendingWrites newPending = new PendingWrites();
+            pending = pendingWrites.setIfAbsent(channel, newPending);
+            if (pending == null) {
+                pending = newPending;
+            }
+        }
+        synchronized (pending) {
+            if (pending.writing) {
+                pending.messages.add(message);
+                return;
+            }
+            pending.writing = true;
+        }
+        flush(channel, pending, Collections.singletonList(message));
+    }
+
+    private void flush(final Channel channel, @Nullable final PendingWrites pending, final List<Message> messages) {
+        ChannelBuffer buffer;
+        if (messages.size() == 1) {
+            buffer = messages.get(0).buffer;
+        } else {
+            ChannelBuffer[] buffers = new ChannelBuffer[messages.size()];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = messages.get(i).buffer;
+            }
+            buffer = ChannelBuffers.wrappedBuffer(NettyUtils.DEFAULT_GATHERING, buffers);
+        }
+        TransportServiceAdapter transportServiceAdapter = transport.transportServiceAdapter();
+        if (transportServiceAdapter != null) {
+            transportServiceAdapter.flushed(messages.size());
+        }
+        ChannelFuture future;
+        try {
+            future = channel.write(buffer);
+        } catch (Throwable t) {
+            try {
+                release(messages);
+            } finally {
+                if (pending != null) {
+                    release(pending.drain());
+                }
+            }
+            throw t;
+        }
+        future.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                try {
+                    release(messages);
+                } finally {
+                    if (pending != null) {
+                        if (future.isSuccess()) {
+                            List<Message> next = pending.poll(maxSize);
+                            if (next != null) {
+                                flush(channel, pending, next);
+                            }
+                        } else {
+                            // the channel is most likely broken, don't go on writing to it batch after batch
+                            release(pending.drain());
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private static void release(List<Message> messages) {
+        List<Releasable> releasables = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            releasables.add(message.releasable);
+        }
+        Releasables.close(releasables);
+    }
+
+    private static class Message {
+
+        final ChannelBuffer buffer;
+        @Nullable
+        final Releasable releasable;
+
+        Message(ChannelBuffer buffer, @Nullable Releasable releasable) {
+            this.buffer = buffer;
+            this.releasable = releasable;
+        }
+    }
+
+    private static class PendingWrites {
+
+        final ArrayDeque<Message> messages = new ArrayDeque<>();
+        boolean writing;
+
+        /**
+         * Takes the next batch of messages to write, at least one message and then as many as fit in
+         * <tt>maxSize</tt> bytes. Returns <tt>null</tt> and marks the channel as idle if nothing is queued.
+         */
+        synchronized List<Message> poll(long maxSize) {
+            if (messages.isEmpty()) {
+                writing = false;
+                return null;
+            }
+            List<Message> batch = new ArrayList<>();
+            long size = 0;
+            do {
+                Message message = messages.poll();
+                batch.add(message);
+                size += message.buffer.readableBytes();
+            } while (!messages.isEmpty() && size + messages.peek().buffer.readableBytes() <= maxSize);
+            return batch;
+        }
+
+        /**
+         * Takes all the queued messages and marks the channel as idle.
+         */
+        synchronized List<Message> drain() {
+            List<Message> drained = new ArrayList<>(messages);
+            messages.clear();
+            writing = false;
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.compress;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedStreamInput;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compressors on _source like documents: compression ratio, and throughput of compressing and
+ * decompressing them one by one through streams, the way the source field mapper and the transport do.
+ */
+public class CompressorBenchmark {
+
+    private static final int NUM_DOCS = 10000;
+    private static final int ITERS = 20;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(0);
+        List<BytesReference> sources = new ArrayList<>(NUM_DOCS);
+        long totalBytes = 0;
+        for (int i = 0; i < NUM_DOCS; i++) {
+            BytesReference source = source(random);
+            sources.add(source);
+            totalBytes += source.length();
+        }
+        System.out.println("## " + NUM_DOCS + " documents, " + new ByteSizeValue(totalBytes) + "\n");
+
+        for (String type : new String[]{"lzf", "lz4", "lz4hc"}) {
+            Compressor compressor = CompressorFactory.compressor(type);
+            List<BytesReference> compressed = new ArrayList<>(NUM_DOCS);
+            long compressedBytes = 0;
+            for (BytesReference source : sources) {
+                BytesReference bytes = compress(compressor, source);
+                compressed.add(bytes);
+                compressedBytes += bytes.length();
+            }
+
+            // warmup
+            for (int i = 0; i < ITERS; i++) {
+                compressAll(compressor, sources);
+                decompressAll(compressed);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERS; i++) {
+                compressAll(compressor, sources);
+            }
+            long compressTook = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERS; i++) {
+                decompressAll(compressed);
+            }
+            long decompressTook = System.nanoTime() - start;
+
+            System.out.println(type + ": ratio " + String.format(Locale.ROOT, "%.3f", (double) compressedBytes / totalBytes)
+                    + ", compress " + throughput(totalBytes * ITERS, compressTook) + "/s"
+                    + ", decompress " + throughput(totalBytes * ITERS, decompressTook) + "/s");
+        }
+    }
+
+    private static BytesReference source(Random random) throws Exception {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        builder.field("title", words(random, 5 + random.nextInt(10)));
+        builder.field("body", words(random, 100 + random.nextInt(1000)));
+        builder.field("views", random.nextInt(100000));
+        builder.field("date", "2015-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10) + "T12:00:00Z");
+        builder.startArray("tags");
+        for (int i = random.nextInt(5); i >= 0; i--) {
+            builder.value(words(random, 1));
+        }
+        builder.endArray();
+        return builder.endObject().bytes();
+    }
+
+    private static final String[] WORDS = {"the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "search",
+            "index", "shard", "replica", "node", "cluster", "document", "field", "query", "filter", "score", "term"};
+
+    private static String words(Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextInt(10) == 0) {
+                sb.append(random.nextInt(1000));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static BytesReference compress(Compressor compressor, BytesReference source) throws Exception {
+        BytesStreamOutput bytes = new BytesStreamOutput();
+        StreamOutput out = compressor.streamOutput(bytes);
+        source.writeTo(out);
+        out.close();
+        return bytes.bytes();
+    }
+
+    private static long compressAll(Compressor compressor, List<BytesReference> sources) throws Exception {
+        long length = 0;
+        for (BytesReference source : sources) {
+            length += compress(compressor, source).length();
+        }
+        return length;
+    }
+
+    private static long decompressAll(List<BytesReference> compressed) throws Exception {
+        byte[] buffer = new byte[8192];
+        long length = 0;
+        for (BytesReference bytes : compressed) {
+            CompressedStreamInput in = CompressorFactory.compressor(bytes).streamInput(bytes.streamInput());
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                length += read;
+            }
+            in.close();
+        }
+        return length;
+    }
+
+    private static ByteSizeValue throughput(long bytes, long nanos) {
+        return new ByteSizeValue((long) (bytes / ((double) nanos / TimeUnit.SECONDS.toNanos(1))));
+    }
+}
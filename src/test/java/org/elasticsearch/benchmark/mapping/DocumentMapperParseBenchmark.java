@@ -0,0 +1,125 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.mapping;
+
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.node.internal.InternalNode;
+
+import java.util.Random;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
+
+/**
+ * Measures how fast typical log documents are parsed by a {@link DocumentMapper}, without indexing them.
+ */
+public class DocumentMapperParseBenchmark {
+
+    private static final String INDEX_NAME = "logs";
+    private static final String TYPE_NAME = "log";
+    private static final int NUMBER_OF_DOCS = 1000;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 500;
+
+    private static final String[] LEVELS = {"DEBUG", "INFO", "WARN", "ERROR"};
+    private static final String[] VERBS = {"GET", "POST", "PUT", "DELETE"};
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("es.logger.prefix", "");
+        InternalNode node = (InternalNode) nodeBuilder().clusterName(DocumentMapperParseBenchmark.class.getSimpleName())
+                .settings(settingsBuilder()
+                        .put("gateway.type", "none")
+                        .put(SETTING_NUMBER_OF_SHARDS, 1)
+                        .put(SETTING_NUMBER_OF_REPLICAS, 0))
+                .local(true)
+                .node();
+
+        XContentBuilder mapping = jsonBuilder().startObject().startObject(TYPE_NAME).startObject("properties")
+                .startObject("@timestamp").field("type", "date").endObject()
+                .startObject("level").field("type", "string").field("index", "not_analyzed").endObject()
+                .startObject("logger").field("type", "string").field("index", "not_analyzed").endObject()
+                .startObject("host").field("type", "string").field("index", "not_analyzed").endObject()
+                .startObject("message").field("type", "string").endObject()
+                .startObject("request").startObject("properties")
+                    .startObject("verb").field("type", "string").field("index", "not_analyzed").endObject()
+                    .startObject("path").field("type", "string").field("index", "not_analyzed").endObject()
+                    .startObject("status").field("type", "integer").endObject()
+                    .startObject("bytes").field("type", "long").endObject()
+                    .startObject("took").field("type", "double").endObject()
+                .endObject().endObject()
+                .endObject().endObject().endObject();
+        node.client().admin().indices().prepareCreate(INDEX_NAME).addMapping(TYPE_NAME, mapping).get();
+        node.client().admin().cluster().prepareHealth(INDEX_NAME).setWaitForGreenStatus().get();
+
+        DocumentMapper docMapper = node.injector().getInstance(IndicesService.class).indexServiceSafe(INDEX_NAME)
+                .mapperService().documentMapper(TYPE_NAME);
+
+        Random random = new Random(0);
+        BytesReference[] docs = new BytesReference[NUMBER_OF_DOCS];
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = jsonBuilder().startObject()
+                    .field("@timestamp", 1420070400000L + i * 1000L)
+                    .field("level", LEVELS[random.nextInt(LEVELS.length)])
+                    .field("logger", "org.elasticsearch.benchmark.Logger" + random.nextInt(10))
+                    .field("host", "host-" + random.nextInt(20))
+                    .field("message", "request " + i + " completed after " + random.nextInt(1000) + " ms for user " + random.nextInt(100))
+                    .startObject("request")
+                        .field("verb", VERBS[random.nextInt(VERBS.length)])
+                        .field("path", "/index/type/" + random.nextInt(100000))
+                        .field("status", random.nextBoolean() ? 200 : 404)
+                        .field("bytes", random.nextInt(100000))
+                        .field("took", random.nextDouble())
+                    .endObject()
+                    .field("tags", "benchmark", "log")
+                    .endObject().bytes();
+        }
+
+        System.out.println("--> warming up");
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            parse(docMapper, docs);
+        }
+
+        System.out.println("--> parsing " + NUMBER_OF_DOCS + " docs " + ITERATIONS + " times");
+        StopWatch stopWatch = new StopWatch().start();
+        for (int i = 0; i < ITERATIONS; i++) {
+            parse(docMapper, docs);
+        }
+        stopWatch.stop();
+        long totalDocs = (long) NUMBER_OF_DOCS * ITERATIONS;
+        System.out.println("--> parsed " + totalDocs + " docs in " + stopWatch.totalTime() + ", "
+                + (totalDocs * 1000 / Math.max(1, stopWatch.totalTime().millis())) + " docs/s");
+
+        node.close();
+    }
+
+    private static void parse(DocumentMapper docMapper, BytesReference[] docs) {
+        for (int i = 0; i < docs.length; i++) {
+            docMapper.parse(SourceToParse.source(docs[i]).type(TYPE_NAME).id(Integer.toString(i)));
+        }
+    }
+}
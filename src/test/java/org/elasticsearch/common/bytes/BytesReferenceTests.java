@@ -21,6 +21,8 @@ package org.elasticsearch.common.bytes;
 
 
 import org.elasticsearch.test.ElasticsearchTestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 
 import java.util.Arrays;
 
@@ -58,4 +60,33 @@ public class BytesReferenceTests extends ElasticsearchTestCase {
         }
     }
 
+    public void testChannelBufferSliceOfCompositeBuffer() {
+        final byte[] first = new byte[randomIntBetween(10, 100)];
+        final byte[] second = new byte[randomIntBetween(10, 100)];
+        getRandom().nextBytes(first);
+        getRandom().nextBytes(second);
+        final byte[] all = new byte[first.length + second.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        final ChannelBuffer composite = ChannelBuffers.wrappedBuffer(true, ChannelBuffers.wrappedBuffer(first), ChannelBuffers.wrappedBuffer(second));
+        final BytesReference ref = new ChannelBufferBytesReference(composite);
+
+        // within the second buffer, the slice is taken from it and can be used without copying it
+        final int from = first.length + randomInt(second.length - 2);
+        final int length = randomIntBetween(1, all.length - from);
+        BytesReference slice = ref.slice(from, length);
+        assertTrue(slice.hasArray());
+        assertSame(second, slice.array());
+        assertTrue(BytesReference.Helper.bytesEqual(new BytesArray(all, from, length), slice));
+
+        // spanning both buffers
+        final int spanFrom = randomInt(first.length - 1);
+        final int spanLength = first.length - spanFrom + randomIntBetween(1, second.length);
+        slice = ref.slice(spanFrom, spanLength);
+        assertTrue(BytesReference.Helper.bytesEqual(new BytesArray(all, spanFrom, spanLength), slice));
+
+        // slices of slices are relative to the slice
+        BytesReference sliceOfSlice = slice.slice(1, spanLength - 1);
+        assertTrue(BytesReference.Helper.bytesEqual(new BytesArray(all, spanFrom + 1, spanLength - 1), sliceOfSlice));
+    }
 }
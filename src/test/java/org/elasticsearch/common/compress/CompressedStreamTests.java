@@ -43,7 +43,7 @@ public class CompressedStreamTests extends ElasticsearchTestCase {
     @Override
     public void setUp() throws Exception {
         super.setUp();
-        CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", "lzf").build());
+        CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", randomFrom("lzf", "lz4", "lz4hc")).build());
     }
 
     public void testRandom() throws IOException {
@@ -40,6 +40,12 @@ public class CompressedStringTests extends ElasticsearchTestCase {
         simpleTests("lzf");
     }
 
+    @Test
+    public void simpleTestsLZ4() throws IOException {
+        simpleTests("lz4");
+        simpleTests("lz4hc");
+    }
+
     public void simpleTests(String compressor) throws IOException {
         CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", compressor).build());
         String str = "this is a simple string";
@@ -55,7 +61,7 @@ public class CompressedStringTests extends ElasticsearchTestCase {
     }
     
     public void testRandom() throws IOException {
-        String compressor = "lzf";
+        String compressor = randomFrom("lzf", "lz4", "lz4hc");
         CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", compressor).build());
         Random r = getRandom();
         for (int i = 0; i < 1000; i++) {
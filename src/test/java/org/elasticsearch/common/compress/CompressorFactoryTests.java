@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
+import org.elasticsearch.common.compress.lzf.LZFCompressor;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class CompressorFactoryTests extends ElasticsearchTestCase {
+
+    @After
+    public void resetCompressors() {
+        CompressorFactory.configure(ImmutableSettings.EMPTY);
+    }
+
+    @Test
+    public void testDefaultCompressorIsUsedEverywhere() {
+        CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", LZ4Compressor.TYPE).build());
+        Compressor lz4 = CompressorFactory.compressor(LZ4Compressor.TYPE);
+        assertThat(CompressorFactory.defaultCompressor(), sameInstance(lz4));
+        assertThat(CompressorFactory.sourceCompressor(), sameInstance(lz4));
+        assertThat(CompressorFactory.transportCompressor(Version.CURRENT), sameInstance(lz4));
+        assertThat(CompressorFactory.clusterStateCompressor(Version.CURRENT), sameInstance(lz4));
+    }
+
+    @Test
+    public void testCompressorPerUse() {
+        CompressorFactory.configure(ImmutableSettings.settingsBuilder()
+                .put("compress.transport.type", LZ4Compressor.TYPE)
+                .put("compress.source.type", LZ4Compressor.HC_TYPE)
+                .build());
+        assertThat(CompressorFactory.defaultCompressor().type(), equalTo(LZFCompressor.TYPE));
+        assertThat(CompressorFactory.transportCompressor(Version.CURRENT).type(), equalTo(LZ4Compressor.TYPE));
+        assertThat(CompressorFactory.sourceCompressor().type(), equalTo(LZ4Compressor.HC_TYPE));
+        assertThat(CompressorFactory.clusterStateCompressor(Version.CURRENT).type(), equalTo(LZFCompressor.TYPE));
+    }
+
+    @Test
+    public void testOlderNodesGetLZF() {
+        CompressorFactory.configure(ImmutableSettings.settingsBuilder()
+                .put("compress.default.type", randomFrom(LZ4Compressor.TYPE, LZ4Compressor.HC_TYPE))
+                .build());
+        assertThat(CompressorFactory.transportCompressor(Version.V_1_4_0).type(), equalTo(LZFCompressor.TYPE));
+        assertThat(CompressorFactory.clusterStateCompressor(Version.V_1_4_0).type(), equalTo(LZFCompressor.TYPE));
+    }
+}
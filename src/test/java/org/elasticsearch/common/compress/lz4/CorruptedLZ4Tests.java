@@ -0,0 +1,59 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Corrupted lz4 data must be reported as an {@link IOException}, never as a runtime exception of the decompressor.
+ */
+public class CorruptedLZ4Tests extends ElasticsearchTestCase {
+
+    @Test
+    public void testCorruptedChunks() throws IOException {
+        LZ4Compressor compressor = new LZ4Compressor(randomBoolean());
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("{\"field\":\"value ").append(i % 17).append("\",\"number\":").append(i).append("}");
+        }
+        byte[] data = text.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = compressor.compress(data, 0, data.length);
+        assertArrayEquals(data, compressor.uncompress(compressed, 0, compressed.length));
+
+        // the header and the length of the first chunk are validated, corrupt the compressed data itself
+        final int dataStart = LZ4Compressor.HEADER.length + 4;
+        for (int i = 0; i < 100; i++) {
+            byte[] corrupted = compressed.clone();
+            int numCorruptions = randomIntBetween(1, 10);
+            for (int j = 0; j < numCorruptions; j++) {
+                corrupted[randomIntBetween(dataStart, corrupted.length - 1)] = (byte) randomInt();
+            }
+            try {
+                compressor.uncompress(corrupted, 0, corrupted.length);
+            } catch (IOException e) {
+                // expected, unless the corruption still decodes to some output
+            }
+        }
+    }
+}
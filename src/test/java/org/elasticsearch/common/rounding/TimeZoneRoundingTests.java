@@ -21,6 +21,8 @@ package org.elasticsearch.common.rounding;
 
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.test.ElasticsearchTestCase;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.DateTimeField;
 import org.joda.time.DateTimeZone;
 import org.joda.time.format.ISODateTimeFormat;
 import org.junit.Test;
@@ -178,6 +180,30 @@ public class TimeZoneRoundingTests extends ElasticsearchTestCase {
         assertThat(roundedValue, equalTo(time("2014-04-30T23:00:00.000Z", DateTimeZone.UTC)));
     }
 
+    @Test
+    public void testFixedUnitRoundingDuelWithJoda() {
+        final DateTimeUnit[] units = new DateTimeUnit[] {DateTimeUnit.WEEK_OF_WEEKYEAR, DateTimeUnit.DAY_OF_MONTH,
+                DateTimeUnit.HOUR_OF_DAY, DateTimeUnit.MINUTES_OF_HOUR, DateTimeUnit.SECOND_OF_MINUTE};
+        final String[] zones = new String[] {"UTC", "+05:30", "Europe/Berlin", "America/New_York", "Australia/Lord_Howe", "Asia/Kathmandu"};
+        for (int i = 0; i < 1000; i++) {
+            final DateTimeUnit unit = randomFrom(units);
+            final DateTimeZone tz = DateTimeZone.forID(randomFrom(zones));
+            final DateTimeField field = unit.field();
+            final Rounding timeRounding = new TimeZoneRounding.TimeTimeZoneRoundingFloor(unit, tz, DateTimeZone.UTC);
+            final Rounding dayRounding = new TimeZoneRounding.DayTimeZoneRoundingFloor(unit, tz, DateTimeZone.UTC);
+            final Rounding utcRounding = new TimeZoneRounding.UTCTimeZoneRoundingFloor(unit);
+            // values are close to each other so that the cached offsets get reused, with a random jump from time to time
+            long utcMillis = (long) randomIntBetween(-5000, 25000) * DateTimeConstants.MILLIS_PER_DAY + randomInt(DateTimeConstants.MILLIS_PER_DAY);
+            for (int j = 0; j < 100; j++) {
+                utcMillis += randomBoolean() ? randomIntBetween(-DateTimeConstants.MILLIS_PER_HOUR, 6 * DateTimeConstants.MILLIS_PER_HOUR) : randomIntBetween(-100, 100);
+                final long local = tz.convertUTCToLocal(utcMillis);
+                assertThat(timeRounding.roundKey(utcMillis), equalTo(tz.convertLocalToUTC(field.roundFloor(local), true, utcMillis)));
+                assertThat(dayRounding.roundKey(utcMillis), equalTo(field.roundFloor(local)));
+                assertThat(utcRounding.roundKey(utcMillis), equalTo(field.roundFloor(utcMillis)));
+            }
+        }
+    }
+
     private long utc(String time) {
         return time(time, DateTimeZone.UTC);
     }
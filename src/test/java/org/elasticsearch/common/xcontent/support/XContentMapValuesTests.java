@@ -453,4 +453,61 @@ public class XContentMapValuesTests extends ElasticsearchTestCase {
         assertThat(((Map<String, Object>) filteredSource.get("obj1")), hasKey("obj2"));
         assertThat(((Map) ((Map) filteredSource.get("obj1")).get("obj2")).size(), equalTo(0));
     }
+
+    @Test
+    public void testStreamingFilterDuelWithMapFilter() throws Exception {
+        final String[] paths = {"a", "b", "c", "a.b", "b.c", "a.b.c", "a*", "*.c", "*b", "c.*", "a.*.c"};
+        for (int i = 0; i < 100; i++) {
+            XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+            randomObjectFields(builder, 0);
+            builder.endObject();
+            Map<String, Object> source = XContentHelper.convertToMap(builder.bytes(), true).v2();
+
+            String[] includes = new String[randomIntBetween(0, 2)];
+            for (int j = 0; j < includes.length; j++) {
+                includes[j] = randomFrom(paths);
+            }
+            String[] excludes = new String[randomIntBetween(0, 2)];
+            for (int j = 0; j < excludes.length; j++) {
+                excludes[j] = randomFrom(paths);
+            }
+
+            XContentBuilder filtered = XContentFactory.jsonBuilder();
+            XContentMapValues.filter(XContentHelper.createParser(builder.bytes()), filtered, includes, excludes);
+            Map<String, Object> streamingFilter = XContentHelper.convertToMap(filtered.bytes(), true).v2();
+            assertThat("source " + source + " includes " + Arrays.toString(includes) + " excludes " + Arrays.toString(excludes),
+                    streamingFilter, equalTo(XContentMapValues.filter(source, includes, excludes)));
+        }
+    }
+
+    private static void randomObjectFields(XContentBuilder builder, int depth) throws Exception {
+        for (String name : new String[] {"a", "b", "c"}) {
+            if (randomBoolean()) {
+                builder.field(name);
+                randomValue(builder, depth);
+            }
+        }
+    }
+
+    private static void randomValue(XContentBuilder builder, int depth) throws Exception {
+        switch (depth < 4 ? randomInt(3) : 0) {
+            case 0:
+                builder.value(randomBoolean() ? randomInt() : randomAsciiOfLength(5));
+                break;
+            case 1:
+                builder.nullValue();
+                break;
+            case 2:
+                builder.startObject();
+                randomObjectFields(builder, depth + 1);
+                builder.endObject();
+                break;
+            default:
+                builder.startArray();
+                for (int i = randomInt(3); i > 0; i--) {
+                    randomValue(builder, depth + 1);
+                }
+                builder.endArray();
+        }
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.http.netty;
+package org.elasticsearch.http.netty;
+
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.embedder.CodecEmbedderException;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.frame.TooLongFrameException;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMessage;
+import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
+import org.jboss.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+
+public class ESHttpChunkAggregatorTests extends ElasticsearchTestCase {
+
+    private static final int MAX_CHUNK_SIZE = (int) new ByteSizeValue(8, ByteSizeUnit.KB).bytes();
+
+    @Test
+    public void testBodyOfMaxContentLengthIsNotCopied() {
+        // more chunks than the 1024 components netty's aggregator copies together
+        int maxContentLength = (int) new ByteSizeValue(10, ByteSizeUnit.MB).bytes();
+        byte[] body = randomBody(maxContentLength);
+        DecoderEmbedder<HttpMessage> embedder = embedder(maxContentLength, -1);
+        offerInPackets(embedder, ChannelBuffers.wrappedBuffer(
+                ChannelBuffers.copiedBuffer("POST /_bulk HTTP/1.1\r\nContent-Length: " + body.length + "\r\n\r\n", CharsetUtil.US_ASCII),
+                ChannelBuffers.wrappedBuffer(body)));
+        assertThat(embedder.finish(), equalTo(true));
+
+        HttpMessage message = embedder.poll();
+        assertThat(message.isChunked(), equalTo(false));
+        assertThat(HttpHeaders.getContentLength(message), equalTo((long) body.length));
+        ChannelBuffer content = message.getContent();
+        assertThat(content, equalTo(ChannelBuffers.wrappedBuffer(body)));
+        // each chunk is still its own component
+        assertThat(content.toByteBuffers().length, greaterThanOrEqualTo(maxContentLength / MAX_CHUNK_SIZE));
+        assertThat(embedder.poll(), nullValue());
+    }
+
+    @Test
+    public void testMaxCompositeBufferComponents() {
+        int maxContentLength = (int) new ByteSizeValue(1, ByteSizeUnit.MB).bytes();
+        byte[] body = randomBody(maxContentLength);
+        DecoderEmbedder<HttpMessage> embedder = embedder(maxContentLength, 16);
+        offerInPackets(embedder, ChannelBuffers.wrappedBuffer(
+                ChannelBuffers.copiedBuffer("POST /_bulk HTTP/1.1\r\nContent-Length: " + body.length + "\r\n\r\n", CharsetUtil.US_ASCII),
+                ChannelBuffers.wrappedBuffer(body)));
+        assertThat(embedder.finish(), equalTo(true));
+
+        ChannelBuffer content = embedder.poll().getContent();
+        assertThat(content, equalTo(ChannelBuffers.wrappedBuffer(body)));
+        assertThat(content.toByteBuffers().length, lessThan(16));
+    }
+
+    @Test
+    public void testChunkedTransferEncoding() {
+        DecoderEmbedder<HttpMessage> embedder = embedder(1024, -1);
+        embedder.offer(ChannelBuffers.copiedBuffer("POST /_bulk HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5\r\nhello\r\n6\r\n world\r\n0\r\nX-Trailer: value\r\n\r\n", CharsetUtil.US_ASCII));
+        assertThat(embedder.finish(), equalTo(true));
+
+        HttpMessage message = embedder.poll();
+        assertThat(message.isChunked(), equalTo(false));
+        assertThat(message.headers().contains(HttpHeaders.Names.TRANSFER_ENCODING), equalTo(false));
+        assertThat(HttpHeaders.getContentLength(message), equalTo(11l));
+        assertThat(message.headers().get("X-Trailer"), equalTo("value"));
+        assertThat(message.getContent().toString(CharsetUtil.US_ASCII), equalTo("hello world"));
+    }
+
+    @Test
+    public void testNotChunked() {
+        DecoderEmbedder<HttpMessage> embedder = embedder(1024, -1);
+        embedder.offer(ChannelBuffers.copiedBuffer("POST /_bulk HTTP/1.1\r\nContent-Length: 5\r\n\r\nhello", CharsetUtil.US_ASCII));
+        assertThat(embedder.finish(), equalTo(true));
+        assertThat(embedder.poll().getContent().toString(CharsetUtil.US_ASCII), equalTo("hello"));
+    }
+
+    @Test
+    public void testContentLongerThanMaxContentLength() {
+        int maxContentLength = MAX_CHUNK_SIZE * 4;
+        DecoderEmbedder<HttpMessage> embedder = embedder(maxContentLength, -1);
+        try {
+            offerInPackets(embedder, ChannelBuffers.wrappedBuffer(
+                    ChannelBuffers.copiedBuffer("POST /_bulk HTTP/1.1\r\nContent-Length: " + (maxContentLength + 1) + "\r\n\r\n", CharsetUtil.US_ASCII),
+                    ChannelBuffers.wrappedBuffer(randomBody(maxContentLength + 1))));
+            fail("expected the content to be too long");
+        } catch (CodecEmbedderException e) {
+            assertThat(e.getCause(), instanceOf(TooLongFrameException.class));
+        }
+    }
+
+    private static DecoderEmbedder<HttpMessage> embedder(int maxContentLength, int maxCompositeBufferComponents) {
+        return new DecoderEmbedder<>(new HttpRequestDecoder(4096, 8192, MAX_CHUNK_SIZE),
+                new ESHttpChunkAggregator(maxContentLength, maxCompositeBufferComponents));
+    }
+
+    /**
+     * Offers the request in packets of the size the socket would typically read.
+     */
+    private static void offerInPackets(DecoderEmbedder<HttpMessage> embedder, ChannelBuffer request) {
+        while (request.readable()) {
+            embedder.offer(request.readSlice(Math.min(request.readableBytes(), 64 * 1024)));
+        }
+    }
+
+    private static byte[] randomBody(int length) {
+        byte[] body = new byte[length];
+        getRandom().nextBytes(body);
+        return body;
+    }
+}
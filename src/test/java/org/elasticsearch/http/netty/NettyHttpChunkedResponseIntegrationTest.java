@@ -0,0 +1,283 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty;
+
+import com.google.common.base.Charsets;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.http.HttpServerTransport;
+import org.elasticsearch.node.internal.InternalNode;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
+import org.elasticsearch.test.ElasticsearchIntegrationTest.Scope;
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.*;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.handler.codec.http.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Sends search and scroll responses that are larger than <tt>http.response_chunk_size</tt>, which are sent in chunks
+ * over HTTP/1.1 and as a single response with a content length otherwise.
+ */
+@ClusterScope(scope = Scope.SUITE, numDataNodes = 1)
+public class NettyHttpChunkedResponseIntegrationTest extends ElasticsearchIntegrationTest {
+
+    private static final int NUM_DOCS = 100;
+
+    private ClientBootstrap clientBootstrap;
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return settingsBuilder().put(super.nodeSettings(nodeOrdinal))
+                .put(InternalNode.HTTP_ENABLED, true)
+                .put(RestController.HTTP_JSON_ENABLE, true)
+                .put("http.response_chunk_size", "1kb")
+                .put(NettyHttpServerTransport.SETTING_PIPELINING, true)
+                // a single response may be held while an earlier one is written, whatever the number of its chunks
+                .put(NettyHttpServerTransport.SETTING_PIPELINING_MAX_EVENTS, 1)
+                .build();
+    }
+
+    @Before
+    public void indexDocs() throws Exception {
+        clientBootstrap = new ClientBootstrap(new NioClientSocketChannelFactory());
+        assertAcked(prepareCreate("test").setSettings(settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0)));
+        List<IndexRequestBuilder> docs = new ArrayList<>();
+        for (int i = 0; i < NUM_DOCS; i++) {
+            docs.add(client().prepareIndex("test", "type", Integer.toString(i))
+                    .setSource(jsonBuilder().startObject().field("num", i).field("text", randomAsciiOfLength(100)).endObject()));
+        }
+        indexRandom(true, docs);
+    }
+
+    @After
+    public void closeClient() {
+        clientBootstrap.shutdown();
+        clientBootstrap.releaseExternalResources();
+    }
+
+    @Test
+    public void testSearchResponseIsChunked() throws Exception {
+        Response response = send(HttpVersion.HTTP_1_1, "/test/_search?size=" + NUM_DOCS + "&sort=num").get(0);
+        assertThat(response.status, equalTo(HttpResponseStatus.OK));
+        assertThat(response.chunked, equalTo(true));
+        assertThat(response.chunks, greaterThan(1));
+        assertHits(response, 0, NUM_DOCS);
+    }
+
+    @Test
+    public void testSmallSearchResponseIsNotChunked() throws Exception {
+        Response response = send(HttpVersion.HTTP_1_1, "/test/_search?size=1&sort=num").get(0);
+        assertThat(response.chunked, equalTo(false));
+        assertThat(HttpHeaders.getContentLength(response.response), equalTo((long) response.content.length()));
+        assertHits(response, 0, 1);
+    }
+
+    @Test
+    public void testScrollResponsesAreChunked() throws Exception {
+        int pageSize = 10;
+        Response response = send(HttpVersion.HTTP_1_1, "/test/_search?scroll=1m&size=" + pageSize + "&sort=num").get(0);
+        int from = 0;
+        while (true) {
+            assertThat(response.status, equalTo(HttpResponseStatus.OK));
+            int hits = assertHits(response, from, pageSize);
+            if (hits == 0) {
+                break;
+            }
+            assertThat(response.chunked, equalTo(true));
+            from += hits;
+            String scrollId = (String) response.map().get("_scroll_id");
+            response = send(HttpVersion.HTTP_1_1, "/_search/scroll?scroll=1m&scroll_id=" + URLEncoder.encode(scrollId, "UTF-8")).get(0);
+        }
+        assertThat(from, equalTo(NUM_DOCS));
+    }
+
+    @Test
+    public void testHttp10ResponseIsNotChunked() throws Exception {
+        Response response = send(HttpVersion.HTTP_1_0, "/test/_search?size=" + NUM_DOCS + "&sort=num").get(0);
+        assertThat(response.status, equalTo(HttpResponseStatus.OK));
+        assertThat(response.chunked, equalTo(false));
+        assertThat(HttpHeaders.getContentLength(response.response), equalTo((long) response.content.length()));
+        assertHits(response, 0, NUM_DOCS);
+    }
+
+    @Test
+    public void testJsonpResponseIsNotChunked() throws Exception {
+        Response response = send(HttpVersion.HTTP_1_1, "/test/_search?size=" + NUM_DOCS + "&sort=num&callback=cb").get(0);
+        assertThat(response.status, equalTo(HttpResponseStatus.OK));
+        assertThat(response.chunked, equalTo(false));
+        assertThat(response.response.headers().get(HttpHeaders.Names.CONTENT_TYPE), equalTo("application/javascript"));
+        assertThat(response.content, startsWith("cb("));
+        assertThat(response.content, endsWith(");"));
+        Response json = new Response(response.response);
+        json.content = response.content.substring("cb(".length(), response.content.length() - ");".length());
+        assertHits(json, 0, NUM_DOCS);
+    }
+
+    @Test
+    public void testPipelinedResponsesAreChunked() throws Exception {
+        for (int iter = 0; iter < 5; iter++) {
+            int from = randomIntBetween(0, NUM_DOCS / 2);
+            List<Response> responses = send(HttpVersion.HTTP_1_1,
+                    "/test/_search?size=" + NUM_DOCS + "&sort=num",
+                    "/test/_search?from=" + from + "&size=" + NUM_DOCS + "&sort=num");
+            assertThat(responses, hasSize(2));
+            assertThat(responses.get(0).response.headers().get("X-Opaque-Id"), equalTo("0"));
+            assertThat(responses.get(0).chunked, equalTo(true));
+            assertHits(responses.get(0), 0, NUM_DOCS);
+            assertThat(responses.get(1).response.headers().get("X-Opaque-Id"), equalTo("1"));
+            assertThat(responses.get(1).chunked, equalTo(true));
+            assertHits(responses.get(1), from, NUM_DOCS - from);
+        }
+    }
+
+    /**
+     * Checks that the response holds <tt>count</tt> hits sorted by <tt>num</tt>, starting at <tt>from</tt>, and
+     * returns the number of hits.
+     */
+    @SuppressWarnings("unchecked")
+    private static int assertHits(Response response, int from, int count) {
+        Map<String, Object> hits = (Map<String, Object>) response.map().get("hits");
+        assertThat(((Number) hits.get("total")).intValue(), equalTo(NUM_DOCS));
+        List<Map<String, Object>> hitList = (List<Map<String, Object>>) hits.get("hits");
+        assertThat(hitList.size(), equalTo(Math.min(count, NUM_DOCS - from)));
+        for (int i = 0; i < hitList.size(); i++) {
+            assertThat((String) hitList.get(i).get("_id"), equalTo(Integer.toString(from + i)));
+        }
+        return hitList.size();
+    }
+
+    /**
+     * Sends the requests on a single connection, without waiting for the responses in between.
+     */
+    private List<Response> send(HttpVersion version, String... uris) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(uris.length);
+        final List<Response> responses = Collections.synchronizedList(new ArrayList<Response>());
+        clientBootstrap.setPipelineFactory(new ChannelPipelineFactory() {
+            @Override
+            public ChannelPipeline getPipeline() throws Exception {
+                return Channels.pipeline(new HttpClientCodec(), new ResponseHandler(responses, latch));
+            }
+        });
+        HttpServerTransport httpServerTransport = internalCluster().getInstance(HttpServerTransport.class);
+        InetSocketAddress address = ((InetSocketTransportAddress) httpServerTransport.boundAddress().boundAddress()).address();
+        ChannelFuture connectFuture = clientBootstrap.connect(address);
+        try {
+            assertThat(connectFuture.await(10, TimeUnit.SECONDS), equalTo(true));
+            Channel channel = connectFuture.getChannel();
+            for (int i = 0; i < uris.length; i++) {
+                HttpRequest request = new DefaultHttpRequest(version, HttpMethod.GET, uris[i]);
+                request.headers().add(HttpHeaders.Names.HOST, "localhost");
+                request.headers().add("X-Opaque-Id", Integer.toString(i));
+                channel.write(request);
+            }
+            assertThat("timed out waiting for responses", latch.await(30, TimeUnit.SECONDS), equalTo(true));
+        } finally {
+            connectFuture.getChannel().close().awaitUninterruptibly();
+        }
+        return responses;
+    }
+
+    private static class Response {
+
+        final HttpResponse response;
+        final HttpResponseStatus status;
+        final boolean chunked;
+        int chunks;
+        String content;
+
+        Response(HttpResponse response) {
+            this.response = response;
+            this.status = response.getStatus();
+            this.chunked = response.isChunked();
+        }
+
+        Map<String, Object> map() {
+            return XContentHelper.convertToMap(content.getBytes(Charsets.UTF_8), false).v2();
+        }
+    }
+
+    /**
+     * Collects the chunks of each response, and counts the latch down once a response is complete.
+     */
+    private static class ResponseHandler extends SimpleChannelUpstreamHandler {
+
+        private final List<Response> responses;
+        private final CountDownLatch latch;
+        private Response current;
+        private ChannelBuffer content;
+
+        ResponseHandler(List<Response> responses, CountDownLatch latch) {
+            this.responses = responses;
+            this.latch = latch;
+        }
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+            Object message = e.getMessage();
+            if (message instanceof HttpResponse) {
+                current = new Response((HttpResponse) message);
+                content = ChannelBuffers.dynamicBuffer();
+                content.writeBytes(current.response.getContent());
+                if (!current.chunked) {
+                    complete();
+                }
+            } else if (message instanceof HttpChunk) {
+                HttpChunk chunk = (HttpChunk) message;
+                content.writeBytes(chunk.getContent());
+                if (chunk.isLast()) {
+                    complete();
+                } else {
+                    current.chunks++;
+                }
+            }
+        }
+
+        private void complete() {
+            current.content = content.toString(Charsets.UTF_8);
+            responses.add(current);
+            current = null;
+            content = null;
+            latch.countDown();
+        }
+    }
+}
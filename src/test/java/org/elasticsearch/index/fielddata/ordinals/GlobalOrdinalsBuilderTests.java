@@ -0,0 +1,139 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.Term;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.fielddata.AbstractFieldDataTests;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class GlobalOrdinalsBuilderTests extends AbstractFieldDataTests {
+
+    @Override
+    protected FieldDataType getFieldDataType() {
+        return new FieldDataType("string", ImmutableSettings.builder().put("format", "paged_bytes").put("cache", "node"));
+    }
+
+    @Test
+    public void testReuseOrdinalMapWhenSegmentsAreUnchanged() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Document d = new Document();
+            d.add(new StringField("_id", Integer.toString(i), Field.Store.NO));
+            d.add(new StringField("value", "value" + i, Field.Store.NO));
+            writer.addDocument(d);
+            // one segment per document
+            writer.commit();
+        }
+        refreshReader();
+        CircuitBreaker breaker = getInstanceFromNode(CircuitBreakerService.class).getBreaker(CircuitBreaker.Name.FIELDDATA);
+        final long initialBreaker = breaker.getUsed();
+        IndexOrdinalsFieldData ifd = getForField("value");
+
+        InternalGlobalOrdinalsIndexFieldData globalOrdinals = (InternalGlobalOrdinalsIndexFieldData) ifd.loadGlobal(topLevelReader);
+        final long usedBreaker = breaker.getUsed();
+        final long cacheSize = indicesFieldDataCache.getCache().size();
+
+        // deletes only: same segments
+        writer.deleteDocuments(new Term("_id", "0"));
+        DirectoryReader sameSegments = DirectoryReader.open(writer, true);
+        try {
+            InternalGlobalOrdinalsIndexFieldData reused = (InternalGlobalOrdinalsIndexFieldData) ifd.loadGlobal(sameSegments);
+            assertThat(reused, not(sameInstance(globalOrdinals)));
+            assertThat(reused.ordinalMap(), sameInstance(globalOrdinals.ordinalMap()));
+            // both global ordinals are cached, the ordinal map they share is accounted once
+            assertThat(indicesFieldDataCache.getCache().size(), equalTo(cacheSize + 1));
+            assertThat(breaker.getUsed(), equalTo(usedBreaker));
+
+            // a new segment
+            Document d = new Document();
+            d.add(new StringField("_id", "3", Field.Store.NO));
+            d.add(new StringField("value", "value3", Field.Store.NO));
+            writer.addDocument(d);
+            DirectoryReader newSegment = DirectoryReader.open(writer, true);
+            try {
+                InternalGlobalOrdinalsIndexFieldData rebuilt = (InternalGlobalOrdinalsIndexFieldData) ifd.loadGlobal(newSegment);
+                assertThat(rebuilt.ordinalMap(), not(sameInstance(reused.ordinalMap())));
+                assertThat(rebuilt.ordinalMap().getValueCount(), equalTo(4l));
+            } finally {
+                newSegment.close();
+            }
+        } finally {
+            sameSegments.close();
+        }
+        // the global ordinals of the first reader still use the ordinal map
+        assertThat(indicesFieldDataCache.getCache().size(), equalTo(cacheSize));
+        assertThat(breaker.getUsed(), equalTo(usedBreaker));
+
+        ifdService.clear();
+        assertThat(breaker.getUsed(), equalTo(initialBreaker));
+    }
+
+    @Test
+    public void testOrdinalMapIsReleasedWithItsLastUser() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Document d = new Document();
+            d.add(new StringField("_id", Integer.toString(i), Field.Store.NO));
+            d.add(new StringField("value", "value" + i, Field.Store.NO));
+            writer.addDocument(d);
+            writer.commit();
+        }
+        refreshReader();
+        CircuitBreaker breaker = getInstanceFromNode(CircuitBreakerService.class).getBreaker(CircuitBreaker.Name.FIELDDATA);
+        IndexOrdinalsFieldData ifd = getForField("value");
+        // load the segments first so that only global ordinals are loaded below
+        for (int i = 0; i < topLevelReader.leaves().size(); i++) {
+            ifd.load(topLevelReader.leaves().get(i));
+        }
+        final long segmentsBreaker = breaker.getUsed();
+
+        InternalGlobalOrdinalsIndexFieldData globalOrdinals = (InternalGlobalOrdinalsIndexFieldData) ifd.loadGlobal(topLevelReader);
+        final long ordinalMapBytes = globalOrdinals.ordinalMap().ramBytesUsed();
+        assertThat(breaker.getUsed(), equalTo(segmentsBreaker + ordinalMapBytes));
+
+        writer.deleteDocuments(new Term("_id", "0"));
+        DirectoryReader sameSegments = DirectoryReader.open(writer, true);
+        try {
+            InternalGlobalOrdinalsIndexFieldData reused = (InternalGlobalOrdinalsIndexFieldData) ifd.loadGlobal(sameSegments);
+            assertThat(reused.ordinalMap(), sameInstance(globalOrdinals.ordinalMap()));
+            assertThat(breaker.getUsed(), equalTo(segmentsBreaker + ordinalMapBytes));
+
+            // the global ordinals that accounted the ordinal map go away first, it is still used by the others
+            topLevelReader.close();
+            assertThat(breaker.getUsed(), equalTo(segmentsBreaker + ordinalMapBytes));
+        } finally {
+            sameSegments.close();
+        }
+        assertThat(breaker.getUsed(), equalTo(segmentsBreaker));
+
+        ifdService.clear();
+    }
+}
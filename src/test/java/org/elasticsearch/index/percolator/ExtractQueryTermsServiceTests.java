@@ -0,0 +1,105 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermFilter;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+import org.elasticsearch.common.lucene.search.XConstantScoreQuery;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ExtractQueryTermsServiceTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testTermAndPhraseQueries() throws Exception {
+        TermQuery termQuery = new TermQuery(new Term("field", "value"));
+        assertThat(ExtractQueryTermsService.extractQueryTerms(termQuery), containsInAnyOrder(new Term("field", "value")));
+
+        PhraseQuery phraseQuery = new PhraseQuery();
+        phraseQuery.add(new Term("field", "quick"));
+        phraseQuery.add(new Term("field", "fox"));
+        assertThat(ExtractQueryTermsService.extractQueryTerms(phraseQuery), containsInAnyOrder(new Term("field", "quick")));
+        assertThat(ExtractQueryTermsService.extractQueryTerms(new PhraseQuery()), empty());
+
+        XConstantScoreQuery constantScoreQuery = new XConstantScoreQuery(new TermFilter(new Term("field", "value")));
+        assertThat(ExtractQueryTermsService.extractQueryTerms(constantScoreQuery), containsInAnyOrder(new Term("field", "value")));
+    }
+
+    @Test
+    public void testBooleanQuery() throws Exception {
+        BooleanQuery disjunction = new BooleanQuery();
+        disjunction.add(new TermQuery(new Term("field", "value1")), BooleanClause.Occur.SHOULD);
+        disjunction.add(new TermQuery(new Term("field", "value2")), BooleanClause.Occur.SHOULD);
+        disjunction.add(new TermQuery(new Term("field", "value3")), BooleanClause.Occur.MUST_NOT);
+        assertThat(ExtractQueryTermsService.extractQueryTerms(disjunction), containsInAnyOrder(new Term("field", "value1"), new Term("field", "value2")));
+
+        // a single required clause is enough, pick the one with the longest terms
+        BooleanQuery conjunction = new BooleanQuery();
+        conjunction.add(new TermQuery(new Term("field", "a")), BooleanClause.Occur.MUST);
+        conjunction.add(new TermRangeQuery("field", null, null, true, true), BooleanClause.Occur.MUST);
+        conjunction.add(new TermQuery(new Term("field", "longer")), BooleanClause.Occur.MUST);
+        conjunction.add(new TermQuery(new Term("other_field", "value")), BooleanClause.Occur.SHOULD);
+        assertThat(ExtractQueryTermsService.extractQueryTerms(conjunction), containsInAnyOrder(new Term("field", "longer")));
+
+        DisjunctionMaxQuery disjunctionMaxQuery = new DisjunctionMaxQuery(Arrays.asList(disjunction, conjunction), 0f);
+        assertThat(ExtractQueryTermsService.extractQueryTerms(disjunctionMaxQuery),
+                containsInAnyOrder(new Term("field", "value1"), new Term("field", "value2"), new Term("field", "longer")));
+    }
+
+    @Test
+    public void testUnsupportedQueries() throws Exception {
+        MatchAllDocsQuery matchAllDocsQuery = new MatchAllDocsQuery();
+        assertUnsupported(matchAllDocsQuery, matchAllDocsQuery);
+
+        // an optional clause that can't be analyzed may match on its own
+        TermRangeQuery rangeQuery = new TermRangeQuery("field", null, null, true, true);
+        BooleanQuery disjunction = new BooleanQuery();
+        disjunction.add(new TermQuery(new Term("field", "value")), BooleanClause.Occur.SHOULD);
+        disjunction.add(rangeQuery, BooleanClause.Occur.SHOULD);
+        assertUnsupported(disjunction, rangeQuery);
+
+        BooleanQuery negation = new BooleanQuery();
+        negation.add(new TermQuery(new Term("field", "value")), BooleanClause.Occur.MUST_NOT);
+        assertUnsupported(negation, negation);
+    }
+
+    private void assertUnsupported(Query query, Query unsupportedQuery) {
+        try {
+            ExtractQueryTermsService.extractQueryTerms(query);
+            fail("expected UnsupportedQueryException");
+        } catch (ExtractQueryTermsService.UnsupportedQueryException e) {
+            assertThat(e.getUnsupportedQuery(), sameInstance(unsupportedQuery));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.percolator.PercolatorService;
+import org.elasticsearch.test.ElasticsearchSingleNodeTest;
+import org.junit.Test;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class PercolatorQueriesRegistryTests extends ElasticsearchSingleNodeTest {
+
+    @Test
+    public void testUpdateAndRemoveQueryTerms() throws Exception {
+        IndexService indexService = createIndex("test");
+        PercolatorQueriesRegistry registry = indexService.shardSafe(0).percolateRegistry();
+
+        client().prepareIndex("test", PercolatorService.TYPE_NAME, "1")
+                .setSource(jsonBuilder().startObject().field("query", boolQuery()
+                        .should(termQuery("field", "value1"))
+                        .should(termQuery("field", "value2"))).endObject())
+                .get();
+        assertThat(registry.queriesByTerm().keySet(), containsInAnyOrder(new Term("field", "value1"), new Term("field", "value2")));
+        assertThat(registry.candidateQueries(reader("value1")).keySet(), contains(new BytesRef("1")));
+
+        // the terms the new version of the query doesn't use anymore are dropped, the others are kept
+        client().prepareIndex("test", PercolatorService.TYPE_NAME, "1")
+                .setSource(jsonBuilder().startObject().field("query", boolQuery()
+                        .should(termQuery("field", "value2"))
+                        .should(termQuery("field", "value3"))).endObject())
+                .get();
+        assertThat(registry.queriesByTerm().keySet(), containsInAnyOrder(new Term("field", "value2"), new Term("field", "value3")));
+        assertThat(registry.candidateQueries(reader("value1")).isEmpty(), equalTo(true));
+        assertThat(registry.candidateQueries(reader("value2")).keySet(), contains(new BytesRef("1")));
+        assertThat(registry.candidateQueries(reader("value3")).keySet(), contains(new BytesRef("1")));
+
+        // a second query sharing a term
+        client().prepareIndex("test", PercolatorService.TYPE_NAME, "2")
+                .setSource(jsonBuilder().startObject().field("query", termQuery("field", "value3")).endObject())
+                .get();
+        assertThat(registry.candidateQueries(reader("value3")).keySet(), containsInAnyOrder(new BytesRef("1"), new BytesRef("2")));
+
+        // emptied terms don't linger once the queries are removed
+        client().prepareDelete("test", PercolatorService.TYPE_NAME, "1").get();
+        assertThat(registry.queriesByTerm().keySet(), contains(new Term("field", "value3")));
+        assertThat(registry.candidateQueries(reader("value3")).keySet(), contains(new BytesRef("2")));
+        client().prepareDelete("test", PercolatorService.TYPE_NAME, "2").get();
+        assertThat(registry.queriesByTerm().keySet(), empty());
+        assertThat(registry.percolateQueries().isEmpty(), equalTo(true));
+    }
+
+    private static IndexReader reader(String value) {
+        MemoryIndex memoryIndex = new MemoryIndex();
+        memoryIndex.addField("field", value, new KeywordAnalyzer());
+        return memoryIndex.createSearcher().getIndexReader();
+    }
+}
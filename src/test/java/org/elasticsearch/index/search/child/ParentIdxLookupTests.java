@@ -0,0 +1,48 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search.child;
+
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ParentIdxLookupTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testDuelWithHash() {
+        final int valueCount = randomIntBetween(1, 10000);
+        // from very sparse to all global ordinals collected
+        final int numParents = randomIntBetween(1, valueCount);
+        try (LongHash parentIdxs = new LongHash(1, BigArrays.NON_RECYCLING_INSTANCE)) {
+            for (int i = 0; i < numParents; i++) {
+                parentIdxs.add(randomInt(valueCount - 1));
+            }
+            try (ParentIdxLookup lookup = new ParentIdxLookup(parentIdxs, valueCount, BigArrays.NON_RECYCLING_INSTANCE)) {
+                assertThat(lookup.isDense(), equalTo(parentIdxs.size() * 4 >= valueCount));
+                for (long globalOrdinal = 0; globalOrdinal < valueCount; globalOrdinal++) {
+                    assertThat(lookup.find(globalOrdinal), equalTo(parentIdxs.find(globalOrdinal)));
+                }
+            }
+        }
+    }
+}
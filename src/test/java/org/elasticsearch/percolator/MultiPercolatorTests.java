@@ -21,11 +21,14 @@ package org.elasticsearch.percolator;
 import org.elasticsearch.action.ShardOperationFailedException;
 import org.elasticsearch.action.percolate.MultiPercolateRequestBuilder;
 import org.elasticsearch.action.percolate.MultiPercolateResponse;
+import org.elasticsearch.action.percolate.PercolateRequestBuilder;
+import org.elasticsearch.action.percolate.PercolateResponse;
 import org.elasticsearch.action.percolate.PercolateSourceBuilder;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.query.MatchQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.junit.Test;
@@ -33,7 +36,9 @@ import org.junit.Test;
 import java.io.IOException;
 
 import static org.elasticsearch.action.percolate.PercolateSourceBuilder.docBuilder;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.elasticsearch.common.xcontent.XContentFactory.*;
+import static org.elasticsearch.index.query.FilterBuilders.scriptFilter;
 import static org.elasticsearch.index.query.QueryBuilders.*;
 import static org.elasticsearch.percolator.PercolatorTests.convertFromTextArray;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
@@ -349,6 +354,97 @@ public class MultiPercolatorTests extends ElasticsearchIntegrationTest {
         assertEquals(response.getItems()[1].getResponse().getMatches()[0].getId().string(), "Q");
     }
 
+    @Test
+    public void testBatchedPercolationMatchesSinglePercolation() throws Exception {
+        assertAcked(prepareCreate("test").addMapping("type", "field1", "type=string"));
+        ensureGreen();
+
+        String[] values = new String[]{"a", "b", "c", "d", "e"};
+        int numQueries = randomIntBetween(1, 20);
+        for (int i = 0; i < numQueries; i++) {
+            QueryBuilder query;
+            if (rarely()) {
+                query = matchAllQuery();
+            } else if (randomBoolean()) {
+                query = termQuery("field1", randomFrom(values));
+            } else {
+                query = boolQuery().must(termQuery("field1", randomFrom(values))).must(termQuery("field1", randomFrom(values)));
+            }
+            client().prepareIndex("test", PercolatorService.TYPE_NAME, Integer.toString(i))
+                    .setSource(jsonBuilder().startObject().field("query", query).endObject())
+                    .get();
+        }
+
+        int numDocs = randomIntBetween(2, 20);
+        PercolateRequestBuilder[] requests = new PercolateRequestBuilder[numDocs];
+        MultiPercolateRequestBuilder multiPercolate = client().prepareMultiPercolate();
+        for (int i = 0; i < numDocs; i++) {
+            String text = randomFrom(values) + " " + randomFrom(values);
+            requests[i] = client().preparePercolate()
+                    .setIndices("test").setDocumentType("type")
+                    .setOnlyCount(rarely())
+                    .setPercolateDoc(docBuilder().setDoc(jsonBuilder().startObject().field("field1", text).endObject()));
+            if (randomBoolean()) {
+                requests[i].setSize(randomIntBetween(1, numQueries));
+            }
+            multiPercolate.add(requests[i]);
+        }
+
+        long percolateCount = client().admin().indices().prepareStats("test").setPercolate(true).get().getTotal().getPercolate().getCount();
+        MultiPercolateResponse response = multiPercolate.get();
+        // every batched item is accounted on its own in the percolate stats
+        long expectedCount = percolateCount + numDocs * getNumShards("test").numPrimaries;
+        assertThat(client().admin().indices().prepareStats("test").setPercolate(true).get().getTotal().getPercolate().getCount(), equalTo(expectedCount));
+        for (int i = 0; i < numDocs; i++) {
+            PercolateResponse expected = requests[i].get();
+            MultiPercolateResponse.Item item = response.getItems()[i];
+            assertThat(item.errorMessage(), nullValue());
+            assertMatchCount(item.getResponse(), expected.getCount());
+            if (expected.getMatches() == null) {
+                assertThat(item.getResponse().getMatches(), nullValue());
+            } else {
+                assertThat(item.getResponse().getMatches().length, equalTo(expected.getMatches().length));
+            }
+        }
+    }
+
+    @Test
+    public void testFailingBatchedItemDoesNotFailTheOtherItems() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(settingsBuilder().put("index.number_of_shards", 1))
+                .addMapping("type", "num", "type=long"));
+        ensureGreen();
+
+        // a query without terms is a candidate for every document, it fails for the documents with num=0 only
+        client().prepareIndex("test", PercolatorService.TYPE_NAME, "1")
+                .setSource(jsonBuilder().startObject().field("query", filteredQuery(matchAllQuery(),
+                        scriptFilter("if (doc['num'].value == 0) { throw new IllegalArgumentException('num is 0') }; return true"))).endObject())
+                .get();
+        refresh();
+
+        int numDocs = randomIntBetween(2, 10);
+        int failingDoc = randomInt(numDocs - 1);
+        MultiPercolateRequestBuilder multiPercolate = client().prepareMultiPercolate();
+        for (int i = 0; i < numDocs; i++) {
+            multiPercolate.add(client().preparePercolate()
+                    .setIndices("test").setDocumentType("type")
+                    .setPercolateDoc(docBuilder().setDoc(jsonBuilder().startObject().field("num", i == failingDoc ? 0 : i + 1).endObject())));
+        }
+
+        MultiPercolateResponse response = multiPercolate.get();
+        assertThat(response.getItems().length, equalTo(numDocs));
+        for (int i = 0; i < numDocs; i++) {
+            MultiPercolateResponse.Item item = response.getItems()[i];
+            if (i == failingDoc) {
+                assertThat(item.isFailure() || item.getResponse().getFailedShards() > 0, is(true));
+            } else {
+                assertThat(item.errorMessage(), nullValue());
+                assertThat(item.getResponse().getFailedShards(), equalTo(0));
+                assertMatchCount(item.getResponse(), 1l);
+                assertThat(convertFromTextArray(item.getResponse().getMatches(), "test"), arrayContaining("1"));
+            }
+        }
+    }
+
     void initNestedIndexAndPercolation() throws IOException {
         XContentBuilder mapping = XContentFactory.jsonBuilder();
         mapping.startObject().startObject("properties").startObject("companyname").field("type", "string").endObject()
@@ -640,6 +640,43 @@ public class PercolatorTests extends ElasticsearchIntegrationTest {
         assertThat(percolateSumTime, greaterThan(0l));
     }
 
+    @Test
+    public void testVerifiedQueriesStatistics() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(settingsBuilder().put("index.number_of_shards", 1))
+                .addMapping("type", "field", "type=string"));
+        ensureGreen();
+
+        // queries without terms are verified against every document, unless the percolate query filters them out
+        int numQueries = randomIntBetween(2, 10);
+        for (int i = 0; i < numQueries; i++) {
+            client().prepareIndex("test", PercolatorService.TYPE_NAME, Integer.toString(i))
+                    .setSource(jsonBuilder().startObject().field("query", matchAllQuery()).field("group", i == 0 ? "a" : "b").endObject())
+                    .get();
+        }
+        refresh();
+
+        PercolateResponse response = client().preparePercolate()
+                .setIndices("test").setDocumentType("type")
+                .setPercolateDoc(docBuilder().setDoc(jsonBuilder().startObject().field("field", "value").endObject()))
+                .get();
+        assertMatchCount(response, (long) numQueries);
+        IndicesStatsResponse stats = client().admin().indices().prepareStats("test").setPercolate(true).get();
+        assertThat(stats.getTotal().getPercolate().getVerifiedQueries(), equalTo((long) numQueries));
+        assertThat(stats.getTotal().getPercolate().getMatchedQueries(), equalTo((long) numQueries));
+
+        // only the query the percolate query selects is executed
+        response = client().preparePercolate()
+                .setIndices("test").setDocumentType("type")
+                .setOnlyCount(randomBoolean())
+                .setPercolateQuery(termQuery("group", "a"))
+                .setPercolateDoc(docBuilder().setDoc(jsonBuilder().startObject().field("field", "value").endObject()))
+                .get();
+        assertMatchCount(response, 1l);
+        stats = client().admin().indices().prepareStats("test").setPercolate(true).get();
+        assertThat(stats.getTotal().getPercolate().getVerifiedQueries(), equalTo((long) numQueries + 1));
+        assertThat(stats.getTotal().getPercolate().getMatchedQueries(), equalTo((long) numQueries + 1));
+    }
+
     @Test
     public void testPercolatingExistingDocs() throws Exception {
         client().admin().indices().prepareCreate("test").execute().actionGet();
@@ -0,0 +1,153 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.significant;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermFilter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.test.ElasticsearchLuceneTestCase;
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class SignificantTermsBackgroundCacheTests extends ElasticsearchLuceneTestCase {
+
+    @Test
+    public void testCachePerReaderFieldAndFilter() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter iw = new IndexWriter(dir, newIndexWriterConfig(new KeywordAnalyzer()));
+        Document doc = new Document();
+        doc.add(new StringField("field", "value", Field.Store.NO));
+        iw.addDocument(doc);
+        DirectoryReader reader = DirectoryReader.open(iw, true);
+
+        SignificantTermsBackgroundCache cache = new SignificantTermsBackgroundCache(ImmutableSettings.EMPTY, new NoneCircuitBreakerService());
+        assertThat(cache.get(reader, "field", null), nullValue());
+
+        SignificantTermsBackgroundCache.BackgroundFrequencies frequencies = cache.put(reader, "field", null, 1);
+        assertThat(frequencies, notNullValue());
+        assertThat(cache.get(reader, "field", null), sameInstance(frequencies));
+        assertThat(cache.put(reader, "field", null, 1), sameInstance(frequencies));
+        assertThat(cache.get(reader, "other_field", null), nullValue());
+        assertThat(cache.get(reader, "field", new TermFilter(new Term("field", "value"))), nullValue());
+
+        BytesRef term = new BytesRef("value");
+        assertThat(frequencies.frequency(term), equalTo(-1l));
+        frequencies.put(term, 1);
+        term.bytes[term.offset] = 'x'; // the cache must have copied the term
+        assertThat(frequencies.frequency(new BytesRef("value")), equalTo(1l));
+
+        // a new reader has its own entries
+        iw.addDocument(doc);
+        DirectoryReader newReader = DirectoryReader.openIfChanged(reader, iw, true);
+        assertThat(cache.get(newReader, "field", null), nullValue());
+
+        // entries are released with their reader
+        reader.close();
+        assertThat(cache.get(reader, "field", null), nullValue());
+        assertThat(cache.size(), equalTo(0l));
+
+        newReader.close();
+        iw.close();
+        dir.close();
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter iw = new IndexWriter(dir, newIndexWriterConfig(new KeywordAnalyzer()));
+        iw.addDocument(new Document());
+        DirectoryReader reader = DirectoryReader.open(iw, true);
+
+        SignificantTermsBackgroundCache cache = new SignificantTermsBackgroundCache(ImmutableSettings.builder()
+                .put(SignificantTermsBackgroundCache.ENABLED, false).build(), new NoneCircuitBreakerService());
+        assertThat(cache.put(reader, "field", null, 1), nullValue());
+        assertThat(cache.get(reader, "field", null), nullValue());
+
+        reader.close();
+        iw.close();
+        dir.close();
+    }
+
+    @Test
+    public void testBoundedByBytesAndAccountedOnBreaker() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter iw = new IndexWriter(dir, newIndexWriterConfig(new KeywordAnalyzer()));
+        iw.addDocument(new Document());
+        DirectoryReader reader = DirectoryReader.open(iw, true);
+
+        CircuitBreakerService breakerService = new HierarchyCircuitBreakerService(ImmutableSettings.EMPTY, new NodeSettingsService(ImmutableSettings.EMPTY));
+        CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.Name.FIELDDATA);
+        final long entrySize = 10 * (SignificantTermsBackgroundCache.BYTES_PER_TERM + 10);
+        SignificantTermsBackgroundCache cache = new SignificantTermsBackgroundCache(ImmutableSettings.builder()
+                .put(SignificantTermsBackgroundCache.SIZE, 8 * entrySize + "b")
+                .put(SignificantTermsBackgroundCache.ENTRY_SIZE, entrySize + "b").build(), breakerService);
+
+        SignificantTermsBackgroundCache.BackgroundFrequencies frequencies = cache.put(reader, "field", null, 1);
+        for (int i = 0; i < 100; i++) {
+            frequencies.put(new BytesRef(String.format(Locale.ROOT, "value%05d", i)), i);
+        }
+        // the entry stops growing once it reached its size
+        assertThat(frequencies.frequency(new BytesRef("value00000")), equalTo(0l));
+        assertThat(frequencies.frequency(new BytesRef("value00010")), equalTo(-1l));
+        assertThat(frequencies.sizeInBytes(), greaterThan(0l));
+        assertThat(frequencies.sizeInBytes(), lessThanOrEqualTo(entrySize));
+        assertThat(breaker.getUsed(), equalTo(frequencies.sizeInBytes()));
+        // caching a term twice doesn't account it twice
+        frequencies.put(new BytesRef("value00000"), 0);
+        assertThat(breaker.getUsed(), equalTo(frequencies.sizeInBytes()));
+
+        // the total size of the cache is bounded too
+        for (int i = 0; i < 20; i++) {
+            cache.put(reader, "field" + i, null, 1);
+        }
+        assertThat(cache.size(), lessThanOrEqualTo(8l));
+
+        // evicted entries are released from the breaker
+        cache.clear();
+        assertThat(breaker.getUsed(), equalTo(0l));
+        frequencies.put(new BytesRef("other"), 1);
+        assertThat(breaker.getUsed(), equalTo(0l));
+
+        reader.close();
+        iw.close();
+        dir.close();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.tophits;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class BucketTopScoreDocsTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testDuelWithSort() {
+        final int topN = randomIntBetween(1, 10);
+        final int numBuckets = randomIntBetween(1, 50);
+        final List<List<ScoreDoc>> expected = new ArrayList<>();
+        for (int i = 0; i < numBuckets; i++) {
+            expected.add(new ArrayList<ScoreDoc>());
+        }
+
+        try (BucketTopScoreDocs topScoreDocs = new BucketTopScoreDocs(topN, randomIntBetween(0, numBuckets), BigArrays.NON_RECYCLING_INSTANCE)) {
+            final int numDocs = randomIntBetween(0, 1000);
+            for (int doc = 0; doc < numDocs; doc++) {
+                final int bucket = randomInt(numBuckets - 1);
+                // few distinct scores so that ties are frequent
+                final float score = randomIntBetween(0, 5);
+                topScoreDocs.collect(bucket, doc, score);
+                expected.get(bucket).add(new ScoreDoc(doc, score));
+            }
+
+            for (int bucket = 0; bucket < numBuckets; bucket++) {
+                List<ScoreDoc> bucketDocs = expected.get(bucket);
+                Collections.sort(bucketDocs, new Comparator<ScoreDoc>() {
+                    @Override
+                    public int compare(ScoreDoc a, ScoreDoc b) {
+                        int cmp = Float.compare(b.score, a.score);
+                        return cmp != 0 ? cmp : a.doc - b.doc;
+                    }
+                });
+                TopDocs topDocs = topScoreDocs.topDocs(bucket);
+                assertThat(topDocs.totalHits, equalTo(bucketDocs.size()));
+                assertThat(topScoreDocs.totalHits(bucket), equalTo((long) bucketDocs.size()));
+                assertThat(topDocs.scoreDocs.length, equalTo(Math.min(topN, bucketDocs.size())));
+                for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                    assertThat(topDocs.scoreDocs[i].doc, equalTo(bucketDocs.get(i).doc));
+                    assertThat(topDocs.scoreDocs[i].score, equalTo(bucketDocs.get(i).score));
+                }
+                if (bucketDocs.isEmpty() == false) {
+                    assertThat(topDocs.getMaxScore(), equalTo(bucketDocs.get(0).score));
+                }
+            }
+            assertThat(topScoreDocs.totalHits(numBuckets + 1), equalTo(0l));
+        }
+    }
+}
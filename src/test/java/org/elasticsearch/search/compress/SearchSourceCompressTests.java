@@ -19,11 +19,14 @@
 
 package org.elasticsearch.search.compress;
 
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.compress.lzf.LZFCompressor;
+import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -32,6 +35,9 @@ import org.junit.Test;
 
 import java.io.IOException;
 
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
 import static org.hamcrest.Matchers.equalTo;
 
 /**
@@ -83,6 +89,39 @@ public class SearchSourceCompressTests  extends ElasticsearchIntegrationTest {
         }
     }
 
+    @Test
+    public void testCompressedSourceOnReplicas() throws IOException {
+        internalCluster().ensureAtLeastNumDataNodes(2);
+        assertAcked(prepareCreate("test")
+                .setSettings(ImmutableSettings.builder().put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 1))
+                .addMapping("type1", XContentFactory.jsonBuilder().startObject().startObject("type1")
+                        .startObject("_source").field("compress", true).field("compress_threshold", "1b").endObject()
+                        .endObject().endObject()));
+        ensureGreen();
+
+        BulkRequestBuilder bulk = client().prepareBulk();
+        for (int i = 1; i < 100; i++) {
+            bulk.add(client().prepareIndex("test", "type1", Integer.toString(i)).setSource(buildSource(i)));
+        }
+        assertNoFailures(bulk.get());
+        client().prepareIndex("test", "type1", Integer.toString(10000)).setSource(buildSource(10000)).get();
+        refresh();
+
+        // the replicas index the source the primary has already compressed
+        for (String preference : new String[]{"_primary", "_replica"}) {
+            for (int i = 1; i < 100; i++) {
+                GetResponse getResponse = client().prepareGet("test", "type1", Integer.toString(i)).setPreference(preference).get();
+                assertThat(getResponse.getSourceAsBytes(), equalTo(buildSource(i).bytes().toBytes()));
+            }
+            GetResponse getResponse = client().prepareGet("test", "type1", Integer.toString(10000)).setPreference(preference).get();
+            assertThat(getResponse.getSourceAsBytes(), equalTo(buildSource(10000).bytes().toBytes()));
+
+            SearchResponse searchResponse = client().prepareSearch("test").setPreference(preference)
+                    .setQuery(QueryBuilders.termQuery("field", "value98")).get();
+            assertHitCount(searchResponse, 2l);
+        }
+    }
+
     private XContentBuilder buildSource(int count) throws IOException {
         XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
         StringBuilder sb = new StringBuilder();
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.geo;
 
+import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
@@ -26,6 +27,11 @@ import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.elasticsearch.index.query.FilterBuilders.geoBoundingBoxFilter;
 import static org.elasticsearch.index.query.QueryBuilders.*;
@@ -336,5 +342,47 @@ public class GeoBoundingBoxTests extends ElasticsearchIntegrationTest {
                 ).execute().actionGet();
         assertThat(searchResponse.getHits().totalHits(), equalTo(2l));
     }
-}
 
+    @Test
+    public void testGeoHashCellsMatchInMemory() throws Exception {
+        XContentBuilder xContentBuilder = XContentFactory.jsonBuilder().startObject().startObject("type1")
+                .startObject("properties").startObject("location").field("type", "geo_point")
+                .field("geohash", true).field("geohash_prefix", randomBoolean()).field("geohash_precision", randomIntBetween(1, 12))
+                .endObject().endObject()
+                .endObject().endObject();
+        assertAcked(prepareCreate("test").addMapping("type1", xContentBuilder));
+        ensureGreen();
+
+        int numDocs = randomIntBetween(10, 200);
+        List<IndexRequestBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            builders.add(client().prepareIndex("test", "type1", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .startObject("location").field("lat", randomDouble() * 180 - 90).field("lon", randomDouble() * 360 - 180).endObject()
+                    .endObject()));
+        }
+        indexRandom(true, builders);
+
+        for (int i = 0; i < 10; i++) {
+            double top = randomDouble() * 180 - 90;
+            double bottom = randomDouble() * (top + 90) - 90;
+            // the left longitude may be greater than the right one, the box then crosses the date line
+            double left = randomDouble() * 360 - 180;
+            double right = randomDouble() * 360 - 180;
+
+            SearchResponse expected = client().prepareSearch("test").setSize(numDocs)
+                    .setQuery(filteredQuery(matchAllQuery(), geoBoundingBoxFilter("location").topLeft(top, left).bottomRight(bottom, right)))
+                    .get();
+            SearchResponse actual = client().prepareSearch("test").setSize(numDocs)
+                    .setQuery(filteredQuery(matchAllQuery(), geoBoundingBoxFilter("location").topLeft(top, left).bottomRight(bottom, right).type("indexed")))
+                    .get();
+            assertThat(actual.getHits().getTotalHits(), equalTo(expected.getHits().getTotalHits()));
+            Set<String> expectedIds = new HashSet<>();
+            for (SearchHit hit : expected.getHits()) {
+                expectedIds.add(hit.id());
+            }
+            for (SearchHit hit : actual.getHits()) {
+                assertThat(expectedIds.contains(hit.id()), equalTo(true));
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.internal;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.HandlesStreamInput;
+import org.elasticsearch.common.io.stream.HandlesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.text.StringAndBytesText;
+import org.elasticsearch.search.SearchHitField;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.*;
+
+public class InternalSearchHitTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testSerializeFields() throws Exception {
+        Map<String, SearchHitField> fields = new HashMap<>();
+        fields.put("field1", new InternalSearchHitField("field1", Arrays.<Object>asList("value1", 1L)));
+        fields.put("field2", new InternalSearchHitField("field2", Collections.<Object>singletonList(true)));
+        InternalSearchHit hit = new InternalSearchHit(1, "id", new StringAndBytesText("type"), fields);
+
+        Version version = randomFrom(Version.V_1_4_0, Version.CURRENT);
+        InternalSearchHit received = serialize(hit, version);
+        // passing the hit on without accessing its fields
+        InternalSearchHit passedOn = serialize(received, version);
+        assertFields(received, fields);
+        assertFields(passedOn, fields);
+        // and after they have been accessed
+        assertFields(serialize(received, version), fields);
+
+        InternalSearchHit noFields = serialize(new InternalSearchHit(1, "id", new StringAndBytesText("type"), ImmutableMap.<String, SearchHitField>of()), version);
+        assertThat(noFields.fields().isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void testPassOnFieldsWithoutDecodingThem() throws Exception {
+        Map<String, SearchHitField> fields = new HashMap<>();
+        fields.put("field1", new InternalSearchHitField("field1", Arrays.<Object>asList("value1", 1L)));
+        InternalSearchHit received = serialize(new InternalSearchHit(1, "id", new StringAndBytesText("type"), fields), Version.CURRENT);
+        BytesReference fieldsBytes = received.serializedFields();
+        assertThat(fieldsBytes, notNullValue());
+
+        InternalSearchHit passedOn = serialize(received, Version.CURRENT);
+        // the fields have been written as they were received, without being decoded
+        assertThat(received.serializedFields(), sameInstance(fieldsBytes));
+        assertThat(passedOn.serializedFields(), equalTo(fieldsBytes));
+        assertFields(passedOn, fields);
+        assertThat(passedOn.serializedFields(), nullValue());
+
+        // older nodes get the fields encoded the previous way
+        serialize(received, Version.V_1_4_0);
+        assertThat(received.serializedFields(), nullValue());
+        assertFields(received, fields);
+    }
+
+    @Test
+    public void testSerializeHitsSharingFieldsOutput() throws Exception {
+        InternalSearchHit[] hits = new InternalSearchHit[randomIntBetween(2, 20)];
+        List<Map<String, SearchHitField>> expectedFields = new ArrayList<>();
+        for (int i = 0; i < hits.length; i++) {
+            Map<String, SearchHitField> fields = new HashMap<>();
+            int numFields = randomIntBetween(0, 3);
+            for (int j = 0; j < numFields; j++) {
+                // some fields are larger than the initial size of the shared output
+                String value = randomAsciiOfLength(randomBoolean() ? 10 : InternalSearchHit.FIELDS_OUT_EXPECTED_SIZE * 2);
+                fields.put("field" + j, new InternalSearchHitField("field" + j, Collections.<Object>singletonList(value)));
+            }
+            hits[i] = new InternalSearchHit(i, Integer.toString(i), new StringAndBytesText("type"), fields);
+            expectedFields.add(fields);
+        }
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        new InternalSearchHits(hits, hits.length, 1f).writeTo(out, InternalSearchHits.streamContext().streamShardTarget(InternalSearchHits.StreamContext.ShardTargetType.STREAM));
+        InternalSearchHits read = InternalSearchHits.readSearchHits(out.bytes().streamInput(), InternalSearchHits.streamContext().streamShardTarget(InternalSearchHits.StreamContext.ShardTargetType.STREAM));
+        assertThat(read.internalHits().length, equalTo(hits.length));
+        for (int i = 0; i < hits.length; i++) {
+            assertFields(read.internalHits()[i], expectedFields.get(i));
+        }
+    }
+
+    @Test
+    public void testFieldNamesAreSharedAcrossHits() throws Exception {
+        String name = "shared_field_name";
+        InternalSearchHit[] hits = new InternalSearchHit[randomIntBetween(2, 20)];
+        for (int i = 0; i < hits.length; i++) {
+            Map<String, SearchHitField> fields = new HashMap<>();
+            fields.put(name, new InternalSearchHitField(name, Collections.<Object>singletonList(i)));
+            hits[i] = new InternalSearchHit(i, Integer.toString(i), new StringAndBytesText("type"), fields);
+        }
+        InternalSearchHits.StreamContext context = InternalSearchHits.streamContext().streamShardTarget(InternalSearchHits.StreamContext.ShardTargetType.STREAM);
+
+        BytesStreamOutput bytes = new BytesStreamOutput();
+        new InternalSearchHits(hits, hits.length, 1f).writeTo(new HandlesStreamOutput(bytes), context);
+        assertThat(occurrences(bytes.bytes(), name), equalTo(1));
+        InternalSearchHits received = InternalSearchHits.readSearchHits(new HandlesStreamInput(bytes.bytes().streamInput()), context);
+
+        // and when the hits are passed on without decoding their fields
+        bytes = new BytesStreamOutput();
+        received.writeTo(new HandlesStreamOutput(bytes), context);
+        assertThat(occurrences(bytes.bytes(), name), equalTo(1));
+        InternalSearchHits passedOn = InternalSearchHits.readSearchHits(new HandlesStreamInput(bytes.bytes().streamInput()), context);
+        for (int i = 0; i < hits.length; i++) {
+            assertThat(received.internalHits()[i].serializedFields(), notNullValue());
+            assertFields(passedOn.internalHits()[i], hits[i].fields());
+        }
+    }
+
+    @Test
+    public void testDecodeFieldsConcurrently() throws Exception {
+        Map<String, SearchHitField> fields = new HashMap<>();
+        int numFields = randomIntBetween(1, 10);
+        for (int i = 0; i < numFields; i++) {
+            fields.put("field" + i, new InternalSearchHitField("field" + i, Collections.<Object>singletonList(randomAsciiOfLength(10))));
+        }
+        final InternalSearchHit hit = serialize(new InternalSearchHit(1, "id", new StringAndBytesText("type"), fields), Version.CURRENT);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Map<String, SearchHitField>> seen = new CopyOnWriteArrayList<>();
+        Thread[] threads = new Thread[randomIntBetween(2, 8)];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    seen.add(hit.fields());
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(seen.size(), equalTo(threads.length));
+        for (Map<String, SearchHitField> decoded : seen) {
+            assertThat(decoded.size(), equalTo(numFields));
+        }
+        assertFields(hit, fields);
+    }
+
+    private static int occurrences(BytesReference bytes, String s) {
+        String content = new String(bytes.toBytes(), Charsets.ISO_8859_1);
+        int count = 0;
+        for (int i = content.indexOf(s); i >= 0; i = content.indexOf(s, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static InternalSearchHit serialize(InternalSearchHit hit, Version version) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
+        hit.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(version);
+        return InternalSearchHit.readSearchHit(in, InternalSearchHits.streamContext().streamShardTarget(InternalSearchHits.StreamContext.ShardTargetType.STREAM));
+    }
+
+    private static void assertFields(InternalSearchHit hit, Map<String, SearchHitField> expected) {
+        assertThat(hit.fields().size(), equalTo(expected.size()));
+        for (SearchHitField field : expected.values()) {
+            assertThat(hit.field(field.name()).values(), equalTo(field.values()));
+        }
+    }
+}
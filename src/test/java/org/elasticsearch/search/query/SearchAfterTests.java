@@ -0,0 +1,102 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SearchAfterTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testPaginationMatchesSingleSearch() throws Exception {
+        assertAcked(prepareCreate("test").addMapping("type", "num", "type=long", "text", "type=string,index=not_analyzed"));
+        ensureGreen();
+
+        int numDocs = randomIntBetween(1, 200);
+        List<IndexRequestBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            builders.add(client().prepareIndex("test", "type", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .field("num", randomInt(10))
+                    .field("text", randomFrom("a", "b", "c"))
+                    .endObject()));
+        }
+        indexRandom(true, builders);
+
+        SearchResponse expected = client().prepareSearch("test")
+                .addSort("num", SortOrder.ASC).addSort("text", SortOrder.DESC).addSort("_uid", SortOrder.ASC)
+                .setSize(numDocs)
+                .get();
+        assertNoFailures(expected);
+        assertThat(expected.getHits().getHits().length, equalTo(numDocs));
+
+        int pageSize = randomIntBetween(1, 20);
+        List<String> ids = new ArrayList<>();
+        Object[] searchAfter = null;
+        while (true) {
+            SearchResponse response = client().prepareSearch("test")
+                    .addSort("num", SortOrder.ASC).addSort("text", SortOrder.DESC).addSort("_uid", SortOrder.ASC)
+                    .setSize(pageSize)
+                    .setSearchAfter(searchAfter)
+                    .get();
+            assertNoFailures(response);
+            assertThat(response.getHits().getTotalHits(), equalTo((long) numDocs));
+            SearchHit[] hits = response.getHits().getHits();
+            if (hits.length == 0) {
+                break;
+            }
+            for (SearchHit hit : hits) {
+                ids.add(hit.getId());
+            }
+            searchAfter = hits[hits.length - 1].getSortValues();
+        }
+
+        assertThat(ids.size(), equalTo(numDocs));
+        for (int i = 0; i < numDocs; i++) {
+            assertThat(ids.get(i), equalTo(expected.getHits().getAt(i).getId()));
+        }
+    }
+
+    @Test
+    public void testRequiresSort() throws Exception {
+        createIndex("test");
+        ensureGreen();
+        client().prepareIndex("test", "type", "1").setSource("num", 1).setRefresh(true).get();
+
+        try {
+            client().prepareSearch("test").setSearchAfter(1).get();
+            fail("search_after without a sort should fail");
+        } catch (SearchPhaseExecutionException e) {
+            assertThat(e.toString().contains("[search_after] requires a sort"), equalTo(true));
+        }
+    }
+}
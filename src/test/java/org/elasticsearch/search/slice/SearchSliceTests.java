@@ -0,0 +1,159 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.slice;
+
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class SearchSliceTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testSlicesAreDisjointAndComplete() throws Exception {
+        createIndex("test");
+        ensureGreen();
+
+        int numDocs = randomIntBetween(1, 300);
+        List<IndexRequestBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            builders.add(client().prepareIndex("test", "type", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .field("num", i)
+                    .endObject()));
+        }
+        indexRandom(true, builders);
+
+        int max = randomIntBetween(2, 10);
+        int pageSize = randomIntBetween(1, 50);
+        Set<String> ids = new HashSet<>();
+        for (int id = 0; id < max; id++) {
+            SearchResponse response = client().prepareSearch("test")
+                    .setScroll(TimeValue.timeValueMinutes(1))
+                    .setSize(pageSize)
+                    .setSlice(id, max)
+                    .get();
+            long sliceTotal = response.getHits().getTotalHits();
+            long seen = 0;
+            try {
+                while (true) {
+                    assertNoFailures(response);
+                    SearchHit[] hits = response.getHits().getHits();
+                    if (hits.length == 0) {
+                        break;
+                    }
+                    for (SearchHit hit : hits) {
+                        assertThat("document [" + hit.getId() + "] returned by more than one slice", ids.add(hit.getId()), equalTo(true));
+                    }
+                    seen += hits.length;
+                    response = client().prepareSearchScroll(response.getScrollId()).setScroll(TimeValue.timeValueMinutes(1)).get();
+                }
+            } finally {
+                clearScroll(response.getScrollId());
+            }
+            assertThat(seen, equalTo(sliceTotal));
+        }
+        assertThat(ids.size(), equalTo(numDocs));
+    }
+
+    @Test
+    public void testSliceIsCachedAcrossPages() throws Exception {
+        createIndex("test");
+        ensureGreen();
+
+        int numDocs = randomIntBetween(50, 200);
+        List<IndexRequestBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            builders.add(client().prepareIndex("test", "type", Integer.toString(i)).setSource("num", i));
+        }
+        indexRandom(true, builders);
+        client().admin().indices().prepareClearCache("test").setFilterCache(true).get();
+
+        SearchResponse response = client().prepareSearch("test")
+                .setScroll(TimeValue.timeValueMinutes(1))
+                .setSize(randomIntBetween(1, 10))
+                .setSlice(0, 2)
+                .get();
+        try {
+            assertNoFailures(response);
+            response = client().prepareSearchScroll(response.getScrollId()).setScroll(TimeValue.timeValueMinutes(1)).get();
+            assertNoFailures(response);
+        } finally {
+            clearScroll(response.getScrollId());
+        }
+        IndicesStatsResponse stats = client().admin().indices().prepareStats("test").setFilterCache(true).get();
+        assertThat(stats.getTotal().getFilterCache().getMemorySizeInBytes(), greaterThan(0l));
+    }
+
+    @Test
+    public void testRejectsFieldsWithoutExactlyOneTermPerDocument() throws Exception {
+        assertAcked(prepareCreate("test").addMapping("type", "num", "type=long", "tags", "type=string,index=not_analyzed", "text", "type=string"));
+        ensureGreen();
+        client().prepareIndex("test", "type", "1").setSource(jsonBuilder().startObject()
+                .field("num", 1)
+                .field("tags", "a", "b")
+                .field("text", "some text")
+                .endObject()).setRefresh(true).get();
+
+        for (String field : new String[]{"num", "tags", "text"}) {
+            try {
+                client().prepareSearch("test").setScroll(TimeValue.timeValueMinutes(1)).setSlice(field, 0, 2).get();
+                fail("slicing on [" + field + "] should fail");
+            } catch (SearchPhaseExecutionException e) {
+                assertThat(e.toString(), e.toString().contains("[slice] can only be used on [_uid]"), equalTo(true));
+            }
+        }
+
+        SearchResponse response = client().prepareSearch("test").setScroll(TimeValue.timeValueMinutes(1)).setSlice("_uid", 0, 2).get();
+        try {
+            assertNoFailures(response);
+        } finally {
+            clearScroll(response.getScrollId());
+        }
+    }
+
+    @Test
+    public void testRequiresScroll() throws Exception {
+        createIndex("test");
+        ensureGreen();
+        client().prepareIndex("test", "type", "1").setSource("num", 1).setRefresh(true).get();
+
+        try {
+            client().prepareSearch("test").setSlice(0, 2).get();
+            fail("slice without a scroll should fail");
+        } catch (SearchPhaseExecutionException e) {
+            assertThat(e.toString().contains("[slice] can only be used with scroll"), equalTo(true));
+        }
+    }
+}
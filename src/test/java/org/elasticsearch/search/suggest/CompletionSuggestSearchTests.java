@@ -98,6 +98,74 @@ public class CompletionSuggestSearchTests extends ElasticsearchIntegrationTest {
         assertSuggestionsNotInOrder("t", "The Prodigy", "Turbonegro", "Turbonegro Get it on", "The Prodigy Firestarter");
     }
 
+    @Test
+    public void testDeletedDocumentsAreNotSuggested() throws Exception {
+        createIndexAndMapping(completionMappingBuilder);
+        String[] input = {"Nirvana", "Nickelback", "Nine Inch Nails"};
+        for (int i = 0; i < input.length; i++) {
+            client().prepareIndex(INDEX, TYPE, "" + i)
+                    .setSource(jsonBuilder()
+                            .startObject().startObject(FIELD)
+                            .startArray("input").value(input[i]).endArray()
+                            .endObject()
+                            .endObject()
+                    )
+                    .execute().actionGet();
+        }
+        refresh();
+        assertSuggestionsNotInOrder("n", "Nirvana", "Nickelback", "Nine Inch Nails");
+
+        client().prepareDelete(INDEX, TYPE, "1").get();
+        // re-indexing a document deletes its previous version, its suggestion must still be returned
+        client().prepareIndex(INDEX, TYPE, "0")
+                .setSource(jsonBuilder()
+                        .startObject().startObject(FIELD)
+                        .startArray("input").value("Nirvana").endArray()
+                        .endObject()
+                        .endObject()
+                )
+                .execute().actionGet();
+        refresh();
+        assertSuggestionsNotInOrder("n", "Nirvana", "Nine Inch Nails");
+    }
+
+    @Test
+    public void testDeletesAcrossSeveralRefreshes() throws Exception {
+        createIndexAndMapping(completionMappingBuilder);
+        String[] input = {"Nirvana", "Nickelback", "Nine Inch Nails", "Nightwish"};
+        for (int i = 0; i < input.length; i++) {
+            indexSuggestion(Integer.toString(i), input[i]);
+        }
+        refresh();
+        assertSuggestionsNotInOrder("n", "Nirvana", "Nickelback", "Nine Inch Nails", "Nightwish");
+
+        // every refresh exposes new deletes on the same segment
+        client().prepareDelete(INDEX, TYPE, "1").get();
+        refresh();
+        assertSuggestionsNotInOrder("n", "Nirvana", "Nine Inch Nails", "Nightwish");
+
+        client().prepareDelete(INDEX, TYPE, "3").get();
+        refresh();
+        assertSuggestionsNotInOrder("n", "Nirvana", "Nine Inch Nails");
+
+        // a deleted suggestion comes back with a new document in a new segment
+        indexSuggestion("4", "Nickelback");
+        client().prepareDelete(INDEX, TYPE, "0").get();
+        refresh();
+        assertSuggestionsNotInOrder("n", "Nickelback", "Nine Inch Nails");
+    }
+
+    private void indexSuggestion(String id, String input) throws IOException {
+        client().prepareIndex(INDEX, TYPE, id)
+                .setSource(jsonBuilder()
+                        .startObject().startObject(FIELD)
+                        .startArray("input").value(input).endArray()
+                        .endObject()
+                        .endObject()
+                )
+                .get();
+    }
+
     @Test
     public void testSuggestFieldWithPercolateApi() throws Exception {
         createIndexAndMapping(completionMappingBuilder);
@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.suggest.completion;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.lucene.analysis.CannedTokenStream;
+import org.apache.lucene.analysis.Token;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ElasticsearchLuceneTestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.*;
+
+public class DeletedSurfaceFormsTests extends ElasticsearchLuceneTestCase {
+
+    // the payload is the surface form
+    private static final PayloadProcessor PAYLOAD_PROCESSOR = new PayloadProcessor() {
+        @Override
+        public BytesRef buildPayload(BytesRef surfaceForm, long weight, BytesRef payload) throws IOException {
+            return surfaceForm;
+        }
+
+        @Override
+        public void parsePayload(BytesRef payload, SuggestPayload ref) throws IOException {
+            ref.surfaceForm.copyBytes(payload);
+        }
+    };
+
+    @Test
+    public void testDeletesAcrossRefreshes() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(TEST_VERSION_CURRENT, null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter writer = new IndexWriter(dir, iwc);
+        writer.addDocument(doc("0", "a"));
+        writer.addDocument(doc("1", "a", "b"));
+        writer.addDocument(doc("2", "b"));
+        writer.addDocument(doc("3", "c", "c"));
+        writer.addDocument(doc("4", "d"));
+
+        DeletedSurfaceForms deletedSurfaceForms = new DeletedSurfaceForms();
+        DirectoryReader noDeletes = DirectoryReader.open(writer, true);
+        assertThat(deleted(deletedSurfaceForms, noDeletes), empty());
+
+        writer.deleteDocuments(new Term("id", "2"));
+        DirectoryReader first = DirectoryReader.open(writer, true);
+        // "b" is still indexed by document 1
+        assertThat(deleted(deletedSurfaceForms, first), empty());
+
+        writer.deleteDocuments(new Term("id", "1"), new Term("id", "3"));
+        DirectoryReader second = DirectoryReader.open(writer, true);
+        assertThat(deleted(deletedSurfaceForms, second), equalTo((Set<String>) ImmutableSet.of("b", "c")));
+
+        writer.deleteDocuments(new Term("id", "0"));
+        DirectoryReader third = DirectoryReader.open(writer, true);
+        assertThat(deleted(deletedSurfaceForms, third), equalTo((Set<String>) ImmutableSet.of("a", "b", "c")));
+        // the same live docs get the same instance
+        assertThat(deleted(deletedSurfaceForms, third), sameInstance(deleted(deletedSurfaceForms, third)));
+
+        // an older reader, after a newer one has been seen
+        DeletedSurfaceForms olderAfterNewer = new DeletedSurfaceForms();
+        assertThat(deleted(olderAfterNewer, third), equalTo((Set<String>) ImmutableSet.of("a", "b", "c")));
+        assertThat(deleted(olderAfterNewer, second), equalTo((Set<String>) ImmutableSet.of("b", "c")));
+        assertThat(deleted(olderAfterNewer, first), empty());
+
+        noDeletes.close();
+        first.close();
+        second.close();
+        third.close();
+        writer.close();
+        dir.close();
+    }
+
+    private static Set<String> deleted(DeletedSurfaceForms deletedSurfaceForms, DirectoryReader reader) throws IOException {
+        assertThat(reader.leaves().size(), equalTo(1));
+        AtomicReader segment = reader.leaves().get(0).reader();
+        Bits liveDocs = segment.getLiveDocs();
+        return deletedSurfaceForms.get(liveDocs, segment.terms("suggest"), PAYLOAD_PROCESSOR);
+    }
+
+    private static Document doc(String id, String... surfaceForms) {
+        Token[] tokens = new Token[surfaceForms.length];
+        for (int i = 0; i < surfaceForms.length; i++) {
+            tokens[i] = new Token(surfaceForms[i], 0, surfaceForms[i].length());
+            tokens[i].setPayload(new BytesRef(surfaceForms[i]));
+        }
+        Document doc = new Document();
+        doc.add(new StringField("id", id, Field.Store.NO));
+        doc.add(new TextField("suggest", new CannedTokenStream(tokens)));
+        return doc;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class TransportStatsTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testSerialization() throws IOException {
+        TransportStats stats = randomStats();
+        TransportStats read = serialize(stats, Version.CURRENT);
+        assertCommonStats(read, stats);
+        assertThat(read.txFlushCount(), equalTo(stats.txFlushCount()));
+        assertThat(read.txFlushMessages(), equalTo(stats.txFlushMessages()));
+        assertThat(read.txMessagesPerFlush(), equalTo(stats.txMessagesPerFlush()));
+    }
+
+    @Test
+    public void testSerializationWithOlderVersion() throws IOException {
+        TransportStats stats = randomStats();
+        TransportStats read = serialize(stats, Version.V_1_4_0);
+        assertCommonStats(read, stats);
+        // nodes before 1.5.0 don't know about the flush stats
+        assertThat(read.txFlushCount(), equalTo(0l));
+        assertThat(read.txFlushMessages(), equalTo(0l));
+        assertThat(read.txMessagesPerFlush(), equalTo(0d));
+    }
+
+    private static TransportStats randomStats() {
+        long txFlushCount = randomIntBetween(0, 1000);
+        return new TransportStats(randomIntBetween(0, 100), randomIntBetween(0, 1000), randomIntBetween(0, 100000),
+                randomIntBetween(0, 1000), randomIntBetween(0, 100000), txFlushCount, txFlushCount * randomIntBetween(1, 10));
+    }
+
+    private static TransportStats serialize(TransportStats stats, Version version) throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
+        stats.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(version);
+        TransportStats read = TransportStats.readTransportStats(in);
+        assertThat(in.read(), equalTo(-1));
+        return read;
+    }
+
+    private static void assertCommonStats(TransportStats read, TransportStats expected) {
+        assertThat(read.serverOpen(), equalTo(expected.serverOpen()));
+        assertThat(read.rxCount(), equalTo(expected.rxCount()));
+        assertThat(read.rxSize().bytes(), equalTo(expected.rxSize().bytes()));
+        assertThat(read.txCount(), equalTo(expected.txCount()));
+        assertThat(read.txSize().bytes(), equalTo(expected.txSize().bytes()));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport.netty;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ChannelBufferStreamInputTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testReadBytesReferenceFromCompositeBuffer() throws Exception {
+        byte[] first = randomBytes(randomIntBetween(10, 100));
+        byte[] second = randomBytes(randomIntBetween(10, 100));
+        ChannelBuffer buffer = ChannelBuffers.wrappedBuffer(true, ChannelBuffers.wrappedBuffer(first), ChannelBuffers.wrappedBuffer(second));
+        StreamInput in = ChannelBufferStreamInputFactory.create(buffer);
+
+        // within the first read buffer
+        int length = randomIntBetween(1, first.length - 1);
+        BytesReference ref = in.readBytesReference(length);
+        assertThat(ref.hasArray(), equalTo(true));
+        assertThat(ref.array(), sameInstance(first));
+        assertThat(ref, equalTo((BytesReference) new BytesArray(first, 0, length)));
+
+        // spans both read buffers
+        int offset = length;
+        length = first.length - offset + randomIntBetween(1, second.length - 1);
+        ref = in.readBytesReference(length);
+        byte[] expected = new byte[length];
+        System.arraycopy(first, offset, expected, 0, first.length - offset);
+        System.arraycopy(second, 0, expected, first.length - offset, length - (first.length - offset));
+        assertThat(ref, equalTo((BytesReference) new BytesArray(expected)));
+
+        // the rest of the second read buffer
+        offset = offset + length - first.length;
+        BytesRef bytesRef = in.readBytesRef(second.length - offset);
+        assertThat(bytesRef.bytes, sameInstance(second));
+        assertThat(bytesRef, equalTo(new BytesRef(second, offset, second.length - offset)));
+        assertThat(in.available(), equalTo(0));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        getRandom().nextBytes(bytes);
+        return bytes;
+    }
+}
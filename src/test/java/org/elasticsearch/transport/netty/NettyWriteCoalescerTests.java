@@ -0,0 +1,311 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport.netty;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.network.NetworkService;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.AbstractChannel;
+import org.jboss.netty.channel.AbstractChannelSink;
+import org.jboss.netty.channel.ChannelConfig;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.DefaultChannelConfig;
+import org.jboss.netty.channel.DefaultChannelFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class NettyWriteCoalescerTests extends ElasticsearchTestCase {
+
+    private ThreadPool threadPool;
+    private NettyTransport transport;
+    private AtomicInteger released;
+
+    @Before
+    public void setUpTransport() {
+        threadPool = new ThreadPool(getClass().getName());
+        transport = new NettyTransport(ImmutableSettings.EMPTY, threadPool, new NetworkService(ImmutableSettings.EMPTY), BigArrays.NON_RECYCLING_INSTANCE, Version.CURRENT);
+        released = new AtomicInteger();
+    }
+
+    @After
+    public void tearDownTransport() throws Exception {
+        transport.close();
+        terminate(threadPool);
+    }
+
+    @Test
+    public void testMessagesQueuedWhileWritingAreWrittenInOrder() {
+        NettyWriteCoalescer coalescer = new NettyWriteCoalescer(transport, true, new ByteSizeValue(1024));
+        RecordingChannel channel = new RecordingChannel();
+
+        coalescer.write(channel, message(0), releasable());
+        // the channel is idle, the first message is written right away
+        assertThat(channel.writes.size(), equalTo(1));
+        int numQueued = randomIntBetween(1, 10);
+        for (int i = 1; i <= numQueued; i++) {
+            coalescer.write(channel, message(i), releasable());
+        }
+        assertThat(channel.writes.size(), equalTo(1));
+
+        channel.complete(0, true);
+        assertThat(channel.writes.size(), equalTo(2));
+        assertThat(channel.bytes(1), equalTo(range(1, numQueued + 1)));
+
+        channel.complete(1, randomBoolean());
+        assertThat(channel.writes.size(), equalTo(2));
+        // the channel is idle again
+        coalescer.write(channel, message(numQueued + 1), releasable());
+        assertThat(channel.writes.size(), equalTo(3));
+    }
+
+    @Test
+    public void testReleaseOnSuccessAndFailure() {
+        NettyWriteCoalescer coalescer = new NettyWriteCoalescer(transport, true, new ByteSizeValue(1024));
+        RecordingChannel channel = new RecordingChannel();
+
+        coalescer.write(channel, message(0), releasable());
+        coalescer.write(channel, message(1), releasable());
+        coalescer.write(channel, message(2), null);
+        coalescer.write(channel, message(3), releasable());
+        assertThat(released.get(), equalTo(0));
+
+        channel.complete(0, true);
+        assertThat(released.get(), equalTo(1));
+        channel.complete(1, false);
+        assertThat(released.get(), equalTo(3));
+        assertThat(channel.writes.size(), equalTo(2));
+    }
+
+    @Test
+    public void testFailedWriteReleasesQueuedMessages() {
+        NettyWriteCoalescer coalescer = new NettyWriteCoalescer(transport, true, new ByteSizeValue(1024));
+        RecordingChannel channel = new RecordingChannel();
+
+        coalescer.write(channel, message(0), releasable());
+        int numQueued = randomIntBetween(1, 10);
+        for (int i = 1; i <= numQueued; i++) {
+            coalescer.write(channel, message(i), releasable());
+        }
+        channel.complete(0, false);
+        // the queued messages are released without being written
+        assertThat(channel.writes.size(), equalTo(1));
+        assertThat(released.get(), equalTo(numQueued + 1));
+
+        // the channel is idle again
+        coalescer.write(channel, message(0), releasable());
+        assertThat(channel.writes.size(), equalTo(2));
+        channel.complete(1, true);
+        assertThat(released.get(), equalTo(numQueued + 2));
+    }
+
+    @Test
+    public void testThrowingWriteReleasesMessages() {
+        NettyWriteCoalescer coalescer = new NettyWriteCoalescer(transport, true, new ByteSizeValue(1024));
+        RecordingChannel channel = new RecordingChannel();
+
+        coalescer.write(channel, message(0), releasable());
+        int numQueued = randomIntBetween(1, 10);
+        for (int i = 1; i <= numQueued; i++) {
+            coalescer.write(channel, message(i), releasable());
+        }
+        // writing the queued messages throws, it fails all of them
+        channel.throwOnWrite = true;
+        channel.complete(0, true);
+        assertThat(released.get(), equalTo(numQueued + 1));
+
+        // a write that throws right away releases its message too and leaves the channel idle
+        try {
+            coalescer.write(channel, message(0), releasable());
+            fail("expected the write to throw");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), equalTo("simulated write exception"));
+        }
+        assertThat(released.get(), equalTo(numQueued + 2));
+        channel.throwOnWrite = false;
+        coalescer.write(channel, message(0), releasable());
+        assertThat(channel.writes.size(), equalTo(2));
+    }
+
+    @Test
+    public void testBatchesAreSplitByMaxSize() {
+        final int messageSize = 10;
+        final int maxMessagesPerBatch = randomIntBetween(1, 5);
+        NettyWriteCoalescer coalescer = new NettyWriteCoalescer(transport, true, new ByteSizeValue(messageSize * maxMessagesPerBatch));
+        RecordingChannel channel = new RecordingChannel();
+
+        coalescer.write(channel, ChannelBuffers.wrappedBuffer(new byte[messageSize]), releasable());
+        int numQueued = randomIntBetween(1, 20);
+        for (int i = 0; i < numQueued; i++) {
+            coalescer.write(channel, ChannelBuffers.wrappedBuffer(new byte[messageSize]), releasable());
+        }
+        int written = 0;
+        for (int i = 0; i < channel.writes.size(); i++) {
+            assertThat(channel.writes.get(i).readableBytes() <= Math.max(messageSize, messageSize * maxMessagesPerBatch), equalTo(true));
+            written += channel.writes.get(i).readableBytes() / messageSize;
+            channel.complete(i, true);
+        }
+        assertThat(written, equalTo(numQueued + 1));
+        // the first write plus the queued messages split into batches
+        assertThat(channel.writes.size(), equalTo(1 + (numQueued + maxMessagesPerBatch - 1) / maxMessagesPerBatch));
+        assertThat(released.get(), equalTo(numQueued + 1));
+    }
+
+    @Test
+    public void testMessageLargerThanMaxSizeIsWrittenAlone() {
+        NettyWriteCoalescer coalescer = new NettyWriteCoalescer(transport, true, new ByteSizeValue(5));
+        RecordingChannel channel = new RecordingChannel();
+
+        coalescer.write(channel, message(0), releasable());
+        coalescer.write(channel, ChannelBuffers.wrappedBuffer(new byte[10]), releasable());
+        coalescer.write(channel, message(1), releasable());
+        channel.complete(0, true);
+        assertThat(channel.writes.get(1).readableBytes(), equalTo(10));
+        channel.complete(1, true);
+        assertThat(channel.bytes(2), equalTo(new byte[]{1}));
+    }
+
+    @Test
+    public void testDisabled() {
+        NettyWriteCoalescer coalescer = new NettyWriteCoalescer(transport, false, new ByteSizeValue(1024));
+        RecordingChannel channel = new RecordingChannel();
+
+        int numMessages = randomIntBetween(1, 10);
+        for (int i = 0; i < numMessages; i++) {
+            coalescer.write(channel, message(i), releasable());
+        }
+        // every message is written on its own, even while previous writes are in flight
+        assertThat(channel.writes.size(), equalTo(numMessages));
+        for (int i = 0; i < numMessages; i++) {
+            assertThat(channel.bytes(i), equalTo(new byte[]{(byte) i}));
+            channel.complete(i, randomBoolean());
+        }
+        assertThat(released.get(), equalTo(numMessages));
+    }
+
+    private static ChannelBuffer message(int i) {
+        return ChannelBuffers.wrappedBuffer(new byte[]{(byte) i});
+    }
+
+    private static byte[] range(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            bytes[i - from] = (byte) i;
+        }
+        return bytes;
+    }
+
+    private Releasable releasable() {
+        return new Releasable() {
+            @Override
+            public void close() throws ElasticsearchException {
+                released.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * A channel that records the buffers written to it, and only completes their writes when asked to.
+     */
+    private static class RecordingChannel extends AbstractChannel {
+
+        final List<ChannelBuffer> writes = new ArrayList<>();
+        final List<DefaultChannelFuture> futures = new ArrayList<>();
+        boolean throwOnWrite;
+
+        RecordingChannel() {
+            super(null, null, Channels.pipeline(), new AbstractChannelSink() {
+                @Override
+                public void eventSunk(ChannelPipeline pipeline, ChannelEvent e) throws Exception {
+                }
+            });
+        }
+
+        @Override
+        public ChannelFuture write(Object message) {
+            if (throwOnWrite) {
+                throw new IllegalStateException("simulated write exception");
+            }
+            DefaultChannelFuture future = new DefaultChannelFuture(this, false);
+            writes.add((ChannelBuffer) message);
+            futures.add(future);
+            return future;
+        }
+
+        void complete(int write, boolean success) {
+            if (success) {
+                futures.get(write).setSuccess();
+            } else {
+                futures.get(write).setFailure(new IOException("simulated write failure"));
+            }
+        }
+
+        byte[] bytes(int write) {
+            ChannelBuffer buffer = writes.get(write);
+            byte[] bytes = new byte[buffer.readableBytes()];
+            buffer.getBytes(buffer.readerIndex(), bytes);
+            return bytes;
+        }
+
+        @Override
+        public ChannelConfig getConfig() {
+            return new DefaultChannelConfig();
+        }
+
+        @Override
+        public boolean isBound() {
+            return true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return null;
+        }
+    }
+}